@@ -0,0 +1,72 @@
+package bench;
+
+import game.Player;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ui.Board;
+import ui.Square;
+import game.GameRandom;
+
+/**
+ * Setting up, cloning and walking the board
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmarks {
+
+	private Player[] players;
+	private Board board;
+
+	@Setup
+	public void setUp(){
+		players = Fixtures.players(6);
+		board = Fixtures.board(players);
+	}
+
+	/**
+	 * A new board set up for a game, as at the start of every game
+	 */
+	@Benchmark
+	public Board setUpBoard(){
+		Board fresh = new Board(new GameRandom(Fixtures.SEED));
+		fresh.setUp(Fixtures.players(6));
+		return fresh;
+	}
+
+	@Benchmark
+	public Board cloneBoard(){
+		return board.clone();
+	}
+
+	/**
+	 * Neighbours of every square on the board
+	 */
+	@Benchmark
+	public void getAdjacentSquares(Blackhole blackhole){
+		for( int y = 0; y < Board.BOARD_HEIGHT; y++ ){
+			for( int x = 0; x < Board.BOARD_WIDTH; x++ ){
+				ArrayList<Square> squares = board.getAdjacentSquares(x, y, null);
+				blackhole.consume(squares);
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import game.InvalidMoveException;
+import game.Piece;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import control.AMove_Node;
+import control.AStar;
+import control.Controller;
+
+/**
+ * Dealing the cards and checking a move before it is made
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmarks {
+
+	@Param({ "3", "6" })
+	public int players;
+
+	private Controller controller;
+	private Piece piece;
+	private AMove_Node move;
+
+	@Setup
+	public void setUp(){
+		controller = Fixtures.game(players);
+		piece = controller.getPlayers()[0].getPiece();
+		move = AStar.getPath(piece.getPosition(), Fixtures.door(controller.getBoard(), "Lounge"), piece,
+				controller.getBoard());
+	}
+
+	@Benchmark
+	public int dealCards(){
+		controller.dealCards();
+		return controller.getSolution();
+	}
+
+	@Benchmark
+	public AMove_Node checkValidMove() throws InvalidMoveException {
+		controller.checkValidMove(move, piece);
+		return move;
+	}
+}
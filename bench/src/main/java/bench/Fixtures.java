@@ -0,0 +1,73 @@
+package bench;
+
+import game.Card;
+import game.GameRandom;
+import game.Player;
+import game.Room;
+
+import java.awt.Point;
+
+import ui.Board;
+import control.Controller;
+
+/**
+ * Games set up the same way for every benchmark, from a fixed seed so every run measures the same positions
+ *
+ */
+public class Fixtures {
+
+	public static final long SEED = 42;
+
+	private Fixtures(){
+	}
+
+	/**
+	 * Creates players for the first characters
+	 * @param count Number of players, 3 - 6
+	 * @return Players without cards
+	 */
+	public static Player[] players(int count){
+		Player[] players = new Player[count];
+		for( int seat = 0; seat < count; seat++ ){
+			players[seat] = new Player("Player " + (seat + 1), Card.get(seat).getName());
+		}
+		return players;
+	}
+
+	/**
+	 * Creates a board with the players' pieces on their starting squares
+	 * @param players Players of the game
+	 * @return Board that is set up
+	 */
+	public static Board board(Player[] players){
+		Board board = new Board(new GameRandom(SEED));
+		board.setUp(players);
+		return board;
+	}
+
+	/**
+	 * Creates a game with the cards dealt
+	 * @param count Number of players
+	 * @return Controller of the game
+	 */
+	public static Controller game(int count){
+		Player[] players = players(count);
+		Controller controller = new Controller(board(players));
+		controller.setPlayers(players);
+		controller.dealCards();
+		return controller;
+	}
+
+	/**
+	 * Returns the position of the first door of a room
+	 * @param board Board that is set up
+	 * @param name Name of the room
+	 * @return Position of the door
+	 */
+	public static Point door(Board board, String name){
+		for( Room room : board.getRooms() ){
+			if( room.getName().equals(name) ) return room.getDoors().get(0).getPosition();
+		}
+		throw new IllegalArgumentException("No room " + name);
+	}
+}
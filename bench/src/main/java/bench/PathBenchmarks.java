@@ -0,0 +1,77 @@
+package bench;
+
+import game.Piece;
+import game.Player;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ui.Board;
+import control.AMove_Node;
+import control.AStar;
+
+/**
+ * AStar.getPath between pairs of squares that come up in a game: a few squares along a corridor, from a starting
+ * square to the nearest room, between the doors of neighbouring rooms and across the whole board.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmarks {
+
+	@Param({ "CORRIDOR", "START_TO_ROOM", "NEIGHBOURS", "ACROSS" })
+	public String pair;
+
+	private Board board;
+	private Piece piece;
+	private Point start;
+	private Point end;
+
+	@Setup
+	public void setUp(){
+		Player[] players = Fixtures.players(6);
+		board = Fixtures.board(players);
+
+		// Colonel Mustard, on his starting square
+		piece = players[0].getPiece();
+		Point home = piece.getPosition();
+
+		if( pair.equals("CORRIDOR") ){
+			start = home;
+			end = new Point(home.x + 5, home.y - 1);
+		}
+		else if( pair.equals("START_TO_ROOM") ){
+			start = home;
+			end = Fixtures.door(board, "Lounge");
+		}
+		else if( pair.equals("NEIGHBOURS") ){
+			start = Fixtures.door(board, "Lounge");
+			end = Fixtures.door(board, "Dining Room");
+		}
+		else{
+			start = Fixtures.door(board, "Kitchen");
+			end = Fixtures.door(board, "Study");
+		}
+	}
+
+	@Benchmark
+	public AMove_Node getPath(){
+		return AStar.getPath(start, end, piece, board);
+	}
+}
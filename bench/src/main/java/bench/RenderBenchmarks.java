@@ -0,0 +1,59 @@
+package bench;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ui.Board;
+import ui.BoardRenderer;
+
+/**
+ * Drawing the whole board into an image off the screen, the way the BoardPanel draws it on every repaint
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmarks {
+
+	private Board board;
+	private BoardRenderer renderer;
+	private BufferedImage image;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setUp(){
+		board = Fixtures.board(Fixtures.players(6));
+		renderer = new BoardRenderer();
+		Dimension size = board.size();
+		image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+		graphics = image.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown(){
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage draw(){
+		renderer.draw(graphics, board);
+		return image;
+	}
+}
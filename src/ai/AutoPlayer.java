@@ -0,0 +1,139 @@
+package ai;
+
+import game.Card;
+import game.GameRandom;
+import game.Piece;
+import game.Room;
+
+import java.awt.Point;
+
+import ui.Board;
+import ui.Square;
+import control.AMove_Node;
+import control.AStar;
+import control.Controller;
+import control.Deadline;
+import control.Reachability;
+import control.Strategy;
+
+/**
+ * Simple automated player.
+ * Walks to the closest room that could still be in the envelope, suggests cards that could be in the envelope once
+ * inside and accuses as soon as its KnowledgeBase has deduced all three murderer cards.
+ * Every decision is quick, so it ignores its Deadline.
+ *
+ */
+public class AutoPlayer implements Strategy {
+
+	private final GameRandom random;
+
+	/**
+	 * Creates a player
+	 * @param random Source of the random choices this player makes
+	 */
+	public AutoPlayer(GameRandom random) {
+		this.random = random;
+	}
+
+	@Override
+	public int chooseAccusation(Controller controller, int seat, Deadline deadline) {
+		KnowledgeBase knowledge = controller.getKnowledge(seat);
+
+		// Only accuse when nothing is left to find out
+		return knowledge.isSolved() ? knowledge.getEnvelope() : 0;
+	}
+
+	/**
+	 * Moves the piece towards the closest room that could still be in the envelope
+	 */
+	@Override
+	public AMove_Node chooseMove(Controller controller, int seat, Deadline deadline) {
+		KnowledgeBase knowledge = controller.getKnowledge(seat);
+		Piece piece = controller.getPlayers()[seat].getPiece();
+		Board board = controller.getBoard();
+		Reachability reachability = controller.getReachability();
+
+		// Closest room that is still unknown, otherwise any other room to keep suggesting
+		int rooms = (knowledge.getEnvelope() & Card.ROOMS) != 0 ? 0 : knowledge.getPossibleEnvelope() & Card.ROOMS;
+		Room target = closestRoom(board, reachability, piece, rooms);
+		if (target == null) {
+			target = closestRoom(board, reachability, piece, Card.ROOMS);
+		}
+
+		return target == null ? null : findPath(board, piece, target, random);
+	}
+
+	/**
+	 * Suggests cards that could still be in the envelope
+	 */
+	@Override
+	public int chooseSuggestion(Controller controller, int seat, Deadline deadline) {
+		int possible = controller.getKnowledge(seat).getPossibleEnvelope();
+		return randomCard(possible & Card.CHARACTERS).bit() | randomCard(possible & Card.WEAPONS).bit();
+	}
+
+	@Override
+	public Card chooseCard(Controller controller, int seat, int cards, Deadline deadline) {
+		return randomCard(cards);
+	}
+
+	private Room closestRoom(Board board, Reachability reachability, Piece piece, int rooms) {
+		Room closest = null;
+		for (Room room : board.getRooms()) {
+			if (room.getName().equals(Room.CORRIDOR) || room == piece.getRoom()) continue;
+			if ((rooms & Card.bit(room.getName())) == 0) continue;
+			if (closest == null || reachability.getRoomDistance(room) < reachability.getRoomDistance(closest)) {
+				closest = room;
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * Finds the path to the room, taking the portal if it leads there
+	 * @param board Board the piece is on
+	 * @param piece Piece to move
+	 * @param target Room to walk to
+	 * @param random Source of the square picked when taking a portal
+	 * @return Path to the closest door of the room, null if there is none
+	 */
+	public static AMove_Node findPath(Board board, Piece piece, Room target, GameRandom random) {
+		Room room = piece.getRoom();
+
+		// Secret passage straight into the target
+		if (piece.isInRoom() && room.getPortal() != null && room.getPortal().getTargetRoom() == target) {
+			Square square = target.getRandomSquare(random);
+			while (!square.canContainPiece()) {
+				square = target.getRandomSquare(random);
+			}
+			return new AMove_Node(square.getPosition(), 0, 0, null);
+		}
+
+		// Leave a room through its closest door
+		Point start = piece.getPosition();
+		if (piece.isInRoom()) {
+			start = closestDoor(room, target.getBounds().getLocation()).getPosition();
+		}
+
+		Square end = closestDoor(target, start);
+		return end == null ? null : AStar.getPath(start, end.getPosition(), piece, board);
+	}
+
+	private static Square closestDoor(Room room, Point point) {
+		Square closest = null;
+		for (Square door : room.getDoors()) {
+			if (closest == null || door.getPosition().distance(point) < closest.getPosition().distance(point)) {
+				closest = door;
+			}
+		}
+		return closest;
+	}
+
+	private Card randomCard(int cards) {
+		int index = random.nextInt(Integer.bitCount(cards));
+		for (int i = 0; i < index; i++) {
+			cards &= cards - 1;
+		}
+		return Card.first(cards);
+	}
+}
@@ -0,0 +1,596 @@
+package ai;
+
+import game.Card;
+import game.GameRandom;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exact probability of every card being in the envelope, given what one player knows.
+ * Every deal Controller.dealCards can make is equally likely, so the probability of a solution is the number of deals
+ * with that solution that agree with the KnowledgeBase over the number of all the deals that agree with it.
+ *
+ * The 324 solutions are split across a fork-join pool. For each solution the rest of the cards are counted, not
+ * sampled: a memoized search hands out the cards that appear in clauses or can only be held by some players, keyed
+ * by the space left in every hand and the clauses satisfied so far, and the cards anyone could hold are counted
+ * with a multinomial coefficient once they are all that is left.
+ *
+ * Suggestions are treated as constraints, the choice of which card a player revealed is not weighted. Clauses already
+ * satisfied or implied by a narrower one are left out, if more than MAX_CLAUSES are still open the rest are ignored
+ * and isExact says the probabilities are approximate.
+ *
+ * The same memo draws whole deals for searching bots: a Sampler picks a solution by its count, then every restricted
+ * card goes to a holder in proportion to the deals left after giving it to them.
+ *
+ */
+public class EnvelopeProbability {
+
+	// Clauses tracked by the search, the key of the memo has room for this many
+	public static final int MAX_CLAUSES = 40;
+
+	// Solutions counted by one task before it stops splitting
+	private static final int BATCH_SIZE = 12;
+
+	// Every solution, as a mask of three cards
+	private static final int[] SOLUTIONS = solutions();
+
+	// Factorials up to the most cards dealt to the players, 18, as 21! does not fit in a long
+	private static final long[] FACTORIAL = new long[Card.COUNT - 3 + 1];
+	static{
+		FACTORIAL[0] = 1;
+		for( int i = 1; i < FACTORIAL.length; i++ ){
+			FACTORIAL[i] = FACTORIAL[i-1] * i;
+		}
+	}
+
+	private final ForkJoinPool pool;
+
+	// Consistent deals for each solution, indexed like SOLUTIONS
+	private final long[] counts = new long[SOLUTIONS.length];
+	private long total = 0;
+
+	// Knowledge of the last computation, kept for the samplers
+	private Problem problem;
+
+	/**
+	 * Creates a calculator running on all the cores of the machine
+	 */
+	public EnvelopeProbability(){
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a calculator running on the given pool
+	 * @param pool Pool the solutions are counted on
+	 */
+	public EnvelopeProbability(ForkJoinPool pool){
+		this.pool = pool;
+	}
+
+	/**
+	 * Counts the deals that agree with the knowledge of a player
+	 * @param knowledge What the player knows
+	 * @return This calculator, holding the probabilities
+	 */
+	public EnvelopeProbability compute(KnowledgeBase knowledge){
+		problem = new Problem(knowledge);
+		long[] result = pool.invoke(new Batch(problem, 0, SOLUTIONS.length));
+		System.arraycopy(result, 0, counts, 0, counts.length);
+
+		total = 0;
+		for( long count : counts ){
+			total += count;
+		}
+		return this;
+	}
+
+	/**
+	 * Returns whether the last computation used every open clause.
+	 * When more than MAX_CLAUSES are open the newest are ignored, which can only count extra deals.
+	 * @return True if the probabilities are exact
+	 */
+	public boolean isExact(){
+		return problem == null || problem.exact;
+	}
+
+	/**
+	 * Returns the number of deals that agree with the knowledge
+	 * @return Number of deals, 0 if the knowledge contradicts itself
+	 */
+	public long getTotal(){
+		return total;
+	}
+
+	/**
+	 * Returns the probability of the card being one of the murderer cards
+	 * @param card Card to check
+	 * @return Probability from 0 to 1
+	 */
+	public double getProbability(Card card){
+		if( total == 0 ) return 0;
+
+		long count = 0;
+		for( int i = 0; i < SOLUTIONS.length; i++ ){
+			if( (SOLUTIONS[i] & card.bit()) != 0 ) count += counts[i];
+		}
+		return count / (double)total;
+	}
+
+	/**
+	 * Returns the probability of every card being one of the murderer cards
+	 * @return Probabilities indexed by Card ordinal
+	 */
+	public double[] getProbabilities(){
+		double[] probabilities = new double[Card.COUNT];
+		if( total == 0 ) return probabilities;
+
+		for( int i = 0; i < SOLUTIONS.length; i++ ){
+			for( int cards = SOLUTIONS[i]; cards != 0; cards &= cards - 1 ){
+				probabilities[Integer.numberOfTrailingZeros(cards)] += counts[i];
+			}
+		}
+		for( int card = 0; card < Card.COUNT; card++ ){
+			probabilities[card] /= total;
+		}
+		return probabilities;
+	}
+
+	/**
+	 * Returns the most likely solution
+	 * @return Mask of the three cards, 0 if the knowledge contradicts itself
+	 */
+	public int getBestSolution(){
+		int best = -1;
+		for( int i = 0; i < SOLUTIONS.length; i++ ){
+			if( counts[i] > 0 && (best == -1 || counts[i] > counts[best]) ) best = i;
+		}
+		return best == -1 ? 0 : SOLUTIONS[best];
+	}
+
+	/**
+	 * Returns the probability of the given solution being right
+	 * @param solution Mask of one card of each type
+	 * @return Probability from 0 to 1
+	 */
+	public double getSolutionProbability(int solution){
+		if( total == 0 ) return 0;
+
+		for( int i = 0; i < SOLUTIONS.length; i++ ){
+			if( SOLUTIONS[i] == solution ) return counts[i] / (double)total;
+		}
+		return 0;
+	}
+
+	/**
+	 * Creates a sampler of the deals counted by the last computation.
+	 * Each thread sampling deals needs its own sampler.
+	 * @return New sampler
+	 */
+	public Sampler newSampler(){
+		if( problem == null ){
+			throw new IllegalStateException("Nothing has been computed yet");
+		}
+		return new Sampler(problem, counts.clone(), total);
+	}
+
+	/**
+	 * Draws deals that agree with the knowledge, every such deal being equally likely.
+	 * Used to fill in the cards a player can not see before playing the game forward.
+	 */
+	public static class Sampler {
+
+		private final long[] counts;
+		private final long total;
+		private final Counter counter;
+
+		// Cards anyone can hold, collected before they are shuffled into the hands
+		private final int[] tail = new int[Card.COUNT];
+
+		private Sampler(Problem problem, long[] counts, long total){
+			this.counts = counts;
+			this.total = total;
+			this.counter = new Counter(problem);
+		}
+
+		/**
+		 * Draws a deal
+		 * @param random Source of the draw
+		 * @param hands Filled with the hand of every seat
+		 * @return Mask of the murderer cards, 0 if the knowledge contradicts itself
+		 */
+		public int sample(GameRandom random, int[] hands){
+			if( total == 0 ) return 0;
+
+			// Solution weighted by the number of deals it has
+			long pick = random.nextLong(total);
+			int solution = 0;
+			for( int i = 0; i < SOLUTIONS.length; i++ ){
+				if( pick < counts[i] ){
+					solution = SOLUTIONS[i];
+					break;
+				}
+				pick -= counts[i];
+			}
+
+			counter.deal(solution, random, hands, tail);
+			return solution;
+		}
+	}
+
+	private static int[] solutions(){
+		int[] solutions = new int[Integer.bitCount(Card.CHARACTERS) * Integer.bitCount(Card.WEAPONS)
+				* Integer.bitCount(Card.ROOMS)];
+		int i = 0;
+		for( int c = Card.CHARACTERS; c != 0; c &= c - 1 ){
+			for( int w = Card.WEAPONS; w != 0; w &= w - 1 ){
+				for( int r = Card.ROOMS; r != 0; r &= r - 1 ){
+					solutions[i++] = Integer.lowestOneBit(c) | Integer.lowestOneBit(w) | Integer.lowestOneBit(r);
+				}
+			}
+		}
+		return solutions;
+	}
+
+	/**
+	 * Everything the search needs from the KnowledgeBase, built once and shared by all the tasks
+	 */
+	private static class Problem {
+
+		final int players;
+		final int envelopeHas;
+		final int envelopeHasNot;
+		final int[] wrongAccusations;
+
+		// Space in every hand, 3 bits per player
+		final int capacities;
+
+		// Cards in the order they are handed out, those in clauses first and those anyone can hold last
+		final int[] order;
+
+		// Index in order of the first card anyone can hold
+		final int unrestricted;
+
+		// Players that can hold each card, indexed by Card ordinal
+		final int[] allowed = new int[Card.COUNT];
+
+		// Clauses satisfied by giving a card to a player, indexed by Card ordinal then player
+		final long[][] satisfies;
+
+		// False if there were more open clauses than the search tracks
+		final boolean exact;
+
+		// Clauses that must be satisfied before handing out the card at each index of order
+		final long[] required;
+
+		Problem(KnowledgeBase knowledge){
+			players = knowledge.getPlayers();
+			envelopeHas = knowledge.getHas(knowledge.getEnvelopeIndex());
+			envelopeHasNot = knowledge.getHasNot(knowledge.getEnvelopeIndex());
+
+			wrongAccusations = new int[knowledge.getWrongAccusationCount()];
+			for( int i = 0; i < wrongAccusations.length; i++ ){
+				wrongAccusations[i] = knowledge.getWrongAccusation(i);
+			}
+
+			int space = 0;
+			for( int player = 0; player < players; player++ ){
+				space |= knowledge.getHandSize(player) << (3 * player);
+			}
+			capacities = space;
+
+			int everyone = (1 << players) - 1;
+			for( int card = 0; card < Card.COUNT; card++ ){
+				for( int player = 0; player < players; player++ ){
+					if( (knowledge.getHasNot(player) & (1 << card)) == 0 ) allowed[card] |= 1 << player;
+				}
+			}
+
+			// Only the clauses that still say something, a clause holding every card of another one for the same
+			// player is implied by it
+			int open = 0;
+			int[] openHolders = new int[knowledge.getClauseCount()];
+			int[] openCards = new int[knowledge.getClauseCount()];
+			for( int i = 0; i < knowledge.getClauseCount(); i++ ){
+				int holder = knowledge.getClauseHolder(i);
+				int cards = knowledge.getClauseCards(i);
+				if( (knowledge.getHas(holder) & cards) != 0 ) continue;
+				openHolders[open] = holder;
+				openCards[open++] = cards;
+			}
+			int[] clauseHolders = new int[Math.min(open, MAX_CLAUSES)];
+			int[] clauseCards = new int[clauseHolders.length];
+			int clauses = 0;
+			int implied = 0;
+			for( int i = 0; i < open; i++ ){
+				if( impliedByOther(openHolders, openCards, open, i) ){
+					implied++;
+				}
+				else if( clauses < clauseHolders.length ){
+					clauseHolders[clauses] = openHolders[i];
+					clauseCards[clauses++] = openCards[i];
+				}
+			}
+			exact = open - implied <= MAX_CLAUSES;
+
+			// Cards in clauses go first so the clauses are settled early
+			int inClauses = 0;
+			for( int i = 0; i < clauses; i++ ){
+				inClauses |= clauseCards[i];
+			}
+
+			order = new int[Card.COUNT];
+			int next = 0;
+			for( int card = 0; card < Card.COUNT; card++ ){
+				if( (inClauses & (1 << card)) != 0 ) order[next++] = card;
+			}
+			for( int card = 0; card < Card.COUNT; card++ ){
+				if( (inClauses & (1 << card)) == 0 && allowed[card] != everyone ) order[next++] = card;
+			}
+			unrestricted = next;
+			for( int card = 0; card < Card.COUNT; card++ ){
+				if( (inClauses & (1 << card)) == 0 && allowed[card] == everyone ) order[next++] = card;
+			}
+
+			satisfies = new long[Card.COUNT][players];
+			required = new long[Card.COUNT + 1];
+			for( int i = 0; i < clauses; i++ ){
+				int holder = clauseHolders[i];
+				int cards = clauseCards[i];
+
+				int last = 0;
+				for( int index = 0; index < Card.COUNT; index++ ){
+					if( (cards & (1 << order[index])) != 0 ){
+						satisfies[order[index]][holder] |= 1L << i;
+						last = index;
+					}
+				}
+				for( int index = last + 1; index <= Card.COUNT; index++ ){
+					required[index] |= 1L << i;
+				}
+			}
+		}
+
+		/**
+		 * Checks if another clause of the same holder has only cards of the clause, so the clause always holds when
+		 * the other one does. Of two equal clauses the first is kept.
+		 */
+		private static boolean impliedByOther(int[] holders, int[] cards, int count, int clause){
+			for( int i = 0; i < count; i++ ){
+				if( i == clause || holders[i] != holders[clause] || (cards[i] & ~cards[clause]) != 0 ) continue;
+				if( cards[i] != cards[clause] || i < clause ) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Checks if the solution agrees with what is known about the envelope
+		 */
+		boolean possible(int solution){
+			if( (solution & envelopeHasNot) != 0 || (solution & envelopeHas) != envelopeHas ) return false;
+			for( int accusation : wrongAccusations ){
+				if( accusation == solution ) return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Counts the deals of the rest of the cards for one solution at a time, reusing its memo between solutions
+	 */
+	private static class Counter {
+
+		private final Problem problem;
+		private final CountMap memo = new CountMap();
+		private int solution = -1;
+
+		Counter(Problem problem){
+			this.problem = problem;
+		}
+
+		long count(int solution){
+			if( !problem.possible(solution) ) return 0;
+
+			// The memo only holds counts for one solution
+			if( solution != this.solution ){
+				this.solution = solution;
+				memo.clear();
+			}
+			return count(0, problem.capacities, 0L);
+		}
+
+		/**
+		 * Hands out the cards for the solution, picking every holder in proportion to the deals left after it
+		 */
+		void deal(int solution, GameRandom random, int[] hands, int[] tail){
+			count(solution);
+			Arrays.fill(hands, 0);
+
+			int capacities = problem.capacities;
+			long satisfied = 0L;
+			int index = 0;
+			for( ; index < problem.unrestricted; index++ ){
+				int card = problem.order[index];
+				if( (solution & (1 << card)) != 0 ) continue;
+
+				long pick = random.nextLong(count(index, capacities, satisfied));
+				for( int players = problem.allowed[card]; players != 0; players &= players - 1 ){
+					int player = Integer.numberOfTrailingZeros(players);
+					if( ((capacities >> (3 * player)) & 7) == 0 ) continue;
+
+					int left = capacities - (1 << (3 * player));
+					long after = satisfied | problem.satisfies[card][player];
+					long ways = count(index + 1, left, after);
+					if( pick < ways ){
+						hands[player] |= 1 << card;
+						capacities = left;
+						satisfied = after;
+						break;
+					}
+					pick -= ways;
+				}
+			}
+
+			// The rest can go anywhere, shuffle them into the space left
+			int size = 0;
+			for( ; index < Card.COUNT; index++ ){
+				if( (solution & (1 << problem.order[index])) == 0 ) tail[size++] = problem.order[index];
+			}
+			for( int i = size - 1; i > 0; i-- ){
+				int j = random.nextInt(i + 1);
+				int card = tail[i];
+				tail[i] = tail[j];
+				tail[j] = card;
+			}
+			for( int player = 0; player < problem.players; player++ ){
+				for( int left = (capacities >> (3 * player)) & 7; left > 0; left-- ){
+					hands[player] |= 1 << tail[--size];
+				}
+			}
+		}
+
+		private long count(int index, int capacities, long satisfied){
+
+			// A clause whose cards have all been handed out was not satisfied
+			if( (satisfied & problem.required[index]) != problem.required[index] ) return 0;
+
+			if( index >= problem.unrestricted ) return multinomial(index, capacities);
+
+			int card = problem.order[index];
+			if( (solution & (1 << card)) != 0 ) return count(index + 1, capacities, satisfied);
+
+			long key = ((satisfied << 23) | ((long)capacities << 5) | index);
+			long cached = memo.get(key);
+			if( cached != -1 ) return cached;
+
+			long total = 0;
+			for( int players = problem.allowed[card]; players != 0; players &= players - 1 ){
+				int player = Integer.numberOfTrailingZeros(players);
+				if( ((capacities >> (3 * player)) & 7) == 0 ) continue;
+
+				total += count(index + 1, capacities - (1 << (3 * player)), satisfied | problem.satisfies[card][player]);
+			}
+
+			memo.put(key, total);
+			return total;
+		}
+
+		/**
+		 * Ways of handing out the cards anyone can hold to fill the space left in the hands
+		 */
+		private long multinomial(int index, int capacities){
+			int cards = 0;
+			for( int i = index; i < Card.COUNT; i++ ){
+				if( (solution & (1 << problem.order[i])) == 0 ) cards++;
+			}
+
+			long ways = FACTORIAL[cards];
+			int space = 0;
+			for( int player = 0; player < problem.players; player++ ){
+				int left = (capacities >> (3 * player)) & 7;
+				space += left;
+				ways /= FACTORIAL[left];
+			}
+			return space == cards ? ways : 0;
+		}
+	}
+
+	/**
+	 * Range of solutions, split in half until it is small enough to count
+	 */
+	private static class Batch extends RecursiveTask<long[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Problem problem;
+		private final int from;
+		private final int to;
+
+		Batch(Problem problem, int from, int to){
+			this.problem = problem;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute(){
+			if( to - from > BATCH_SIZE ){
+				int middle = (from + to) >>> 1;
+				Batch left = new Batch(problem, from, middle);
+				left.fork();
+				long[] counts = new Batch(problem, middle, to).compute();
+				long[] other = left.join();
+				for( int i = from; i < middle; i++ ){
+					counts[i] = other[i];
+				}
+				return counts;
+			}
+
+			long[] counts = new long[SOLUTIONS.length];
+			Counter counter = new Counter(problem);
+			for( int i = from; i < to; i++ ){
+				counts[i] = counter.count(SOLUTIONS[i]);
+			}
+			return counts;
+		}
+	}
+
+	/**
+	 * Open addressing map from search state to count, so the memo does not box every entry
+	 */
+	private static class CountMap {
+
+		private long[] keys = new long[1024];
+		private long[] values = new long[1024];
+		private int size = 0;
+
+		CountMap(){
+			Arrays.fill(keys, -1);
+		}
+
+		long get(long key){
+			int mask = keys.length - 1;
+			for( int i = hash(key) & mask; keys[i] != -1; i = (i + 1) & mask ){
+				if( keys[i] == key ) return values[i];
+			}
+			return -1;
+		}
+
+		void put(long key, long value){
+			if( 2 * (size + 1) > keys.length ) grow();
+
+			int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while( keys[i] != -1 && keys[i] != key ){
+				i = (i + 1) & mask;
+			}
+			if( keys[i] == -1 ) size++;
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		void clear(){
+			if( size == 0 ) return;
+			Arrays.fill(keys, -1);
+			size = 0;
+		}
+
+		private void grow(){
+			long[] oldKeys = keys;
+			long[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new long[oldValues.length * 2];
+			Arrays.fill(keys, -1);
+			size = 0;
+			for( int i = 0; i < oldKeys.length; i++ ){
+				if( oldKeys[i] != -1 ) put(oldKeys[i], oldValues[i]);
+			}
+		}
+
+		private static int hash(long key){
+			key *= 0x9e3779b97f4a7c15L;
+			return (int)(key ^ (key >>> 32));
+		}
+	}
+}
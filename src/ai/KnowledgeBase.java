@@ -0,0 +1,451 @@
+package ai;
+
+import game.Card;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * What one player knows about where every card is.
+ * Keeps a holder x card possession matrix as two masks per holder, the cards they are known to have and the cards
+ * they are known not to have, with the envelope as the last holder. Suggestions that were disproved without the card
+ * being seen become "holds at least one of these" clauses.
+ *
+ * Every event is propagated straight away until nothing more can be deduced, so the questions asked by players and
+ * the hint overlay are answered from the masks without any searching.
+ *
+ */
+public class KnowledgeBase {
+
+	// Upper bound on the clauses kept, one per suggestion a player could not see the answer to
+	private static final int MAX_CLAUSES = 256;
+
+	private final int owner;
+	private final int players;
+	private final int envelope;
+
+	// Number of cards each holder has, the envelope always has 3
+	private final int[] handSize;
+
+	// Cards each holder is known to have and known not to have
+	private final int[] has;
+	private final int[] hasNot;
+
+	// Clauses: clauseHolder[i] has at least one of the cards in clauseCards[i]
+	private final int[] clauseHolder = new int[MAX_CLAUSES];
+	private final int[] clauseCards = new int[MAX_CLAUSES];
+	private int clauses = 0;
+
+	// Accusations known to be wrong, the envelope does not hold all of the cards of any of them
+	private final int[] wrongAccusations = new int[MAX_CLAUSES];
+	private int accusations = 0;
+
+	// Set when the events contradict each other
+	private boolean contradiction = false;
+
+	/**
+	 * Creates the knowledge of a player before any cards are seen
+	 * @param owner Seat of the player this knowledge belongs to
+	 * @param handSize Number of cards dealt to each seat
+	 */
+	public KnowledgeBase(int owner, int[] handSize){
+		this.owner = owner;
+		this.players = handSize.length;
+		this.envelope = players;
+		this.handSize = new int[players + 1];
+		this.has = new int[players + 1];
+		this.hasNot = new int[players + 1];
+		reset(handSize);
+	}
+
+	/**
+	 * Forgets everything for a new deal with the same number of players
+	 * @param handSize Number of cards dealt to each seat
+	 */
+	public void reset(int[] handSize){
+		System.arraycopy(handSize, 0, this.handSize, 0, players);
+		this.handSize[envelope] = 3;
+		Arrays.fill(has, 0);
+		Arrays.fill(hasNot, 0);
+		clauses = 0;
+		accusations = 0;
+		contradiction = false;
+	}
+
+	/**
+	 * Records the cards dealt to the owner
+	 * @param hand Mask of the cards in the owners hand
+	 */
+	public void dealt(int hand){
+		setHas(owner, hand);
+		setHasNot(owner, Card.ALL & ~hand);
+		propagate();
+	}
+
+	/**
+	 * Records a player showing they have none of the suggested cards
+	 * @param seat Seat of the player
+	 * @param cards Mask of the suggested cards
+	 */
+	public void passed(int seat, int cards){
+		setHasNot(seat, cards);
+		propagate();
+	}
+
+	/**
+	 * Records a card being revealed to the owner
+	 * @param seat Seat of the player that revealed it
+	 * @param card Card revealed
+	 */
+	public void shown(int seat, Card card){
+		setHas(seat, card.bit());
+		propagate();
+	}
+
+	/**
+	 * Records a player revealing one of the suggested cards to someone else, so the owner does not know which one
+	 * @param seat Seat of the player that revealed a card
+	 * @param cards Mask of the suggested cards
+	 */
+	public void disproved(int seat, int cards){
+		addClause(seat, cards);
+		propagate();
+	}
+
+	/**
+	 * Records a wrong accusation, the envelope does not hold all three of the cards
+	 * @param cards Mask of the accused cards
+	 */
+	public void wrongAccusation(int cards){
+		if( accusations < MAX_CLAUSES ){
+			wrongAccusations[accusations++] = cards;
+		}
+		propagate();
+	}
+
+	/**
+	 * Records a suggestion going around the table, as seen by the owner
+	 * @param suggester Seat of the player that made the suggestion
+	 * @param cards Mask of the suggested cards
+	 * @param disprover Seat of the player that revealed a card, -1 if nobody could
+	 * @param shown Card revealed, null unless it was revealed to the owner or by the owner
+	 */
+	public void suggestion(int suggester, int cards, int disprover, Card shown){
+		for( int seat = (suggester + 1) % players; seat != suggester && seat != disprover; seat = (seat + 1) % players ){
+			setHasNot(seat, cards);
+		}
+
+		if( disprover != -1 ){
+			if( shown != null ){
+				setHas(disprover, shown.bit());
+			}
+			else{
+				addClause(disprover, cards);
+			}
+		}
+		propagate();
+	}
+
+	/**
+	 * Returns the cards known to be in the envelope
+	 * @return Mask of the cards, at most one of each type
+	 */
+	public int getEnvelope(){
+		return has[envelope];
+	}
+
+	/**
+	 * Returns the cards that could still be in the envelope
+	 * @return Mask of the cards
+	 */
+	public int getPossibleEnvelope(){
+		return Card.ALL & ~hasNot[envelope];
+	}
+
+	/**
+	 * Checks if all three murderer cards are known
+	 * @return True if the owner can make an accusation that is certain to be right
+	 */
+	public boolean isSolved(){
+		return Integer.bitCount(has[envelope]) == 3;
+	}
+
+	/**
+	 * Returns the cards the holder is known to have
+	 * @param holder Seat of a player, or getEnvelopeIndex()
+	 * @return Mask of the cards
+	 */
+	public int getHas(int holder){
+		return has[holder];
+	}
+
+	/**
+	 * Returns the cards the holder is known not to have
+	 * @param holder Seat of a player, or getEnvelopeIndex()
+	 * @return Mask of the cards
+	 */
+	public int getHasNot(int holder){
+		return hasNot[holder];
+	}
+
+	/**
+	 * Returns who is known to hold the card
+	 * @param card Card to look up
+	 * @return Seat of the player, getEnvelopeIndex() for the envelope, -1 if it is not known
+	 */
+	public int getHolder(Card card){
+		for( int holder = 0; holder <= envelope; holder++ ){
+			if( (has[holder] & card.bit()) != 0 ) return holder;
+		}
+		return -1;
+	}
+
+	public int getEnvelopeIndex(){
+		return envelope;
+	}
+
+	/**
+	 * Returns the number of players, the envelope is not counted
+	 * @return Number of seats
+	 */
+	public int getPlayers(){
+		return players;
+	}
+
+	/**
+	 * Returns the number of cards the holder was dealt
+	 * @param holder Seat of a player, or getEnvelopeIndex()
+	 * @return Number of cards
+	 */
+	public int getHandSize(int holder){
+		return handSize[holder];
+	}
+
+	public int getOwner(){
+		return owner;
+	}
+
+	/**
+	 * Returns the clauses still open, every holder has at least one of the cards of their clause
+	 * @return Number of clauses
+	 */
+	public int getClauseCount(){
+		return clauses;
+	}
+
+	public int getClauseHolder(int clause){
+		return clauseHolder[clause];
+	}
+
+	public int getClauseCards(int clause){
+		return clauseCards[clause];
+	}
+
+	/**
+	 * Returns the accusations known to be wrong
+	 * @return Number of wrong accusations
+	 */
+	public int getWrongAccusationCount(){
+		return accusations;
+	}
+
+	public int getWrongAccusation(int accusation){
+		return wrongAccusations[accusation];
+	}
+
+	/**
+	 * Checks if the events recorded contradict each other, such as a card being revealed by two players
+	 * @return True if the knowledge is inconsistent
+	 */
+	public boolean isContradiction(){
+		return contradiction;
+	}
+
+	/**
+	 * Writes everything known to the buffer, for saving a game
+	 * @param buffer Buffer to write to
+	 */
+	public void write(ByteBuffer buffer){
+		for( int holder = 0; holder <= envelope; holder++ ){
+			buffer.put((byte)handSize[holder]);
+			buffer.putInt(has[holder]);
+			buffer.putInt(hasNot[holder]);
+		}
+
+		buffer.putShort((short)clauses);
+		for( int i = 0; i < clauses; i++ ){
+			buffer.put((byte)clauseHolder[i]);
+			buffer.putInt(clauseCards[i]);
+		}
+
+		buffer.putShort((short)accusations);
+		for( int i = 0; i < accusations; i++ ){
+			buffer.putInt(wrongAccusations[i]);
+		}
+		buffer.put((byte)(contradiction ? 1 : 0));
+	}
+
+	/**
+	 * Replaces everything known with what was written by write, for a game with the same number of players
+	 * @param buffer Buffer to read from
+	 */
+	public void read(ByteBuffer buffer){
+		for( int holder = 0; holder <= envelope; holder++ ){
+			handSize[holder] = buffer.get();
+			has[holder] = buffer.getInt();
+			hasNot[holder] = buffer.getInt();
+		}
+
+		clauses = buffer.getShort();
+		for( int i = 0; i < clauses; i++ ){
+			clauseHolder[i] = buffer.get();
+			clauseCards[i] = buffer.getInt();
+		}
+
+		accusations = buffer.getShort();
+		for( int i = 0; i < accusations; i++ ){
+			wrongAccusations[i] = buffer.getInt();
+		}
+		contradiction = buffer.get() != 0;
+	}
+
+	private void setHas(int holder, int cards){
+		has[holder] |= cards;
+		if( (has[holder] & hasNot[holder]) != 0 ) contradiction = true;
+	}
+
+	private void setHasNot(int holder, int cards){
+		hasNot[holder] |= cards;
+		if( (has[holder] & hasNot[holder]) != 0 ) contradiction = true;
+	}
+
+	private void addClause(int holder, int cards){
+
+		// Already known to hold one of them
+		if( (has[holder] & cards) != 0 ) return;
+
+		if( clauses < MAX_CLAUSES ){
+			clauseHolder[clauses] = holder;
+			clauseCards[clauses] = cards;
+			clauses++;
+		}
+	}
+
+	/**
+	 * Applies every rule until nothing changes
+	 */
+	private void propagate(){
+		boolean changed = true;
+		while( changed ){
+			changed = false;
+
+			// A card is held by exactly one holder
+			int held = 0;
+			for( int holder = 0; holder <= envelope; holder++ ){
+				held |= has[holder];
+			}
+			for( int holder = 0; holder <= envelope; holder++ ){
+				int others = held & ~has[holder] & ~hasNot[holder];
+				if( others != 0 ){
+					setHasNot(holder, others);
+					changed = true;
+				}
+			}
+
+			// A card nobody else can hold is held by the only holder left
+			for( int card = 0; card < Card.COUNT; card++ ){
+				int bit = 1 << card;
+				if( (held & bit) != 0 ) continue;
+
+				int candidate = -1;
+				int candidates = 0;
+				for( int holder = 0; holder <= envelope; holder++ ){
+					if( (hasNot[holder] & bit) == 0 ){
+						candidate = holder;
+						candidates++;
+					}
+				}
+				if( candidates == 1 ){
+					setHas(candidate, bit);
+					changed = true;
+				}
+				else if( candidates == 0 ){
+					contradiction = true;
+				}
+			}
+
+			// The envelope holds exactly one card of each type
+			changed |= envelopeType(Card.CHARACTERS);
+			changed |= envelopeType(Card.WEAPONS);
+			changed |= envelopeType(Card.ROOMS);
+
+			// Hands are full or every card left must be in them
+			for( int holder = 0; holder < players; holder++ ){
+				int unknown = Card.ALL & ~has[holder] & ~hasNot[holder];
+				if( unknown == 0 ) continue;
+
+				int known = Integer.bitCount(has[holder]);
+				if( known == handSize[holder] ){
+					setHasNot(holder, unknown);
+					changed = true;
+				}
+				else if( known + Integer.bitCount(unknown) == handSize[holder] ){
+					setHas(holder, unknown);
+					changed = true;
+				}
+			}
+
+			// Clauses with one card left are certain, clauses that are satisfied are dropped
+			for( int i = 0; i < clauses; i++ ){
+				int holder = clauseHolder[i];
+				int cards = clauseCards[i] & ~hasNot[holder];
+				if( (cards & has[holder]) != 0 || cards == 0 ){
+					if( cards == 0 ) contradiction = true;
+					clauses--;
+					clauseHolder[i] = clauseHolder[clauses];
+					clauseCards[i] = clauseCards[clauses];
+					i--;
+					continue;
+				}
+				clauseCards[i] = cards;
+				if( Integer.bitCount(cards) == 1 ){
+					setHas(holder, cards);
+					changed = true;
+				}
+			}
+
+			// A wrong accusation with two cards in the envelope rules out the third
+			for( int i = 0; i < accusations; i++ ){
+				int missing = wrongAccusations[i] & ~has[envelope];
+				if( Integer.bitCount(missing) == 1 && (hasNot[envelope] & missing) == 0 ){
+					setHasNot(envelope, missing);
+					changed = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies the one card of each type rule to the envelope
+	 * @return True if anything changed
+	 */
+	private boolean envelopeType(int type){
+		int known = has[envelope] & type;
+		int possible = type & ~hasNot[envelope];
+		if( known != 0 ){
+			int others = type & ~known & ~hasNot[envelope];
+			if( others != 0 ){
+				setHasNot(envelope, others);
+				return true;
+			}
+		}
+		else if( Integer.bitCount(possible) == 1 ){
+			setHas(envelope, possible);
+			return true;
+		}
+		else if( possible == 0 ){
+			contradiction = true;
+		}
+		return false;
+	}
+}
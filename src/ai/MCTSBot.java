@@ -0,0 +1,707 @@
+package ai;
+
+import game.Card;
+import game.GameRandom;
+import game.Piece;
+import game.Player;
+import game.Room;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import ui.Board;
+import control.AMove_Node;
+import control.AStarEngine;
+import control.Controller;
+import control.Deadline;
+import control.Reachability;
+import control.Strategy;
+
+/**
+ * Bot that searches for its decisions with information set Monte Carlo tree search.
+ * Every rollout draws a deal of the hidden cards that agrees with the KnowledgeBase of the seat, from an
+ * EnvelopeProbability sampler, then plays the rest of the game out with a fast model of the Controller: pieces walk
+ * between rooms by their distance on the board, suggestions are disproved from the drawn hands and players accuse
+ * once they are down to one card of each type.
+ *
+ * The choices of a decision hang off a root shared by the workers of a fork-join pool. Below every choice the tree
+ * goes on with the rooms the seat heads for next, one level for each room it walks to in the rollout, while the other
+ * players follow the fixed model. A choice gets a node of its own once it has been visited a few times, down to
+ * MAX_DEPTH choices, below the tree the seat follows the model like everyone else. Every rollout picks its way down
+ * with UCB1 and adds its result to each choice it made.
+ *
+ * A visit is counted on a choice before its rollout is played, so workers running at the same time spread over the
+ * choices. The counters are atomic and nodes are added with a compare and set, so the workers never lock. The search
+ * stops at the Deadline or after the think time of the bot, whichever comes first, and plays the choice at the root
+ * that was visited most.
+ *
+ * One bot can play several seats, but only one decision at a time.
+ *
+ */
+public class MCTSBot implements Strategy {
+
+	// Exploration constant of UCB1
+	private static final double EXPLORATION = Math.sqrt(2);
+
+	// Visits of a choice before it gets a node of its own, and the most choices a rollout makes in the tree
+	private static final int EXPAND_VISITS = 8;
+	private static final int MAX_DEPTH = 6;
+
+	// Turns a rollout plays before the game counts as lost
+	private static final int MAX_ROLLOUT_TURNS = 200;
+
+	// Guessing is not considered while the most likely solution is less likely than this
+	private static final double MIN_GUESS = 0.25;
+
+	// Moves assumed to a room the board search could not reach
+	private static final int FAR = 40;
+
+	// Rooms indexed like the room cards
+	private static final int FIRST_ROOM = Card.CONSERVATORY.ordinal();
+	private static final int ROOMS = Integer.bitCount(Card.ROOMS);
+
+	// Kinds of decision a search is for
+	private static final int ROLL = 0;
+	private static final int MOVE = 1;
+	private static final int SUGGESTION = 2;
+
+	private final GameRandom random;
+	private final ForkJoinPool pool;
+	private final long thinkNanos;
+
+	// Moves between every two rooms, worked out once for each board
+	private Board distanceBoard;
+	private int[][] roomDistance;
+	private Room[] rooms;
+
+	// Game being played and its turn at the last decision, to tell when a new game has started
+	private Controller game;
+	private int gameTurns;
+
+	// Cards each seat has revealed, shown again in preference to giving away new ones
+	private int[] revealed = new int[0];
+
+	// Room each seat is walking to plus one, 0 if none, kept until it arrives so it does not turn back and forth
+	private int[] heading = new int[0];
+
+	/**
+	 * Creates a bot thinking for up to 100 ms a decision on the common pool
+	 * @param random Source of the random choices this bot makes
+	 */
+	public MCTSBot(GameRandom random){
+		this(random, 100, TimeUnit.MILLISECONDS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a bot
+	 * @param random Source of the random choices this bot makes
+	 * @param thinkTime Most time spent on one decision, less if the Deadline comes first
+	 * @param unit Unit of the think time
+	 * @param pool Pool the rollouts run on
+	 */
+	public MCTSBot(GameRandom random, long thinkTime, TimeUnit unit, ForkJoinPool pool){
+		this.random = random;
+		this.thinkNanos = unit.toNanos(thinkTime);
+		this.pool = pool;
+	}
+
+	/**
+	 * Accuses when the KnowledgeBase is certain, or when the most likely solution beats the chance of winning by
+	 * playing on
+	 */
+	@Override
+	public int chooseAccusation(Controller controller, int seat, Deadline deadline){
+		KnowledgeBase knowledge = controller.getKnowledge(seat);
+		if( knowledge.isSolved() ) return knowledge.getEnvelope();
+
+		EnvelopeProbability probability = new EnvelopeProbability(pool).compute(knowledge);
+		int best = probability.getBestSolution();
+		double guess = probability.getSolutionProbability(best);
+		if( guess < MIN_GUESS ) return 0;
+
+		Search search = new Search(controller, seat, probability, ROLL, new int[]{ 0 });
+		search.run(deadline);
+		return guess > search.root.getValue(0) ? best : 0;
+	}
+
+	/**
+	 * Walks towards the room the search wins most often from, searching again once the piece is in a room or the room
+	 * it was heading for is ruled out
+	 */
+	@Override
+	public AMove_Node chooseMove(Controller controller, int seat, Deadline deadline){
+		Board board = controller.getBoard();
+		Piece piece = controller.getPlayers()[seat].getPiece();
+		prepare(board);
+
+		// Every other room that can be reached, only those that could be in the envelope until it is known
+		KnowledgeBase knowledge = controller.getKnowledge(seat);
+		int possible = (knowledge.getEnvelope() & Card.ROOMS) != 0 ? Card.ROOMS
+				: knowledge.getPossibleEnvelope() & Card.ROOMS;
+		int here = roomIndex(piece);
+		int[] distance = distances(board, piece, here);
+		int count = 0;
+		int[] targets = new int[ROOMS];
+		for( int pass = 0; pass < 2 && count == 0; pass++ ){
+			for( int room = 0; room < ROOMS; room++ ){
+				if( room == here || distance[room] == Reachability.UNREACHABLE ) continue;
+				if( pass == 0 && (possible & (1 << (FIRST_ROOM + room))) == 0 ) continue;
+				targets[count++] = room;
+			}
+		}
+		if( count == 0 ) return null;
+
+		// Keep walking to the room chosen when the piece left the last one, while it is still worth going to
+		track(controller);
+		if( here == -1 ){
+			for( int i = 0; i < count; i++ ){
+				if( targets[i] == heading[seat] - 1 ) return AutoPlayer.findPath(board, piece, rooms[targets[i]], random);
+			}
+		}
+
+		int[] actions = new int[count];
+		System.arraycopy(targets, 0, actions, 0, count);
+		EnvelopeProbability probability = new EnvelopeProbability(pool).compute(knowledge);
+		Search search = new Search(controller, seat, probability, MOVE, actions);
+		search.run(deadline);
+
+		int best = actions[search.root.getBest()];
+		heading[seat] = best + 1;
+		return AutoPlayer.findPath(board, piece, rooms[best], random);
+	}
+
+	/**
+	 * Suggests the character and weapon the search wins most often with
+	 */
+	@Override
+	public int chooseSuggestion(Controller controller, int seat, Deadline deadline){
+		prepare(controller.getBoard());
+		if( roomIndex(controller.getPlayers()[seat].getPiece()) == -1 ) return 0;
+
+		// Pairs of cards that could still be in the envelope
+		KnowledgeBase knowledge = controller.getKnowledge(seat);
+		int possible = knowledge.getPossibleEnvelope();
+		int characters = possible & Card.CHARACTERS;
+		int weapons = possible & Card.WEAPONS;
+		int[] actions = new int[Integer.bitCount(characters) * Integer.bitCount(weapons)];
+		int count = 0;
+		for( int c = characters; c != 0; c &= c - 1 ){
+			for( int w = weapons; w != 0; w &= w - 1 ){
+				actions[count++] = Integer.lowestOneBit(c) | Integer.lowestOneBit(w);
+			}
+		}
+
+		EnvelopeProbability probability = new EnvelopeProbability(pool).compute(knowledge);
+		Search search = new Search(controller, seat, probability, SUGGESTION, actions);
+		search.run(deadline);
+		return actions[search.root.getBest()];
+	}
+
+	/**
+	 * Shows a card that was revealed before if it can, so the others learn as little as possible
+	 */
+	@Override
+	public Card chooseCard(Controller controller, int seat, int cards, Deadline deadline){
+		track(controller);
+		int shown = revealed[seat] & cards;
+		Card card = randomCard(random, shown != 0 ? shown : cards);
+		revealed[seat] |= card.bit();
+		return card;
+	}
+
+	/**
+	 * Forgets the cards shown and the rooms headed for in the last game once the controller is playing a new one
+	 */
+	private void track(Controller controller){
+		int seats = controller.getPlayers().length;
+		if( controller != game || controller.getTurns() < gameTurns || revealed.length != seats ){
+			game = controller;
+			revealed = new int[seats];
+			heading = new int[seats];
+		}
+		gameTurns = controller.getTurns();
+	}
+
+	/**
+	 * Works out the moves between every two rooms of the board, once
+	 */
+	private void prepare(Board board){
+		if( board == distanceBoard ) return;
+
+		rooms = new Room[ROOMS];
+		for( Room room : board.getRooms() ){
+			Card card = Card.fromName(room.getName());
+			if( card != null ) rooms[card.ordinal() - FIRST_ROOM] = room;
+		}
+
+		Reachability reachability = new Reachability();
+		roomDistance = new int[ROOMS][];
+		for( int room = 0; room < ROOMS; room++ ){
+			if( rooms[room] == null || rooms[room].getSquares().isEmpty() ){
+				roomDistance[room] = new int[ROOMS];
+				Arrays.fill(roomDistance[room], Reachability.UNREACHABLE);
+				continue;
+			}
+			Point point = rooms[room].getSquares().get(0).getPosition();
+			reachability.compute(board, AStarEngine.toCell(point.x, point.y), Integer.MAX_VALUE);
+			roomDistance[room] = roomDistances(reachability);
+		}
+		distanceBoard = board;
+	}
+
+	/**
+	 * Returns the moves from the piece to every room
+	 */
+	private int[] distances(Board board, Piece piece, int room){
+		if( room != -1 ) return roomDistance[room];
+
+		Reachability reachability = new Reachability();
+		reachability.compute(board, piece, Integer.MAX_VALUE);
+		return roomDistances(reachability);
+	}
+
+	private int[] roomDistances(Reachability reachability){
+		int[] distance = new int[ROOMS];
+		for( int room = 0; room < ROOMS; room++ ){
+			distance[room] = rooms[room] == null ? Reachability.UNREACHABLE : reachability.getRoomDistance(rooms[room]);
+		}
+		return distance;
+	}
+
+	/**
+	 * Returns the index of the room the piece is in, -1 in the corridor
+	 */
+	private static int roomIndex(Piece piece){
+		if( !piece.isInRoom() ) return -1;
+		Card card = Card.fromName(piece.getRoom().getName());
+		return card == null ? -1 : card.ordinal() - FIRST_ROOM;
+	}
+
+	private static Card randomCard(GameRandom random, int cards){
+		return Card.get(randomBit(random, cards));
+	}
+
+	/**
+	 * Returns the ordinal of a random card in the mask
+	 */
+	private static int randomBit(GameRandom random, int cards){
+		int index = random.nextInt(Integer.bitCount(cards));
+		for( int i = 0; i < index; i++ ){
+			cards &= cards - 1;
+		}
+		return Integer.numberOfTrailingZeros(cards);
+	}
+
+	/**
+	 * The search of one decision: what the rollouts start from and the statistics of every choice
+	 */
+	private class Search {
+
+		final int players;
+		final int seat;
+		final int kind;
+		final int[] actions;
+		final EnvelopeProbability probability;
+
+		// Cards the seat knows are not in the envelope
+		final int known;
+
+		// Room of every seat, -1 in the corridor, and the moves from where they are to every room
+		final int[] room;
+		final int[][] distance;
+		final boolean[] eliminated;
+
+		// Moves left for this turn, for a move decision
+		final int roll;
+
+		// Cards every other player is guessed to have seen so far, about one for each turn they had
+		final int seen;
+
+		// Statistics of the choices of the decision, and the tree below them
+		final Node root;
+
+		Search(Controller controller, int seat, EnvelopeProbability probability, int kind, int[] actions){
+			Player[] seats = controller.getPlayers();
+			Board board = controller.getBoard();
+			prepare(board);
+
+			this.players = seats.length;
+			this.seat = seat;
+			this.kind = kind;
+			this.actions = actions;
+			this.probability = probability;
+			this.roll = controller.getMovesRemaining();
+			this.seen = controller.getTurns() / players;
+
+			KnowledgeBase knowledge = controller.getKnowledge(seat);
+			this.known = knowledge.getHasNot(knowledge.getEnvelopeIndex());
+
+			room = new int[players];
+			distance = new int[players][];
+			eliminated = new boolean[players];
+			for( int p = 0; p < players; p++ ){
+				eliminated[p] = seats[p] == null || controller.isEliminated(p);
+				if( seats[p] == null ) continue;
+
+				Piece piece = seats[p].getPiece();
+				room[p] = roomIndex(piece);
+				distance[p] = distances(board, piece, room[p]);
+			}
+
+			root = new Node(actions.length);
+		}
+
+		/**
+		 * Plays rollouts on every worker of the pool until the time is up
+		 */
+		void run(Deadline deadline){
+			long budget = Math.min(thinkNanos, deadline.getRemainingNanos() - deadline.getRemainingNanos() / 4);
+			long end = System.nanoTime() + budget;
+			pool.invoke(new Worker(this, random.split(), deadline, end, pool.getParallelism() - 1));
+		}
+
+	}
+
+	/**
+	 * Statistics of the choices made at one point of the search, and the nodes below them once they have been
+	 * visited often enough
+	 */
+	private static class Node {
+
+		// Rollouts played and won from every choice
+		final AtomicLongArray visits;
+		final AtomicLongArray wins;
+		final AtomicLong total = new AtomicLong();
+
+		// Node of every choice, null until the choice has been visited EXPAND_VISITS times
+		final AtomicReferenceArray<Node> children;
+
+		Node(int choices){
+			visits = new AtomicLongArray(choices);
+			wins = new AtomicLongArray(choices);
+			children = new AtomicReferenceArray<Node>(choices);
+		}
+
+		/**
+		 * Picks the choice to play out next with UCB1 and counts the visit straight away
+		 * @param skip Choice that can not be made, -1 if there is none
+		 */
+		int select(GameRandom random, int skip){
+			double log = Math.log(total.incrementAndGet());
+			int choices = visits.length();
+			int best = -1;
+			double bestValue = 0;
+
+			// Start from a random choice so the ones not played yet are tried in a random order
+			int start = random.nextInt(choices);
+			for( int j = 0; j < choices; j++ ){
+				int i = (start + j) % choices;
+				if( i == skip ) continue;
+
+				long visited = visits.get(i);
+				double value = visited == 0 ? Double.MAX_VALUE
+						: wins.get(i) / (double)visited + EXPLORATION * Math.sqrt(log / visited);
+				if( best == -1 || value > bestValue ){
+					best = i;
+					bestValue = value;
+				}
+			}
+			visits.incrementAndGet(best);
+			return best;
+		}
+
+		/**
+		 * Returns the node below the choice, adding it once the choice has been visited often enough
+		 * @return The node, null while the choice is still a leaf
+		 */
+		Node child(int choice){
+			Node child = children.get(choice);
+			if( child == null && visits.get(choice) >= EXPAND_VISITS ){
+
+				// Another worker may have added it first, use theirs
+				children.compareAndSet(choice, null, new Node(ROOMS));
+				child = children.get(choice);
+			}
+			return child;
+		}
+
+		void update(int choice, boolean won){
+			if( won ) wins.incrementAndGet(choice);
+		}
+
+		/**
+		 * Returns the choice visited most, the better one on a tie
+		 */
+		int getBest(){
+			int best = 0;
+			for( int i = 1; i < visits.length(); i++ ){
+				long visited = visits.get(i);
+				if( visited > visits.get(best) || visited == visits.get(best) && getValue(i) > getValue(best) ) best = i;
+			}
+			return best;
+		}
+
+		/**
+		 * Returns the share of the rollouts won from the choice
+		 */
+		double getValue(int choice){
+			long visited = visits.get(choice);
+			return visited == 0 ? 0 : wins.get(choice) / (double)visited;
+		}
+	}
+
+	/**
+	 * Plays rollouts of one search, forking the rest of the workers before it starts
+	 */
+	private class Worker extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final GameRandom random;
+		private final Deadline deadline;
+		private final long end;
+		private final int others;
+
+		Worker(Search search, GameRandom random, Deadline deadline, long end, int others){
+			this.search = search;
+			this.random = random;
+			this.deadline = deadline;
+			this.end = end;
+			this.others = others;
+		}
+
+		@Override
+		protected void compute(){
+			Worker other = null;
+			if( others > 0 ){
+				other = new Worker(search, random.split(), deadline, end, others - 1);
+				other.fork();
+			}
+
+			EnvelopeProbability.Sampler sampler = search.probability.newSampler();
+			Rollout rollout = new Rollout(search, random);
+			do{
+				if( sampler.sample(random, rollout.hands) == 0 ) break;
+				rollout.backUp(rollout.play());
+			} while( System.nanoTime() - end < 0 && !deadline.isExpired() );
+
+			if( other != null ) other.join();
+		}
+	}
+
+	/**
+	 * Fast model of the rest of a game from one drawn deal.
+	 * A piece walks towards the closest room whose card its player has not seen and suggests unseen cards once it
+	 * arrives, the first player round the table holding one of them shows one at random. A player accuses once only
+	 * one card of each type is left, which is always right since everything they know comes from the deal.
+	 * The seat of the search makes its choices down the tree instead while there is a node to make them at.
+	 */
+	private class Rollout {
+
+		final int[] hands;
+
+		private final Search search;
+		private final GameRandom random;
+
+		// Cards every player knows are not in the envelope
+		private final int[] known;
+
+		// Room every piece is in, -1 on the way, the room it is walking to and the moves left to get there
+		private final int[] room;
+		private final int[] target;
+		private final int[] remaining;
+
+		// Moves from where every piece last stopped to every room
+		private final int[][] distance;
+
+		private final boolean[] eliminated;
+
+		// Nodes the seat made a choice at on the way down and the choice made at each
+		private final Node[] path = new Node[MAX_DEPTH];
+		private final int[] choices = new int[MAX_DEPTH];
+		private int depth;
+
+		// Node the next choice of the seat is made at, null once below the tree
+		private Node node;
+
+		Rollout(Search search, GameRandom random){
+			this.search = search;
+			this.random = random;
+			hands = new int[search.players];
+			known = new int[search.players];
+			room = new int[search.players];
+			target = new int[search.players];
+			remaining = new int[search.players];
+			distance = new int[search.players][];
+			eliminated = new boolean[search.players];
+		}
+
+		/**
+		 * Picks a choice of the decision down the tree and plays the game out after it
+		 * @return True if the seat of the search wins
+		 */
+		boolean play(){
+			depth = 0;
+			node = search.root;
+			int action = search.actions[choose(-1)];
+
+			int seat = search.seat;
+			for( int p = 0; p < search.players; p++ ){
+				known[p] = p == seat ? search.known : seen(p);
+				room[p] = search.room[p];
+				target[p] = -1;
+				distance[p] = search.distance[p];
+				eliminated[p] = search.eliminated[p];
+			}
+
+			switch( search.kind ){
+			case MOVE:
+				target[seat] = action;
+				remaining[seat] = distance(seat, action);
+				walk(seat, search.roll);
+				break;
+			case SUGGESTION:
+				suggest(seat, action | Card.get(FIRST_ROOM + room[seat]).bit());
+				break;
+			default:
+				walk(seat, random.nextInt(12) + 1);
+			}
+
+			int player = seat;
+			for( int turn = 0; turn < MAX_ROLLOUT_TURNS; turn++ ){
+				player = (player + 1) % search.players;
+				if( eliminated[player] ) continue;
+
+				int possible = Card.ALL & ~known[player];
+				if( Integer.bitCount(possible & Card.CHARACTERS) == 1 && Integer.bitCount(possible & Card.WEAPONS) == 1
+						&& Integer.bitCount(possible & Card.ROOMS) == 1 ){
+					return player == seat;
+				}
+
+				if( target[player] == -1 ) pickTarget(player);
+				walk(player, random.nextInt(12) + 1);
+			}
+			return false;
+		}
+
+		/**
+		 * Adds the result of the rollout to every choice it made
+		 */
+		void backUp(boolean won){
+			for( int i = 0; i < depth; i++ ){
+				path[i].update(choices[i], won);
+			}
+		}
+
+		/**
+		 * Makes the next choice of the seat at the node it has got to, and moves down to the node of the choice
+		 * @param skip Choice that can not be made, -1 if there is none
+		 */
+		private int choose(int skip){
+			int choice = node.select(random, skip);
+			path[depth] = node;
+			choices[depth++] = choice;
+			node = depth < MAX_DEPTH ? node.child(choice) : null;
+			return choice;
+		}
+
+		/**
+		 * Guesses what another player knows from the drawn deal: their hand and a few of the cards of the others
+		 */
+		private int seen(int player){
+			int others = 0;
+			for( int p = 0; p < search.players; p++ ){
+				if( p != player ) others |= hands[p];
+			}
+
+			int known = hands[player];
+			for( int i = 0; i < search.seen && others != 0; i++ ){
+				int card = 1 << randomBit(random, others);
+				known |= card;
+				others &= ~card;
+			}
+			return known;
+		}
+
+		/**
+		 * Heads for the closest room with an unseen card, or the closest other room if they have all been seen
+		 */
+		private void pickTarget(int player){
+			if( player == search.seat && node != null ){
+				int r = choose(room[player]);
+				target[player] = r;
+				remaining[player] = distance(player, r);
+				return;
+			}
+
+			int unseen = ~known[player] >>> FIRST_ROOM;
+			int best = -1;
+			boolean bestUnseen = false;
+			for( int r = 0; r < ROOMS; r++ ){
+				if( r == room[player] ) continue;
+
+				boolean isUnseen = (unseen & (1 << r)) != 0;
+				if( best == -1 || isUnseen && !bestUnseen
+						|| isUnseen == bestUnseen && distance(player, r) < distance(player, best) ){
+					best = r;
+					bestUnseen = isUnseen;
+				}
+			}
+			target[player] = best;
+			remaining[player] = distance(player, best);
+		}
+
+		private int distance(int player, int r){
+			int moves = distance[player][r];
+			return moves == Reachability.UNREACHABLE ? FAR : moves;
+		}
+
+		/**
+		 * Moves towards the target, suggesting on arrival
+		 */
+		private void walk(int player, int moves){
+			if( target[player] == -1 ) pickTarget(player);
+
+			remaining[player] -= moves;
+			if( remaining[player] > 0 ){
+				room[player] = -1;
+				return;
+			}
+
+			int r = target[player];
+			room[player] = r;
+			target[player] = -1;
+			distance[player] = roomDistance[r];
+
+			int possible = Card.ALL & ~known[player];
+			suggest(player, (1 << randomBit(random, possible & Card.CHARACTERS))
+					| (1 << randomBit(random, possible & Card.WEAPONS)) | (1 << (FIRST_ROOM + r)));
+		}
+
+		/**
+		 * Goes round the table until someone shows a card, if nobody can the unseen cards are in the envelope
+		 */
+		private void suggest(int player, int cards){
+			for( int p = (player + 1) % search.players; p != player; p = (p + 1) % search.players ){
+				int held = hands[p] & cards;
+				if( held != 0 ){
+					known[player] |= 1 << randomBit(random, held);
+					return;
+				}
+			}
+
+			int[] types = { Card.CHARACTERS, Card.WEAPONS, Card.ROOMS };
+			for( int type : types ){
+				int card = cards & type;
+				if( (known[player] & card) == 0 ) known[player] |= type & ~card;
+			}
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package cluedo;
 
+import java.util.concurrent.TimeUnit;
+
+import metrics.Metrics;
 import ui.BoardFrame;
 
 public class Main {
@@ -11,6 +14,13 @@ public class Main {
 
 		BoardFrame frame = new BoardFrame();
 
+		// Measurements are always in JMX, and printed every so many seconds with -Dcluedo.metrics.dump=seconds
+		Metrics.exportJmx();
+		int dump = Integer.getInteger("cluedo.metrics.dump", 0);
+		if( dump > 0 ){
+			Metrics.startDump(dump, TimeUnit.SECONDS, System.out);
+		}
+
 		while( true ){
 
 			frame.getController().tick();
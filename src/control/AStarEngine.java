@@ -0,0 +1,262 @@
+package control;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+import metrics.Counter;
+import metrics.Metrics;
+import ui.Board;
+
+/**
+ * Primitive A* search behind AStar.getPath.
+ *
+ * Squares are addressed by packed cell ids (y*BOARD_WIDTH+x). The score, parent and heap arrays are kept
+ * between searches, so a search allocates nothing until the finished path is turned into AMove_Node objects.
+ * The heap follows the same sift rules as java.util.PriorityQueue and the nodes are compared exactly like
+ * AMove_Node.compareTo, so ties are broken the same way and the same path is returned.
+ *
+ * An engine is not thread safe, AStar keeps one per thread.
+ */
+public class AStarEngine {
+
+	private static final int CELLS = Board.BOARD_WIDTH * Board.BOARD_HEIGHT;
+
+	// Searches from a square that can not be left, counted instead of printed as they run on many threads
+	private static final Counter NO_CONNECTIONS = Metrics.counter("astar.noConnections");
+
+	// Every cell is expanded at most once and pushes at most 4 neighbours, plus the first entry
+	private static final int MAX_ENTRIES = CELLS * 4 + 1;
+
+	// Per cell state, only valid when the cells stamp matches the current search
+	private final int[] closed = new int[CELLS];
+	private final int[] parent = new int[CELLS];
+	private final int[] length = new int[CELLS];
+	private final double[] estimate = new double[CELLS];
+	private final int[] estimated = new int[CELLS];
+
+	// Binary heap of fringe entries held in parallel arrays
+	private final int[] heapCell = new int[MAX_ENTRIES];
+	private final int[] heapParent = new int[MAX_ENTRIES];
+	private final int[] heapLength = new int[MAX_ENTRIES];
+	private final double[] heapTotal = new double[MAX_ENTRIES];
+	private int heapSize;
+
+	// Cells of the path found, from the first move to the end
+	private final int[] pathCells = new int[CELLS];
+
+	// Search counter used to invalidate the per cell state without clearing it
+	private int stamp = 0;
+
+	// Cells expanded by the last search
+	private int expanded;
+
+	// Target of the current search, used by the heuristic
+	private int targetX;
+	private int targetY;
+
+	/**
+	 * Finds the shortest path between the two positions.
+	 * Behaves like the original AStar.getPath: the search runs from the end point back to the start point and
+	 * the returned list starts at the square after the start and finishes on the end square.
+	 * @param start Position the piece is moving from
+	 * @param end Position the piece wants to reach
+	 * @param board Board to search
+	 * @return Linked list of moves, or null if the end can not be reached
+	 */
+	public AMove_Node getPath(Point start, Point end, Board board) {
+		if (start == null || end == null) return null;
+
+		int target = toCell(start.x, start.y);
+		int source = toCell(end.x, end.y);
+
+		// Room we are allowed to walk into, same as the original exception square
+		int roomMask = board.getRoomMask(board.getSquareAt(start.x, start.y));
+
+		// Make sure we can leave this point at least
+		if (!hasNeighbour(board, target, roomMask)) {
+			NO_CONNECTIONS.increment();
+			return null;
+		}
+
+		nextStamp();
+		expanded = 0;
+		targetX = start.x;
+		targetY = start.y;
+		heapSize = 0;
+		push(source, -1, 0);
+
+		boolean found = false;
+		int foundParent = -1;
+
+		while (heapSize > 0) {
+
+			// Take the highest priority entry off the fringe
+			int cell = heapCell[0];
+			int from = heapParent[0];
+			int cost = heapLength[0];
+			pop();
+
+			// Already expanded through a shorter entry
+			if (closed[cell] == stamp) continue;
+
+			if (cell == target) {
+				found = true;
+				foundParent = from;
+				break;
+			}
+
+			closed[cell] = stamp;
+			parent[cell] = from;
+			length[cell] = cost;
+			expanded++;
+
+			// Squares holding a piece can not be walked through
+			if (!board.getSquareAt(cell % Board.BOARD_WIDTH, cell / Board.BOARD_WIDTH).canContainPiece()) continue;
+
+			// Neighbour table keeps the order of Board.getAdjacentSquares
+			int[] next = board.getNeighbours(cell);
+			int[] rooms = board.getNeighbourRooms(cell);
+			for (int i = 0; i < next.length; i++) {
+				if (closed[next[i]] != stamp && Board.canEnter(rooms[i], roomMask)) {
+					push(next[i], cell, cost + 1);
+				}
+			}
+		}
+
+		// We didn't find the end point, or we are already standing on it
+		if (!found || foundParent == -1) {
+			return null;
+		}
+
+		return buildPath(foundParent);
+	}
+
+	/**
+	 * Returns how many squares the last search expanded
+	 * @return Number of squares, 0 if it never started
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Turns the parent chain starting at the given cell into AMove_Nodes.
+	 * @param first Cell the path starts from
+	 * @return Linked list ending at the cell the search started on
+	 */
+	private AMove_Node buildPath(int first) {
+		int size = 0;
+		for (int cell = first; cell != -1; cell = parent[cell]) {
+			pathCells[size++] = cell;
+		}
+
+		// Build from the end so each node can link to the next one
+		AMove_Node node = null;
+		for (int i = size - 1; i >= 0; i--) {
+			int cell = pathCells[i];
+			node = new AMove_Node(new Point(cell % Board.BOARD_WIDTH, cell / Board.BOARD_WIDTH), length[cell],
+					estimate(cell), node);
+		}
+		return node;
+	}
+
+	/**
+	 * Checks if any move can be made out of the given cell.
+	 */
+	private boolean hasNeighbour(Board board, int cell, int roomMask) {
+		int[] rooms = board.getNeighbourRooms(cell);
+		for (int i = 0; i < rooms.length; i++) {
+			if (Board.canEnter(rooms[i], roomMask)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the estimate from the cell to the target, cached for the current search
+	 * Same as the original Point.distance + 1 estimate.
+	 */
+	private double estimate(int cell) {
+		if (estimated[cell] != stamp) {
+			double dx = cell % Board.BOARD_WIDTH - targetX;
+			double dy = cell / Board.BOARD_WIDTH - targetY;
+			estimate[cell] = Math.sqrt(dx * dx + dy * dy) + 1;
+			estimated[cell] = stamp;
+		}
+		return estimate[cell];
+	}
+
+	private void nextStamp() {
+		stamp++;
+
+		// Stamp wrapped around, old values could match again
+		if (stamp == 0) {
+			Arrays.fill(closed, 0);
+			Arrays.fill(estimated, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Same ordering as AMove_Node.compareTo
+	 */
+	private int compare(double totalA, int lengthA, double totalB, int lengthB) {
+		int value = (int) Math.signum(totalA - totalB);
+		if (value == 0) {
+			return lengthA - lengthB;
+		}
+		return value;
+	}
+
+	private void push(int cell, int from, int cost) {
+		double total = cost + estimate(cell);
+
+		// Sift up
+		int k = heapSize++;
+		while (k > 0) {
+			int up = (k - 1) >>> 1;
+			if (compare(total, cost, heapTotal[up], heapLength[up]) >= 0) break;
+			set(k, heapCell[up], heapParent[up], heapLength[up], heapTotal[up]);
+			k = up;
+		}
+		set(k, cell, from, cost, total);
+	}
+
+	private void pop() {
+		int n = --heapSize;
+		if (n == 0) return;
+
+		// Move the last entry to the top and sift it down
+		int cell = heapCell[n];
+		int from = heapParent[n];
+		int cost = heapLength[n];
+		double total = heapTotal[n];
+
+		int k = 0;
+		int half = n >>> 1;
+		while (k < half) {
+			int child = (k << 1) + 1;
+			int right = child + 1;
+			if (right < n && compare(heapTotal[child], heapLength[child], heapTotal[right], heapLength[right]) > 0) {
+				child = right;
+			}
+			if (compare(total, cost, heapTotal[child], heapLength[child]) <= 0) break;
+			set(k, heapCell[child], heapParent[child], heapLength[child], heapTotal[child]);
+			k = child;
+		}
+		set(k, cell, from, cost, total);
+	}
+
+	private void set(int index, int cell, int from, int cost, double total) {
+		heapCell[index] = cell;
+		heapParent[index] = from;
+		heapLength[index] = cost;
+		heapTotal[index] = total;
+	}
+
+	/**
+	 * Packs board coordinates into a cell id
+	 */
+	public static int toCell(int x, int y) {
+		return y * Board.BOARD_WIDTH + x;
+	}
+}
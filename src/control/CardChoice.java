@@ -0,0 +1,24 @@
+package control;
+
+import game.Card;
+
+/**
+ * Decides which card a player reveals when they can disprove a suggestion with more than one of their cards.
+ * Automated players and headless games plug their own policy into Controller.resolveSuggestion.
+ *
+ */
+public interface CardChoice {
+
+	/**
+	 * Picks the card to reveal
+	 *
+	 * @param controller
+	 *            Controller of the game
+	 * @param seat
+	 *            Index in getPlayers() of the player revealing the card
+	 * @param cards
+	 *            Mask of the suggested cards the player holds, never 0
+	 * @return One of the cards in the mask
+	 */
+	Card choose(Controller controller, int seat, int cards);
+}
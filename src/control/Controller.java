@@ -1,5 +1,8 @@
 package control;
 
+import ai.KnowledgeBase;
+import game.Card;
+import game.GameRandom;
 import game.InvalidMoveException;
 import game.Item;
 import game.Piece;
@@ -8,12 +11,23 @@ import game.Room;
 import game.Weapon;
 
 import java.awt.Point;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Random;
-
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
 import ui.Board;
-import ui.BoardPanel;
 import ui.Square;
 
 /**
@@ -27,49 +41,64 @@ import ui.Square;
  */
 public class Controller {
 
-	// Static array of all the cards in the game
-	private static final ArrayList<String> CHARACTER_CARDS = new ArrayList<String>() {
-		{
-
-			// Characters
-			add("Colonel Mustard");
+	/**
+	 * Reveals the first of the eligible cards
+	 */
+	public static final CardChoice FIRST_CARD = new CardChoice() {
 
-			add("Professor Plum");
-			add("Mrs. White");
-			add("The Reverend Green");
-			add("Miss Scarlett");
-			add("Mrs. Peacock");
+		@Override
+		public Card choose(Controller controller, int seat, int cards) {
+			return Card.first(cards);
 		}
 	};
 
-	private static final ArrayList<String> WEAPON_CARDS = new ArrayList<String>() {
-		{
+	/**
+	 * Reveals one of the eligible cards using the random source of the game
+	 */
+	public static final CardChoice RANDOM_CARD = new CardChoice() {
 
-			// Weapons
-			add("Lead Pipe");
-			add("Rope");
-			add("Wrench");
-			add("Revolver");
-			add("Dagger");
-			add("CandleStick");
+		@Override
+		public Card choose(Controller controller, int seat, int cards) {
+			int index = controller.getRandom().nextInt(Integer.bitCount(cards));
+			for (int i = 0; i < index; i++) {
+				cards &= cards - 1;
+			}
+			return Card.first(cards);
 		}
 	};
 
-	private static final ArrayList<String> ROOM_CARDS = new ArrayList<String>() {
-		{
+	// Measured when metrics are enabled
+	private static final Histogram TICK_TIME = Metrics.histogram(
+			"controller.tick", "ns");
+	private static final Histogram SUGGESTION_TIME = Metrics.histogram(
+			"controller.suggestion", "ns");
+	private static final Counter GAMES = Metrics.counter("games.finished");
+
+	// Time a decision that ran out of budget is given to return once it has
+	// been cancelled
+	private static final long CANCEL_GRACE_MILLIS = 100;
+
+	// Runs the decisions of every game that has no executor of its own. Daemon
+	// platform threads, so a strategy that never returns neither holds up
+	// the game nor keeps the process alive
+	private static final ExecutorService DECISIONS = Executors
+			.newCachedThreadPool(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "strategy-decision");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
 
-			// Rooms
-			add("Conservatory");
-			add("Kitchen");
-			add("Hall");
-			add("Dining Room");
-			add("Lounge");
-			add("Billiard Room");
-			add("Library");
-			add("Study");
-			add("Ball Room");
-		}
-	};
+	// Names of all the cards in the game, in the order of the Card enum
+	private static final List<String> CHARACTER_CARDS = Collections
+			.unmodifiableList(Card.names(Card.CHARACTERS));
+	private static final List<String> WEAPON_CARDS = Collections
+			.unmodifiableList(Card.names(Card.WEAPONS));
+	private static final List<String> ROOM_CARDS = Collections
+			.unmodifiableList(Card.names(Card.ROOMS));
 
 	// Players in the game
 	private Player[] players; // The players that are in the game linked to
@@ -79,7 +108,7 @@ public class Controller {
 
 	// Status of the Controller to determine which actions it should perform
 	// next
-	private Status status;
+	private Status status = Status.ROLLING_DICE;
 
 	public static enum Status {
 		ROLLING_DICE, // Waiting for the player to roll the dice
@@ -98,8 +127,26 @@ public class Controller {
 	// The move we want to perform on the next tick
 	private AMove_Node currentMove;
 
+	// Distances from the current player to every square, computed when the dice is rolled
+	private final Reachability reachability = new Reachability();
+
+	// Set when a roll was played back without computing the distances, they
+	// are computed when next asked for
+	private boolean reachabilityStale = false;
+
 	private Board board; // Server Board that all players should be see
-	private BoardPanel panel;
+
+	// Random source of the game, shared with the board so one seed
+	// reproduces the deal, the dice and where everything is placed
+	private GameRandom random = new GameRandom();
+
+	// Told every time the board or the game changes, the Controller itself
+	// never draws anything
+	private final List<GameListener> listeners = new ArrayList<GameListener>();
+
+	// Told about every change to the state of the game, null when the game is
+	// not being recorded
+	private GameRecorder recorder = null;
 
 	// Details about the current player
 	private int currentPlayer; // Current player that should be playing
@@ -111,22 +158,48 @@ public class Controller {
 									// their turn
 
 	// The Murderer Details
-	private String murdererCharacter;
-	private String murdererWeapon;
-	private String murdererRoom;
+	private int solution; // Mask of the three murderer cards
 
 	// The Accusation and Suggested Details
 	// Difference determined by the status of the controller
-	private String suggestedCharacter;
-	private String suggestedWeapon;
+	private int suggestion; // Mask of the three cards suggested or accused
+	private Card revealed; // Card shown to the suggester, null if none yet
+
+	// Cards left to deal, kept between deals so dealing allocates nothing
+	private final int[] deck = new int[Card.COUNT];
+
+	// Seat of the player holding each card, -1 for the murderer cards.
+	// Indexed by Card ordinal and rebuilt every time the cards are dealt
+	private final int[] cardOwner = new int[Card.COUNT];
+
+	// What each player knows about the cards, indexed by seat
+	private KnowledgeBase[] knowledge = new KnowledgeBase[0];
+
+	// Number of cards in each hand, reused between deals
+	private int[] handSizes = new int[0];
+
+	// Decides which card is revealed when a suggestion is resolved
+	private CardChoice cardChoice = RANDOM_CARD;
+
+	// Strategies playing the seats, null for seats played through the GUI
+	private Strategy[] strategies = new Strategy[0];
+
+	// Time each strategy decision may take and where the decisions run
+	private long decisionBudget = TimeUnit.SECONDS.toNanos(1);
+	private ExecutorService decisionExecutor = DECISIONS;
+
+	// Room the current player was in when they rolled the dice, they can only
+	// suggest after entering another room
+	private Room turnStartRoom;
 
-	private String suggestedRoom;
+	// Number of turns finished since the game started
+	private int turns = 0;
 
 	// The player that is in rotation when making a suggestion.
 	private int rotatingPlayer = 0;
 
 	/**
-	 * Sets up the controller new controller without a board or panel
+	 * Sets up the controller new controller without a board or listeners
 	 */
 	public Controller() {
 		reset();
@@ -138,7 +211,32 @@ public class Controller {
 	public void reset() {
 		eliminatedPlayers = null; // Boolean representing if the player is
 									// eliminated or not
+		resetTurns();
 
+		// Nothing to set up until we have a board and players
+		if (board != null && players != null) {
+			board.setUp(players);
+			fireBoardChanged();
+		}
+	}
+
+	/**
+	 * Starts a new game between the same players on the same board, without
+	 * setting the board up again. The pieces and weapons stay where they are
+	 * until they are placed, used when playing back logs one after another.
+	 */
+	public void restart() {
+		eliminatedPlayers = new boolean[players.length];
+		resetTurns();
+		reachability.clear();
+		reachabilityStale = false;
+	}
+
+	/**
+	 * Puts the turn, the envelope and the suggestion back to the start of a
+	 * game
+	 */
+	private void resetTurns() {
 		// Status of the Controller to determine which actions it should perform
 		// next
 		status = Status.ROLLING_DICE;
@@ -149,27 +247,34 @@ public class Controller {
 							// over
 		hasSuggested = false; // boolean to make sure the player can't suggest
 								// then accuse before finishing their turn
+		turnStartRoom = null;
+		turns = 0;
 
 		// The Murderer Details
-		murdererCharacter = null;
-		murdererWeapon = null;
-		murdererRoom = null;
+		solution = 0;
 
 		// The Accusation and Suggested Details
 		// Difference determined by the status of the controller
-		suggestedCharacter = null;
-		suggestedWeapon = null;
-		suggestedRoom = null;
-		board.setUp(players);
-		panel.repaint();
+		suggestion = 0;
+		revealed = null;
 	}
 
 	/**
-	 * Sets up the controller using the given board and panel
+	 * Sets up the controller using the given board
 	 */
-	public Controller(Board board, BoardPanel panel) {
-		this.board = board;
-		this.panel = panel;
+	public Controller(Board board) {
+		setBoard(board);
+	}
+
+	/**
+	 * Sets up the controller using the given board and a listener to tell about
+	 * any changes, such as the BoardPanel drawing the game
+	 */
+	public Controller(Board board, GameListener listener) {
+		setBoard(board);
+		if (listener != null) {
+			addListener(listener);
+		}
 	}
 
 	/**
@@ -181,50 +286,44 @@ public class Controller {
 			throw new RuntimeException("Players needs to be set up!");
 		}
 
-		// Create a new deck so we can have
-		ArrayList<String> newDeck = new ArrayList<String>();
+		// Take 3 cards out for the murderer, one of each type
+		solution = pick(Card.CHARACTERS) | pick(Card.WEAPONS)
+				| pick(Card.ROOMS);
 
-		// Add Character Cards
-		for (String card : CHARACTER_CARDS) {
-			newDeck.add(card);
+		// Put the rest of the cards in the deck
+		int size = 0;
+		for (int card = 0; card < Card.COUNT; card++) {
+			if ((solution & (1 << card)) == 0) {
+				deck[size++] = card;
+			}
 		}
 
-		// Add Weapon Cards
-		for (String card : WEAPON_CARDS) {
-			newDeck.add(card);
+		// Shuffle the deck so they are not in order
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int card = deck[i];
+			deck[i] = deck[j];
+			deck[j] = card;
 		}
 
-		// Add Room Cards
-		for (String card : ROOM_CARDS) {
-			newDeck.add(card);
+		// Start every player with an empty hand
+		for (Player player : players) {
+			if (player != null) {
+				player.setHand(0);
+			}
 		}
 
-		// Take 3 cards out for the murderer
-		setMurdererCharacter(CHARACTER_CARDS.get(new Random()
-				.nextInt(CHARACTER_CARDS.size())));
-		newDeck.remove(getMurdererCharacter());
-
-		setMurdererWeapon(WEAPON_CARDS.get(new Random().nextInt(WEAPON_CARDS
-				.size())));
-		newDeck.remove(getMurdererWeapon());
-
-		setMurdererRoom(ROOM_CARDS.get(new Random().nextInt(ROOM_CARDS.size())));
-		newDeck.remove(getMurdererRoom());
-
-		// Shuffle the deck so they are not in order
-		Collections.shuffle(newDeck);
-
 		int playerDealt = 0;
 
 		// Deal cards to the players
-		while (!newDeck.isEmpty()) {
+		while (size > 0) {
 
 			// Only deal to a player that's playing
 			if (players[playerDealt] != null) {
 
-				// Remove a random card from the deck and give it to the player
-				String card = newDeck.remove(newDeck.size() - 1);
-				players[playerDealt].addCard(card);
+				// Take the top card of the deck and give it to the player
+				Player player = players[playerDealt];
+				player.setHand(player.getHand() | (1 << deck[--size]));
 			}
 
 			playerDealt++;
@@ -232,6 +331,176 @@ public class Controller {
 				playerDealt = 0;
 		}
 
+		indexHands();
+		resetKnowledge();
+
+		if (recorder != null) {
+			recorder.dealt(this);
+		}
+	}
+
+	/**
+	 * Hands out a deal that is already known instead of shuffling, used when
+	 * playing back or loading a game
+	 *
+	 * @param solution
+	 *            Mask of the murderer cards
+	 * @param hands
+	 *            Mask of the cards of every seat
+	 */
+	public void setDeal(int solution, int[] hands) {
+		this.solution = solution;
+		for (int seat = 0; seat < players.length; seat++) {
+			if (players[seat] != null) {
+				players[seat].setHand(hands[seat]);
+			}
+		}
+
+		indexHands();
+		resetKnowledge();
+	}
+
+	/**
+	 * Writes the turn, the cards and what every player knows to the buffer,
+	 * for a snapshot of the game. The board and the random source are saved
+	 * separately.
+	 *
+	 * A path being walked is not saved, a game saved while MOVING is read
+	 * back SELECTING_MOVE with the moves that were left.
+	 *
+	 * @param buffer
+	 *            Buffer to write to
+	 */
+	public void writeState(ByteBuffer buffer) {
+		buffer.put((byte) (status == Status.MOVING ? Status.SELECTING_MOVE
+				: status).ordinal());
+		buffer.put((byte) currentPlayer);
+		buffer.put((byte) rotatingPlayer);
+		buffer.put((byte) diceRoll);
+		buffer.put((byte) movesRemaining);
+		buffer.put((byte) (hasSuggested ? 1 : 0));
+		buffer.put((byte) (turnStartRoom == null ? -1 : board.getRooms()
+				.indexOf(turnStartRoom)));
+		buffer.putInt(turns);
+		buffer.putInt(solution);
+		buffer.putInt(suggestion);
+		buffer.put((byte) (revealed == null ? -1 : revealed.ordinal()));
+
+		for (int seat = 0; seat < players.length; seat++) {
+			buffer.putInt(players[seat].getHand());
+			buffer.put((byte) (eliminatedPlayers[seat] ? 1 : 0));
+		}
+
+		buffer.put((byte) (knowledge.length == players.length ? 1 : 0));
+		if (knowledge.length == players.length) {
+			for (KnowledgeBase known : knowledge) {
+				known.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Reads back what was written by writeState, into a game with the same
+	 * players whose board has been set up
+	 *
+	 * @param buffer
+	 *            Buffer to read from
+	 */
+	public void readState(ByteBuffer buffer) {
+		status = Status.values()[buffer.get()];
+		currentPlayer = buffer.get();
+		rotatingPlayer = buffer.get();
+		diceRoll = buffer.get();
+		movesRemaining = buffer.get();
+		hasSuggested = buffer.get() != 0;
+		int room = buffer.get();
+		turnStartRoom = room == -1 ? null : board.getRooms().get(room);
+		turns = buffer.getInt();
+		solution = buffer.getInt();
+		suggestion = buffer.getInt();
+		int shown = buffer.get();
+		revealed = shown == -1 ? null : Card.get(shown);
+		currentMove = null;
+
+		for (int seat = 0; seat < players.length; seat++) {
+			players[seat].setHand(buffer.getInt());
+			eliminatedPlayers[seat] = buffer.get() != 0;
+		}
+		indexHands();
+
+		if (buffer.get() != 0) {
+			if (knowledge.length != players.length) {
+				resetKnowledge();
+			}
+			for (KnowledgeBase known : knowledge) {
+				known.read(buffer);
+			}
+		}
+
+		if (status == Status.SELECTING_MOVE) {
+			updateReachability();
+		} else {
+			reachability.clear();
+			reachabilityStale = false;
+		}
+		fireBoardChanged();
+	}
+
+	/**
+	 * Starts the knowledge of every player from the cards they were dealt
+	 */
+	private void resetKnowledge() {
+		if (knowledge.length != players.length) {
+			knowledge = new KnowledgeBase[players.length];
+			handSizes = new int[players.length];
+		}
+
+		for (int seat = 0; seat < players.length; seat++) {
+			handSizes[seat] = players[seat] == null ? 0 : Integer
+					.bitCount(players[seat].getHand());
+		}
+
+		for (int seat = 0; seat < players.length; seat++) {
+			if (knowledge[seat] == null) {
+				knowledge[seat] = new KnowledgeBase(seat, handSizes);
+			} else {
+				knowledge[seat].reset(handSizes);
+			}
+
+			if (players[seat] != null) {
+				knowledge[seat].dealt(players[seat].getHand());
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the index of which player holds each card. Done by dealCards,
+	 * only needs calling again if cards are handed to the players directly
+	 */
+	public void indexHands() {
+		Arrays.fill(cardOwner, -1);
+		for (int seat = 0; seat < players.length; seat++) {
+			if (players[seat] == null)
+				continue;
+			for (int hand = players[seat].getHand(); hand != 0; hand &= hand - 1) {
+				cardOwner[Integer.numberOfTrailingZeros(hand)] = seat;
+			}
+		}
+	}
+
+	/**
+	 * Picks a random card out of the mask
+	 *
+	 * @param cards
+	 *            Mask of the cards to pick from
+	 * @return Mask holding only the picked card
+	 */
+	private int pick(int cards) {
+		int index = random.nextInt(Integer.bitCount(cards));
+		for (int i = 0; i < index; i++) {
+			cards &= cards - 1;
+		}
+		return Integer.lowestOneBit(cards);
 	}
 
 	/**
@@ -250,10 +519,15 @@ public class Controller {
 	 * everyone has lost
 	 */
 	public void tick() {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 
 		if (status == Status.GAME_OVER) {
 			// Do nothing, game is over
 		}
+		// Bots make their own decisions, people use the GUI
+		else if (status != Status.MOVING && getStrategy(currentPlayer) != null) {
+			playStrategy(getStrategy(currentPlayer));
+		}
 		// If we need to move a piece around the board
 		else if (status == Status.MOVING) {
 
@@ -262,7 +536,10 @@ public class Controller {
 			try {
 				// Move the piece if it's a valid move
 				board.movePiece(currentMove, playerPiece);
-				panel.repaint();
+				if (recorder != null) {
+					recorder.moved(playerPiece);
+				}
+				fireBoardChanged();
 			} catch (InvalidMoveException e) {
 				e.printStackTrace();
 			}
@@ -285,6 +562,168 @@ public class Controller {
 
 				// Finished all moves, wait for next turn
 				status = Status.SELECTING_MOVE;
+				updateReachability();
+			}
+		}
+
+		if (Metrics.ENABLED) {
+			TICK_TIME.recordSince(start);
+		}
+	}
+
+	/**
+	 * Makes the next decision of the current player using their strategy
+	 *
+	 * @param strategy
+	 *            Strategy playing the current seat
+	 */
+	private void playStrategy(Strategy strategy) {
+		int seat = currentPlayer;
+		Player player = players[seat];
+
+		try {
+			if (status == Status.ROLLING_DICE) {
+
+				// Accuse when the strategy is sure enough
+				int accusation = (Integer) decide(new Decision(strategy,
+						Decision.ACCUSATION, seat, 0), 0);
+				if (accusation != 0) {
+					accuseMurderer(nameOf(accusation & Card.CHARACTERS),
+							nameOf(accusation & Card.WEAPONS),
+							nameOf(accusation & Card.ROOMS));
+					if (status != Status.GAME_OVER) {
+						finishTurn();
+					}
+					return;
+				}
+
+				turnStartRoom = player.getPiece().getRoom();
+				rollDice();
+				status = Status.SELECTING_MOVE;
+			} else if (status == Status.SELECTING_MOVE) {
+				AMove_Node path = (AMove_Node) decide(new Decision(strategy,
+						Decision.MOVE, seat, 0), null);
+				if (path == null) {
+
+					// Staying where they are
+					status = Status.WAITING;
+				} else {
+					try {
+						attemptPlayerMove(path);
+					} catch (InvalidMoveException e) {
+						status = Status.WAITING;
+					}
+				}
+			} else if (status == Status.WAITING && !hasSuggested
+					&& player.getPiece().isInRoom()
+					&& player.getPiece().getRoom() != turnStartRoom) {
+
+				// Entered a new room this turn
+				int cards = (Integer) decide(new Decision(strategy,
+						Decision.SUGGESTION, seat, 0), 0);
+				if (cards == 0) {
+					finishTurn();
+				} else {
+					resolveSuggestion(nameOf(cards & Card.CHARACTERS),
+							nameOf(cards & Card.WEAPONS), player.getPiece()
+									.getRoom().getName());
+				}
+			} else {
+
+				// Nothing left to do this turn
+				finishTurn();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Runs the decision within the decision budget
+	 *
+	 * @param decision
+	 *            Decision to make
+	 * @param fallback
+	 *            Answer used when the strategy runs out of time or fails
+	 * @return Answer of the strategy, or the fallback
+	 */
+	private Object decide(Decision decision, Object fallback) {
+		Future<Object> future = decisionExecutor.submit(decision);
+		try {
+			Object answer = future.get(decisionBudget, TimeUnit.NANOSECONDS);
+			return answer == null && decision.kind != Decision.MOVE ? fallback
+					: answer;
+		} catch (Exception e) {
+
+			// Keep the interrupt for whoever is ticking the game
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+
+			// Too slow or failed, stop it and play it safe
+			decision.deadline.cancel();
+			future.cancel(true);
+
+			// Give it a moment to see the cancelled deadline and return, so
+			// it is not still reading the game while the next tick changes
+			// it, and the next decision is not queued behind it
+			if (decision.started) {
+				try {
+					decision.finished.await(CANCEL_GRACE_MILLIS,
+							TimeUnit.MILLISECONDS);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return fallback;
+		}
+	}
+
+	/**
+	 * One decision asked of a strategy, run on the decision executor
+	 */
+	private class Decision implements Callable<Object> {
+
+		static final int ACCUSATION = 0;
+		static final int MOVE = 1;
+		static final int SUGGESTION = 2;
+		static final int CARD = 3;
+
+		final Strategy strategy;
+		final int kind;
+		final int seat;
+		final int cards;
+		final Deadline deadline = new Deadline(decisionBudget);
+
+		// Set once the strategy has been called, counted down once it returns
+		volatile boolean started = false;
+		final CountDownLatch finished = new CountDownLatch(1);
+
+		Decision(Strategy strategy, int kind, int seat, int cards) {
+			this.strategy = strategy;
+			this.kind = kind;
+			this.seat = seat;
+			this.cards = cards;
+		}
+
+		@Override
+		public Object call() {
+			started = true;
+			try {
+				Controller controller = Controller.this;
+				switch (kind) {
+				case ACCUSATION:
+					return strategy.chooseAccusation(controller, seat, deadline);
+				case MOVE:
+					return strategy.chooseMove(controller, seat, deadline);
+				case SUGGESTION:
+					return strategy.chooseSuggestion(controller, seat, deadline);
+				default:
+					return strategy.chooseCard(controller, seat, cards,
+							deadline);
+				}
+			} finally {
+				finished.countDown();
 			}
 		}
 	}
@@ -344,25 +783,32 @@ public class Controller {
 
 		// Status changed to ACCUSING in order to differentiate between
 		// accusation and suggesting
-		this.suggestedCharacter = character;
-		this.suggestedWeapon = weapon;
-		this.suggestedRoom = room;
+		this.suggestion = Card.bit(character) | Card.bit(weapon)
+				| Card.bit(room);
 
 		this.status = Status.ACCUSING;
 		this.hasSuggested = true;
 
+		if (recorder != null) {
+			recorder.accused(currentPlayer, suggestion);
+		}
+
 		// Check we accused the correct people
-		if (murdererCharacter.equals(suggestedCharacter)
-				&& murdererWeapon.equals(suggestedWeapon)
-				&& murdererRoom.equals(suggestedRoom)) {
+		if (suggestion == solution) {
 
 			// This player has won the game
 			status = Status.GAME_OVER;
+			GAMES.increment();
 		} else {
 
 			// Eliminate this player
 			eliminatedPlayers[currentPlayer] = true;
 
+			// Everyone now knows the envelope does not hold all three
+			for (KnowledgeBase known : knowledge) {
+				known.wrongAccusation(suggestion);
+			}
+
 			// Check to make sure there is still one player playing
 			for (Boolean eliminated : eliminatedPlayers) {
 
@@ -376,6 +822,7 @@ public class Controller {
 
 			// This murderer got away
 			status = Status.GAME_OVER;
+			GAMES.increment();
 			currentPlayer = -1;
 		}
 	}
@@ -408,24 +855,209 @@ public class Controller {
 					"You have already made a suggestion/accusation this turn.");
 		}
 
-		// Record who made the suggestion
-		rotatingPlayer = currentPlayer;
-		skipRotatingPlayer();
+		// Start going around the table from the player after the suggester
+		rotatingPlayer = (currentPlayer + 1) % players.length;
 
 		// Record their suggestion
-		this.suggestedCharacter = character;
-		this.suggestedWeapon = weapon;
-		this.suggestedRoom = room;
+		this.suggestion = Card.bit(character) | Card.bit(weapon)
+				| Card.bit(room);
+		this.revealed = null;
+
+		if (recorder != null) {
+			recorder.suggested(currentPlayer, suggestion);
+		}
 
 		// Move the character into the room
 		board.moveToRoom(character, weapon, room);
+		if (recorder != null && board.getItem(character) != null
+				&& board.getItem(weapon) != null) {
+			recorder.moved(board.getItem(character));
+			recorder.moved(board.getItem(weapon));
+		}
 
 		// Set the status of the controller to be suggesting.
 		this.status = Status.SUGGESTING;
 		this.hasSuggested = true;
 
 		// Redraw
-		panel.repaint();
+		fireBoardChanged();
+	}
+
+	/**
+	 * The current player makes a suggestion and it is resolved straight away,
+	 * without going around the players one at a time. The first player after
+	 * the suggester holding one of the suggested cards reveals one of them,
+	 * picked by the CardChoice of the controller.
+	 *
+	 * Leaves the controller REVEALING when a card was revealed, otherwise
+	 * WAITING for the player to finish their turn.
+	 *
+	 * @param character
+	 *            Person who is the murderer
+	 * @param weapon
+	 *            Weapon used to commit the murder
+	 * @param room
+	 *            Room where the murder was commited
+	 * @return Who disproved the suggestion and with which card
+	 */
+	public SuggestionResult resolveSuggestion(String character, String weapon,
+			String room) throws Exception {
+		if (!Metrics.ENABLED) {
+			return resolve(character, weapon, room);
+		}
+
+		long start = System.nanoTime();
+		try {
+			return resolve(character, weapon, room);
+		} finally {
+			SUGGESTION_TIME.recordSince(start);
+		}
+	}
+
+	/**
+	 * Makes and resolves the suggestion, see resolveSuggestion
+	 */
+	private SuggestionResult resolve(String character, String weapon,
+			String room) throws Exception {
+		suggestMurderer(character, weapon, room);
+
+		int disprover = getDisprover(suggestion);
+
+		// Everyone before the disprover passes
+		if (recorder != null) {
+			for (int seat = (currentPlayer + 1) % players.length; seat != currentPlayer
+					&& seat != disprover; seat = (seat + 1) % players.length) {
+				recorder.passed(seat);
+			}
+		}
+
+		// Nobody could disprove it
+		if (disprover == -1) {
+			rotatingPlayer = currentPlayer;
+			status = Status.WAITING;
+			for (KnowledgeBase known : knowledge) {
+				known.suggestion(currentPlayer, suggestion, -1, null);
+			}
+			return new SuggestionResult(currentPlayer, -1, 0, null);
+		}
+
+		rotatingPlayer = disprover;
+		int eligible = getDisprovingCards(disprover);
+		Card shown = getStrategy(disprover) == null ? cardChoice.choose(this,
+				disprover, eligible) : (Card) decide(new Decision(
+				getStrategy(disprover), Decision.CARD, disprover, eligible),
+				Card.first(eligible));
+		if ((shown.bit() & eligible) == 0) {
+			shown = Card.first(eligible);
+		}
+		revealed = shown;
+		if (recorder != null) {
+			recorder.revealed(disprover, shown);
+		}
+
+		// Only the suggester and the disprover see the card
+		for (int seat = 0; seat < knowledge.length; seat++) {
+			knowledge[seat].suggestion(currentPlayer, suggestion, disprover,
+					seat == currentPlayer || seat == disprover ? shown : null);
+		}
+
+		status = Status.REVEALING;
+		return new SuggestionResult(currentPlayer, disprover, eligible, shown);
+	}
+
+	/**
+	 * Returns who would disprove a suggestion of the given cards by the
+	 * current player: the closest player after them, going around the
+	 * table, holding one of the cards
+	 *
+	 * @param cards
+	 *            Mask of the suggested cards
+	 * @return Index in getPlayers(), -1 if nobody else holds any of them
+	 */
+	public int getDisprover(int cards) {
+		int disprover = -1;
+		int closest = players.length;
+		for (; cards != 0; cards &= cards - 1) {
+			int owner = cardOwner[Integer.numberOfTrailingZeros(cards)];
+			if (owner == -1)
+				continue;
+
+			int distance = (owner - currentPlayer + players.length)
+					% players.length;
+			if (distance != 0 && distance < closest) {
+				closest = distance;
+				disprover = owner;
+			}
+		}
+		return disprover;
+	}
+
+	public CardChoice getCardChoice() {
+		return cardChoice;
+	}
+
+	/**
+	 * Sets the policy deciding which card a player reveals when a suggestion
+	 * is resolved
+	 *
+	 * @param cardChoice
+	 *            Policy such as FIRST_CARD or RANDOM_CARD
+	 */
+	public void setCardChoice(CardChoice cardChoice) {
+		this.cardChoice = cardChoice;
+	}
+
+	/**
+	 * Returns the strategy playing the seat
+	 *
+	 * @param seat
+	 *            Index in getPlayers()
+	 * @return Strategy of the seat, null if the seat is played through the
+	 *         GUI
+	 */
+	public Strategy getStrategy(int seat) {
+		return seat >= 0 && seat < strategies.length ? strategies[seat] : null;
+	}
+
+	/**
+	 * Lets a strategy play the seat, tick() then makes all of its decisions
+	 *
+	 * @param seat
+	 *            Index in getPlayers()
+	 * @param strategy
+	 *            Strategy to play the seat, null to play it through the GUI
+	 */
+	public void setStrategy(int seat, Strategy strategy) {
+		if (strategies.length < players.length) {
+			strategies = Arrays.copyOf(strategies, players.length);
+		}
+		strategies[seat] = strategy;
+	}
+
+	/**
+	 * Sets how long each strategy decision may take
+	 *
+	 * @param budget
+	 *            Time allowed
+	 * @param unit
+	 *            Unit of the budget
+	 */
+	public void setDecisionBudget(long budget, TimeUnit unit) {
+		this.decisionBudget = unit.toNanos(budget);
+	}
+
+	/**
+	 * Sets where strategy decisions run. The Controller stops waiting for a
+	 * decision once its budget is spent, cancels its Deadline and gives it a
+	 * moment to return before playing on, so a slow strategy never holds up
+	 * the thread calling tick().
+	 *
+	 * @param executor
+	 *            Executor for the decisions, null for the pool shared by
+	 *            every game
+	 */
+	public void setDecisionExecutor(ExecutorService executor) {
+		this.decisionExecutor = executor == null ? DECISIONS : executor;
 	}
 
 	/**
@@ -440,28 +1072,18 @@ public class Controller {
 			throws InvalidMoveException {
 
 		// Put the weapon in a random square of the room
-		Square randomSquare = room.getRandomSquare();
+		Square randomSquare = room.getRandomSquare(random);
 
 		while (!randomSquare.canContainWeapon()) {
 
 			// Get another new square
-			randomSquare = room.getRandomSquare();
+			randomSquare = room.getRandomSquare(random);
 		}
 
-		// Reset the old room so the old room does not hold the weapon
-		weapon.getRoom().removeWeapon(weapon);
-
-		// Reset the old square
-		board.getSquare(weapon.getPosition()).setWeapon(null);
-
-		// Square can hold the weapon
-		randomSquare.setWeapon(weapon);
-
-		// Room holds weapon
-		room.addWeapon(weapon);
-
-		// Weapon is now in the room
-		weapon.setRoom(room);
+		// Take the weapon off its old square and room and put it on the new
+		// one, so the board can tell its listeners which squares changed
+		board.placeItem(weapon, randomSquare.getPosition().x,
+				randomSquare.getPosition().y);
 	}
 
 	/**
@@ -476,17 +1098,42 @@ public class Controller {
 					"You must move before you can end your turn.");
 		}
 
-		// Next player
-		currentPlayer++;
+		if (recorder != null) {
+			recorder.turnFinished(currentPlayer);
+		}
+
+		// Next player, eliminated players do not take turns anymore
+		for (int i = 0; i < players.length; i++) {
+			currentPlayer++;
+
+			// Stay within bounds
+			if (currentPlayer >= players.length) {
+				currentPlayer = 0;
+			}
 
-		// Stay within bounds
-		if (currentPlayer >= players.length) {
-			currentPlayer = 0;
+			if (!eliminatedPlayers[currentPlayer]) {
+				break;
+			}
 		}
 
 		// We want to roll the dice next
 		status = Status.ROLLING_DICE;
 		hasSuggested = false;
+		reachability.clear();
+		reachabilityStale = false;
+		turns++;
+
+		// Tell the listeners whose turn it is now
+		fireBoardChanged();
+	}
+
+	/**
+	 * Returns how many turns have been finished since the game started
+	 *
+	 * @return Number of turns
+	 */
+	public int getTurns() {
+		return turns;
 	}
 
 	public void checkValidMove(AMove_Node move, Item item)
@@ -560,6 +1207,43 @@ public class Controller {
 	 */
 	public void setBoard(Board board) {
 		this.board = board;
+		if (board != null) {
+			random = board.getRandom();
+		}
+	}
+
+	/**
+	 * Returns the random source used for every random choice of the game
+	 *
+	 * @return Random source of the game
+	 */
+	public GameRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * Sets the random source of the game, the board makes its choices from
+	 * the same source
+	 *
+	 * @param random
+	 *            Random source of the game
+	 */
+	public void setRandom(GameRandom random) {
+		this.random = random;
+		if (board != null) {
+			board.setRandom(random);
+		}
+	}
+
+	/**
+	 * Rolls the dice for the current player and sets the moves they have
+	 *
+	 * @return The number rolled, from 1 to 12
+	 */
+	public int rollDice() {
+		int roll = random.nextInt(12) + 1;
+		setDiceRoll(roll);
+		return roll;
 	}
 
 	/**
@@ -578,6 +1262,72 @@ public class Controller {
 		return players[currentPlayer];
 	}
 
+	/**
+	 * Returns the seat of the player that should be playing
+	 *
+	 * @return Index in getPlayers(), -1 if the murderer got away
+	 */
+	public int getCurrentPlayerIndex() {
+		return currentPlayer;
+	}
+
+	/**
+	 * Returns the seat of the player in rotation during a suggestion
+	 *
+	 * @return Index in getPlayers()
+	 */
+	public int getRotatingPlayerIndex() {
+		return rotatingPlayer;
+	}
+
+	/**
+	 * Checks if the player in the given seat made a wrong accusation
+	 *
+	 * @param seat
+	 *            Index in getPlayers()
+	 * @return True if the player has been eliminated
+	 */
+	public boolean isEliminated(int seat) {
+		return eliminatedPlayers[seat];
+	}
+
+	/**
+	 * Checks if the current player has made their suggestion or accusation
+	 * this turn, getSuggestion() then holds the cards they named
+	 *
+	 * @return True once the current player has suggested or accused
+	 */
+	public boolean hasSuggested() {
+		return hasSuggested;
+	}
+
+	/**
+	 * Returns the names of all the character cards in the game
+	 *
+	 * @return List that must not be modified
+	 */
+	public static List<String> getCharacterCards() {
+		return CHARACTER_CARDS;
+	}
+
+	/**
+	 * Returns the names of all the weapon cards in the game
+	 *
+	 * @return List that must not be modified
+	 */
+	public static List<String> getWeaponCards() {
+		return WEAPON_CARDS;
+	}
+
+	/**
+	 * Returns the names of all the room cards in the game
+	 *
+	 * @return List that must not be modified
+	 */
+	public static List<String> getRoomCards() {
+		return ROOM_CARDS;
+	}
+
 	/**
 	 * Returns the player in rotation where someone has made a suggestion
 	 *
@@ -615,6 +1365,73 @@ public class Controller {
 	public void setDiceRoll(int diceRoll) {
 		this.diceRoll = diceRoll;
 		this.movesRemaining = diceRoll;
+		updateReachability();
+
+		if (recorder != null) {
+			recorder.diceRolled(currentPlayer, diceRoll);
+		}
+	}
+
+	/**
+	 * Sets the dice roll read back from a log. The moves of the turn follow in
+	 * the log, so the distances from the player are only computed if they are
+	 * asked for before the next turn
+	 *
+	 * @param diceRoll
+	 *            Roll of the current player
+	 */
+	public void replayDiceRoll(int diceRoll) {
+		this.diceRoll = diceRoll;
+		this.movesRemaining = diceRoll;
+		reachabilityStale = true;
+
+		if (recorder != null) {
+			recorder.diceRolled(currentPlayer, diceRoll);
+		}
+	}
+
+	/**
+	 * Recomputes the distances from the current player's piece using the moves
+	 * remaining
+	 */
+	private void updateReachability() {
+		reachabilityStale = false;
+		Player player = players == null ? null : getCurrentPlayer();
+		if (board == null || !board.isSetUp() || player == null
+				|| player.getPiece() == null) {
+			reachability.clear();
+			return;
+		}
+
+		reachability.compute(board, player.getPiece(), movesRemaining);
+	}
+
+	/**
+	 * Returns the distances from the current player to every square and room
+	 * of the board, updated every time the dice is rolled or the player stops
+	 * to select another move.
+	 *
+	 * @return Distance field of the current player
+	 */
+	public Reachability getReachability() {
+		if (reachabilityStale) {
+			updateReachability();
+		}
+		return reachability;
+	}
+
+	/**
+	 * Checks if the current player can move to the given square with the moves
+	 * they have remaining
+	 *
+	 * @param x
+	 *            Column of the square
+	 * @param y
+	 *            Row of the square
+	 * @return True if the square, or the room it is in, can be reached
+	 */
+	public boolean canReach(int x, int y) {
+		return getReachability().canReach(x, y);
 	}
 
 	/**
@@ -637,25 +1454,51 @@ public class Controller {
 	public void setPlayers(Player[] players) {
 		this.players = players;
 		this.eliminatedPlayers = new boolean[players.length];
+		indexHands();
 	}
 
 	/**
-	 * Returns the board that this controller is directing
+	 * Adds a listener that will be told every time the board or the game
+	 * changes
 	 *
-	 * @return BoardPanel that is drawing the board related to this controller
+	 * @param listener
+	 *            Listener such as the panel drawing the board
 	 */
-	public BoardPanel getPanel() {
-		return panel;
+	public void addListener(GameListener listener) {
+		listeners.add(listener);
 	}
 
 	/**
-	 * Assigns the panel that this Controller will be telling to draw
+	 * Stops telling the listener about changes
 	 *
-	 * @param panel
-	 *            Panel that the controller will be accociating with
+	 * @param listener
+	 *            Listener added with addListener
 	 */
-	public void setPanel(BoardPanel panel) {
-		this.panel = panel;
+	public void removeListener(GameListener listener) {
+		listeners.remove(listener);
+	}
+
+	public GameRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Sets where every change to the game is recorded
+	 *
+	 * @param recorder
+	 *            Recorder such as a GameLog, null to stop recording
+	 */
+	public void setRecorder(GameRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Tells all the listeners the board has changed
+	 */
+	private void fireBoardChanged() {
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).boardChanged(this);
+		}
 	}
 
 	/**
@@ -676,27 +1519,89 @@ public class Controller {
 	}
 
 	public String getMurdererCharacter() {
-		return murdererCharacter;
+		return nameOf(solution & Card.CHARACTERS);
 	}
 
 	public void setMurdererCharacter(String card) {
-		this.murdererCharacter = card;
+		setSolutionCard(Card.CHARACTERS, card);
 	}
 
 	public String getMurdererWeapon() {
-		return murdererWeapon;
+		return nameOf(solution & Card.WEAPONS);
 	}
 
 	public void setMurdererWeapon(String murdererWeapon) {
-		this.murdererWeapon = murdererWeapon;
+		setSolutionCard(Card.WEAPONS, murdererWeapon);
 	}
 
 	public String getMurdererRoom() {
-		return murdererRoom;
+		return nameOf(solution & Card.ROOMS);
 	}
 
 	public void setMurdererRoom(String murdererRoom) {
-		this.murdererRoom = murdererRoom;
+		setSolutionCard(Card.ROOMS, murdererRoom);
+	}
+
+	/**
+	 * Returns the three murderer cards
+	 *
+	 * @return Mask of the cards, one bit per Card
+	 */
+	public int getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Returns the cards of the last suggestion or accusation
+	 *
+	 * @return Mask of the cards, one bit per Card
+	 */
+	public int getSuggestion() {
+		return suggestion;
+	}
+
+	/**
+	 * Returns the card shown to the suggester for the last suggestion, which
+	 * only they and the player showing it may see
+	 *
+	 * @return Card shown, null if nobody has shown one yet
+	 */
+	public Card getRevealedCard() {
+		return revealed;
+	}
+
+	/**
+	 * Returns the suggested cards the player in the given seat could reveal
+	 *
+	 * @param seat
+	 *            Index in getPlayers()
+	 * @return Mask of the cards, 0 if they can not disprove the suggestion
+	 */
+	public int getDisprovingCards(int seat) {
+		return players[seat].getHand() & suggestion;
+	}
+
+	/**
+	 * Returns what the player in the given seat knows about the cards,
+	 * updated after every deal, suggestion, revealed card and accusation
+	 *
+	 * @param seat
+	 *            Index in getPlayers()
+	 * @return Knowledge of the player, null before the cards are dealt
+	 */
+	public KnowledgeBase getKnowledge(int seat) {
+		return seat < knowledge.length ? knowledge[seat] : null;
+	}
+
+	/**
+	 * Replaces the murderer card of the given type
+	 */
+	private void setSolutionCard(int type, String card) {
+		solution = (solution & ~type) | (Card.bit(card) & type);
+	}
+
+	private static String nameOf(int card) {
+		return card == 0 ? null : Card.first(card).getName();
 	}
 
 	/**
@@ -708,12 +1613,27 @@ public class Controller {
 	public void setRevealingCard(String card) {
 
 		// We should check to make we are revealing an acceptable card
-		if (!card.equals(suggestedCharacter) && !card.equals(suggestedWeapon)
-				&& !card.equals(suggestedRoom)) {
+		if ((Card.bit(card) & suggestion) == 0) {
 			throw new RuntimeException(
 					"Attempting to reveal a card that was not suggested!\n"
-							+ card + "\n" + suggestedCharacter + "\n"
-							+ suggestedWeapon + "\n" + suggestedRoom);
+							+ card + "\n" + Card.names(suggestion));
+		}
+
+		revealed = Card.fromName(card);
+		if (recorder != null) {
+			recorder.revealed(rotatingPlayer, revealed);
+		}
+
+		// Only the suggester and the revealing player see the card, everyone
+		// else only knows one of the suggested cards was revealed
+		if (status == Status.SUGGESTING) {
+			for (int seat = 0; seat < knowledge.length; seat++) {
+				if (seat == currentPlayer || seat == rotatingPlayer) {
+					knowledge[seat].shown(rotatingPlayer, Card.fromName(card));
+				} else {
+					knowledge[seat].disproved(rotatingPlayer, suggestion);
+				}
+			}
 		}
 
 		// Reveal to the player that made a suggestion
@@ -725,6 +1645,16 @@ public class Controller {
 	 */
 	public void skipRotatingPlayer() {
 
+		// Everyone has seen the rotating player has none of the cards
+		if (status == Status.SUGGESTING && rotatingPlayer != currentPlayer) {
+			for (KnowledgeBase known : knowledge) {
+				known.passed(rotatingPlayer, suggestion);
+			}
+			if (recorder != null) {
+				recorder.passed(rotatingPlayer);
+			}
+		}
+
 		rotatingPlayer++;
 		if (rotatingPlayer >= players.length) {
 			rotatingPlayer = 0;
@@ -0,0 +1,55 @@
+package control;
+
+/**
+ * Time budget and cancellation token of one Strategy decision.
+ * Strategies that search should check isExpired() regularly and return their best answer so far once it is true.
+ * The Controller cancels the token when it stops waiting for the answer.
+ *
+ */
+public class Deadline {
+
+	private final long end;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Starts a budget running from now
+	 *
+	 * @param budgetNanos
+	 *            Time the decision may take in nanoseconds
+	 */
+	public Deadline(long budgetNanos) {
+		this.end = System.nanoTime() + budgetNanos;
+	}
+
+	/**
+	 * Checks if the decision should stop
+	 *
+	 * @return True if the time is up or the decision was cancelled
+	 */
+	public boolean isExpired() {
+		return cancelled || System.nanoTime() - end >= 0;
+	}
+
+	/**
+	 * Returns the time left for the decision
+	 *
+	 * @return Nanoseconds left, 0 when expired
+	 */
+	public long getRemainingNanos() {
+		if (cancelled) {
+			return 0;
+		}
+		return Math.max(0, end - System.nanoTime());
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Tells the strategy its answer is no longer wanted
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+}
@@ -0,0 +1,18 @@
+package control;
+
+/**
+ * Listener told about the changes the Controller makes to the game.
+ * Views such as the BoardPanel implement it, so the Controller and the Board never depend on Swing and a game can
+ * run without a display.
+ *
+ */
+public interface GameListener {
+
+	/**
+	 * Called after pieces or weapons have moved on the board or the game has been reset
+	 *
+	 * @param controller
+	 *            Controller of the game that changed
+	 */
+	void boardChanged(Controller controller);
+}
@@ -0,0 +1,88 @@
+package control;
+
+import game.Card;
+import game.Item;
+
+/**
+ * Told about every change the Controller makes to the state of a game, in the order they happen, so the game can be
+ * written down and played back later. Unlike a GameListener it is given what changed, not just that something did.
+ *
+ * Positions are recorded where the items ended up, so playing the events back does not depend on the random squares
+ * picked in the rooms.
+ *
+ */
+public interface GameRecorder {
+
+	/**
+	 * Called when the game starts, after the cards are dealt
+	 *
+	 * @param controller
+	 *            Controller of the game, with the players, board and hands
+	 *            set up
+	 */
+	void dealt(Controller controller);
+
+	/**
+	 * Called when the current player rolls the dice
+	 *
+	 * @param seat
+	 *            Seat of the player
+	 * @param roll
+	 *            Number rolled
+	 */
+	void diceRolled(int seat, int roll);
+
+	/**
+	 * Called when a piece or weapon has moved
+	 *
+	 * @param item
+	 *            Item that moved, its position is where it ended up
+	 */
+	void moved(Item item);
+
+	/**
+	 * Called when a player makes a suggestion, before anyone answers it
+	 *
+	 * @param seat
+	 *            Seat of the player
+	 * @param cards
+	 *            Mask of the suggested cards
+	 */
+	void suggested(int seat, int cards);
+
+	/**
+	 * Called when a player has none of the suggested cards
+	 *
+	 * @param seat
+	 *            Seat of the player that passed
+	 */
+	void passed(int seat);
+
+	/**
+	 * Called when a player reveals one of the suggested cards
+	 *
+	 * @param seat
+	 *            Seat of the player revealing the card
+	 * @param card
+	 *            Card revealed
+	 */
+	void revealed(int seat, Card card);
+
+	/**
+	 * Called when a player makes an accusation
+	 *
+	 * @param seat
+	 *            Seat of the player
+	 * @param cards
+	 *            Mask of the accused cards
+	 */
+	void accused(int seat, int cards);
+
+	/**
+	 * Called when a player finishes their turn
+	 *
+	 * @param seat
+	 *            Seat of the player
+	 */
+	void turnFinished(int seat);
+}
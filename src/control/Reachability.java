@@ -0,0 +1,274 @@
+package control;
+
+import game.Piece;
+import game.Room;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import ui.Board;
+
+/**
+ * Distance field from a piece to every square and every room on the board.
+ * Computed with one breadth first search over the Board neighbour table when the dice is rolled, after that
+ * every "can I get there" question is a single array lookup, and the shortest path there is read back from the cell
+ * each square was reached from.
+ *
+ * Distances follow the movement rules of the Controller: a piece in a room leaves through one of its doors,
+ * entering a room (through a door or a portal) ends the move and squares holding a piece can not be walked through.
+ */
+public class Reachability {
+
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	// Moves needed to reach each cell
+	private final int[] distance = new int[Board.CELLS];
+
+	// Moves needed to enter each room, indexed like Board.getRooms()
+	private int[] roomDistance = new int[0];
+
+	// Cell each cell was first reached from, -1 for the cells the search started on
+	private final int[] parent = new int[Board.CELLS];
+
+	// Door each room is first entered through, -1 if it is only entered through the portal, indexed like
+	// roomDistance
+	private int[] roomEntry = new int[0];
+
+	// Queue of cells for the search, reused between searches
+	private final int[] queue = new int[Board.CELLS];
+
+	private Board board;
+	private int moves = 0;
+
+	/**
+	 * Creates an empty distance field, nothing can be reached until compute is called
+	 */
+	public Reachability() {
+		clear();
+	}
+
+	/**
+	 * Forgets the last search, nothing can be reached
+	 */
+	public void clear() {
+		Arrays.fill(distance, UNREACHABLE);
+		Arrays.fill(roomDistance, UNREACHABLE);
+		Arrays.fill(roomEntry, -1);
+		moves = 0;
+	}
+
+	/**
+	 * Computes the distance from the piece to every square and room of the board
+	 *
+	 * @param board
+	 *            Board that has been set up
+	 * @param piece
+	 *            Piece that will be moving
+	 * @param moves
+	 *            Moves the piece has remaining
+	 */
+	public void compute(Board board, Piece piece, int moves) {
+		compute(board,
+				AStarEngine.toCell(piece.getPosition().x, piece.getPosition().y),
+				moves);
+	}
+
+	/**
+	 * Computes the distance from a cell to every square and room of the board,
+	 * a cell in a room starts from the doors of that room
+	 *
+	 * @param board
+	 *            Board that has been set up
+	 * @param start
+	 *            Cell id (y*BOARD_WIDTH+x) the piece starts from
+	 * @param moves
+	 *            Moves the piece has remaining
+	 */
+	public void compute(Board board, int start, int moves) {
+		this.board = board;
+		if (roomDistance.length != board.getRooms().size()) {
+			roomDistance = new int[board.getRooms().size()];
+			roomEntry = new int[board.getRooms().size()];
+		}
+		clear();
+		this.moves = moves;
+
+		int head = 0;
+		int tail = 0;
+		int startRoom = board.getRoomIndex(start);
+
+		if (startRoom == -1) {
+
+			// Moving from the corridor
+			distance[start] = 0;
+			parent[start] = -1;
+			queue[tail++] = start;
+		} else {
+
+			// Leaving a room, the doors are free and the first step is onto the corridor
+			Room room = board.getRooms().get(startRoom);
+			int[] exits = board.getRoomExits(room);
+			for (int i = 0; i < exits.length; i += 2) {
+				distance[exits[i]] = 0;
+				parent[exits[i]] = -1;
+				if (distance[exits[i + 1]] == UNREACHABLE && canWalk(exits[i + 1])) {
+					distance[exits[i + 1]] = 1;
+					parent[exits[i + 1]] = -1;
+					queue[tail++] = exits[i + 1];
+				}
+			}
+
+			// Secret passage to another room
+			if (room.getPortal() != null && room.getPortal().getTargetRoom() != null) {
+				int target = board.getRoomIndex(room.getPortal().getTargetRoom());
+				if (target != -1) {
+					roomDistance[target] = 1;
+				}
+			}
+		}
+
+		while (head < tail) {
+			int cell = queue[head++];
+			int next = distance[cell] + 1;
+
+			int[] neighbours = board.getNeighbours(cell);
+			for (int i = 0; i < neighbours.length; i++) {
+				int neighbour = neighbours[i];
+				if (distance[neighbour] != UNREACHABLE) continue;
+
+				int room = board.getRoomIndex(neighbour);
+				if (room != -1) {
+
+					// Stepping onto a door enters the room and ends the move
+					if (room != startRoom) {
+						distance[neighbour] = next;
+						parent[neighbour] = cell;
+						if (next < roomDistance[room]) {
+							roomDistance[room] = next;
+							roomEntry[room] = neighbour;
+						}
+					}
+				} else if (canWalk(neighbour)) {
+					distance[neighbour] = next;
+					parent[neighbour] = cell;
+					queue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if a piece can stand on the corridor cell
+	 */
+	private boolean canWalk(int cell) {
+		return board.getSquareAt(cell % Board.BOARD_WIDTH, cell / Board.BOARD_WIDTH).canContainPiece();
+	}
+
+	/**
+	 * Returns how many moves are needed to reach the square. Squares in a room return the moves needed to enter
+	 * the room.
+	 *
+	 * @return Number of moves or UNREACHABLE
+	 */
+	public int getDistance(int x, int y) {
+		if (board == null) return UNREACHABLE;
+
+		int cell = AStarEngine.toCell(x, y);
+		int room = board.getRoomIndex(cell);
+		return room == -1 ? distance[cell] : roomDistance[room];
+	}
+
+	/**
+	 * Checks if the square can be moved to with the moves remaining
+	 *
+	 * @return True if the square, or the room it belongs to, is a legal destination
+	 */
+	public boolean canReach(int x, int y) {
+		int distance = getDistance(x, y);
+		return distance > 0 && distance <= moves;
+	}
+
+	/**
+	 * Returns the shortest path to the square, in the form AStar.getPath returns it: from the first step to the
+	 * square, not counting the square the piece is on. Squares in a room return the path to the door the room is
+	 * entered through first.
+	 *
+	 * @return Path to the square, null if it can not be reached or is only reached through the portal
+	 */
+	public AMove_Node getPath(int x, int y) {
+		if (!canReach(x, y)) return null;
+
+		int cell = AStarEngine.toCell(x, y);
+		int room = board.getRoomIndex(cell);
+		if (room != -1) {
+			cell = roomEntry[room];
+			if (cell == -1) return null;
+		}
+
+		// Built from the end so each node links to the next one
+		AMove_Node node = null;
+		for (; cell != -1 && distance[cell] > 0; cell = parent[cell]) {
+			node = new AMove_Node(new Point(cell % Board.BOARD_WIDTH, cell / Board.BOARD_WIDTH), distance[cell], 0,
+					node);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns how many moves are needed to enter the room
+	 *
+	 * @return Number of moves or UNREACHABLE
+	 */
+	public int getRoomDistance(Room room) {
+		if (board == null) return UNREACHABLE;
+
+		int index = board.getRoomIndex(room);
+		return index == -1 ? UNREACHABLE : roomDistance[index];
+	}
+
+	/**
+	 * Returns the rooms that can be entered with the moves remaining
+	 *
+	 * @return List of rooms
+	 */
+	public ArrayList<Room> getReachableRooms() {
+		ArrayList<Room> rooms = new ArrayList<Room>();
+		for (int i = 0; i < roomDistance.length; i++) {
+			if (roomDistance[i] <= moves) {
+				rooms.add(board.getRooms().get(i));
+			}
+		}
+		return rooms;
+	}
+
+	/**
+	 * Returns the corridor cells that can be moved to with the moves remaining
+	 *
+	 * @return Cell ids (y*BOARD_WIDTH+x)
+	 */
+	public int[] getReachableCells() {
+		int count = 0;
+		for (int cell = 0; cell < Board.CELLS; cell++) {
+			if (isCorridorDestination(cell)) count++;
+		}
+
+		int[] cells = new int[count];
+		count = 0;
+		for (int cell = 0; cell < Board.CELLS; cell++) {
+			if (isCorridorDestination(cell)) cells[count++] = cell;
+		}
+		return cells;
+	}
+
+	private boolean isCorridorDestination(int cell) {
+		return board != null && board.getRoomIndex(cell) == -1 && distance[cell] > 0 && distance[cell] <= moves;
+	}
+
+	/**
+	 * Returns the moves the distances were computed for
+	 */
+	public int getMoves() {
+		return moves;
+	}
+}
@@ -0,0 +1,83 @@
+package control;
+
+import game.Card;
+
+/**
+ * Makes the decisions of one seat for the Controller, so bots can play at the
+ * same table as people or against each other without a display.
+ *
+ * The Controller asks for a decision from tick() every time the seat has to
+ * choose something. Every decision gets a Deadline: a strategy that runs out
+ * of time should return its best answer so far. Decisions run on the
+ * decision executor of the Controller, which stops waiting once the budget is
+ * spent and plays a safe default instead, so a slow strategy can never stall
+ * the game.
+ *
+ * Strategies must only read the game, the Controller makes every change.
+ * Reading is only safe until the Deadline expires: a decision that runs out of
+ * budget has its Deadline cancelled and is given a moment to return, then the
+ * Controller plays on and changes the game while a strategy that is still
+ * running may be reading it. A late strategy also keeps a thread of the
+ * executor busy, and holds up the next decisions when the executor has a
+ * single thread, so strategies should check isExpired() often and return as
+ * soon as it is true.
+ *
+ */
+public interface Strategy {
+
+	/**
+	 * Decides whether to accuse before rolling the dice
+	 *
+	 * @param controller
+	 *            Controller of the game
+	 * @param seat
+	 *            Index in getPlayers() of the player deciding
+	 * @param deadline
+	 *            Budget of the decision
+	 * @return Mask of one card of each type to accuse, 0 to roll the dice
+	 */
+	int chooseAccusation(Controller controller, int seat, Deadline deadline);
+
+	/**
+	 * Picks where to move after rolling the dice
+	 *
+	 * @param controller
+	 *            Controller of the game, getMovesRemaining() holds the roll
+	 * @param seat
+	 *            Index in getPlayers() of the player deciding
+	 * @param deadline
+	 *            Budget of the decision
+	 * @return Path to follow, null to stay where they are
+	 */
+	AMove_Node chooseMove(Controller controller, int seat, Deadline deadline);
+
+	/**
+	 * Decides what to suggest after entering a room
+	 *
+	 * @param controller
+	 *            Controller of the game
+	 * @param seat
+	 *            Index in getPlayers() of the player deciding
+	 * @param deadline
+	 *            Budget of the decision
+	 * @return Mask of the character and weapon to suggest with the room the
+	 *         piece is in, 0 to not suggest
+	 */
+	int chooseSuggestion(Controller controller, int seat, Deadline deadline);
+
+	/**
+	 * Picks the card to reveal when disproving someone else's suggestion
+	 *
+	 * @param controller
+	 *            Controller of the game
+	 * @param seat
+	 *            Index in getPlayers() of the player revealing a card
+	 * @param cards
+	 *            Mask of the suggested cards the player holds, never 0
+	 * @param deadline
+	 *            Budget of the decision
+	 * @return One of the cards in the mask
+	 */
+	Card chooseCard(Controller controller, int seat, int cards,
+			Deadline deadline);
+}
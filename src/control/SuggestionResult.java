@@ -0,0 +1,66 @@
+package control;
+
+import game.Card;
+
+/**
+ * Outcome of a suggestion resolved by the Controller in a single call.
+ *
+ */
+public class SuggestionResult {
+
+	private final int suggester;
+	private final int disprover;
+	private final int eligible;
+	private final Card shown;
+
+	/**
+	 * @param suggester
+	 *            Seat of the player that made the suggestion
+	 * @param disprover
+	 *            Seat of the first player after the suggester holding a
+	 *            suggested card, -1 if nobody could disprove it
+	 * @param eligible
+	 *            Mask of the suggested cards the disprover holds
+	 * @param shown
+	 *            Card revealed to the suggester, null if nobody could
+	 *            disprove it
+	 */
+	public SuggestionResult(int suggester, int disprover, int eligible,
+			Card shown) {
+		this.suggester = suggester;
+		this.disprover = disprover;
+		this.eligible = eligible;
+		this.shown = shown;
+	}
+
+	public int getSuggester() {
+		return suggester;
+	}
+
+	public int getDisprover() {
+		return disprover;
+	}
+
+	public int getEligible() {
+		return eligible;
+	}
+
+	public Card getShown() {
+		return shown;
+	}
+
+	/**
+	 * Checks if someone revealed a card
+	 *
+	 * @return True if the suggestion was disproved
+	 */
+	public boolean isDisproved() {
+		return disprover != -1;
+	}
+
+	@Override
+	public String toString() {
+		return isDisproved() ? "Disproved by " + disprover + " with " + shown
+				: "Not disproved";
+	}
+}
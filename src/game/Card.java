@@ -0,0 +1,160 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The 21 cards of the game.
+ * Every card has its own bit, from its ordinal, so a hand, the murderer cards or a suggestion is a single int and
+ * checking which of them a player holds is a single AND.
+ *
+ */
+public enum Card {
+
+	// Characters
+	COLONEL_MUSTARD("Colonel Mustard", Type.CHARACTER),
+	PROFESSOR_PLUM("Professor Plum", Type.CHARACTER),
+	MRS_WHITE("Mrs. White", Type.CHARACTER),
+	REVERAND_GREEN("The Reverand Green", Type.CHARACTER),
+	MISS_SCARLETT("Miss Scarlett", Type.CHARACTER),
+	MRS_PEACOCK("Mrs. Peacock", Type.CHARACTER),
+
+	// Weapons
+	LEAD_PIPE("Lead Pipe", Type.WEAPON),
+	ROPE("Rope", Type.WEAPON),
+	WRENCH("Wrench", Type.WEAPON),
+	REVOLVER("Revolver", Type.WEAPON),
+	DAGGER("Dagger", Type.WEAPON),
+	CANDLESTICK("Candlestick", Type.WEAPON),
+
+	// Rooms
+	CONSERVATORY("Conservatory", Type.ROOM),
+	KITCHEN("Kitchen", Type.ROOM),
+	HALL("Hall", Type.ROOM),
+	DINING_ROOM("Dining Room", Type.ROOM),
+	LOUNGE("Lounge", Type.ROOM),
+	BILLIARD_ROOM("Billiard Room", Type.ROOM),
+	LIBRARY("Library", Type.ROOM),
+	STUDY("Study", Type.ROOM),
+	BALL_ROOM("Ball Room", Type.ROOM);
+
+	public static enum Type {
+		CHARACTER, WEAPON, ROOM
+	};
+
+	// All the cards, indexed by ordinal
+	private static final Card[] CARDS = values();
+
+	public static final int COUNT = CARDS.length;
+
+	// Masks of every card of each type
+	public static final int ALL = (1 << COUNT) - 1;
+	public static final int CHARACTERS = mask(Type.CHARACTER);
+	public static final int WEAPONS = mask(Type.WEAPON);
+	public static final int ROOMS = mask(Type.ROOM);
+
+	// Cards mapped from the names used on the board
+	private static final HashMap<String, Card> names = new HashMap<String, Card>();
+	static{
+		for( Card card : CARDS ){
+			names.put(card.name, card);
+		}
+	}
+
+	private final String name;
+	private final Type type;
+
+	private Card(String name, Type type){
+		this.name = name;
+		this.type = type;
+	}
+
+	/**
+	 * Returns the name of the card, the same as the name of the piece, weapon or room on the board
+	 * @return Name of the card
+	 */
+	public String getName(){
+		return name;
+	}
+
+	public Type getType(){
+		return type;
+	}
+
+	/**
+	 * Returns the bit of this card in a card mask
+	 * @return Mask holding only this card
+	 */
+	public int bit(){
+		return 1 << ordinal();
+	}
+
+	/**
+	 * Returns the card with the given ordinal
+	 * @param ordinal Index of the card, 0 - 20
+	 * @return Card with that ordinal
+	 */
+	public static Card get(int ordinal){
+		return CARDS[ordinal];
+	}
+
+	/**
+	 * Returns the card of the piece, weapon or room with the given name
+	 * @param name Name of the card
+	 * @return The card, null if there is no card with that name
+	 */
+	public static Card fromName(String name){
+		return names.get(name);
+	}
+
+	/**
+	 * Returns the bit of the card with the given name
+	 * @param name Name of the card
+	 * @return Mask holding only that card, 0 if there is no card with that name
+	 */
+	public static int bit(String name){
+		Card card = names.get(name);
+		return card == null ? 0 : card.bit();
+	}
+
+	/**
+	 * Returns the mask of every card of the given type
+	 * @param type Type of card
+	 * @return Mask of the cards
+	 */
+	public static int mask(Type type){
+		int mask = 0;
+		for( Card card : CARDS ){
+			if( card.type == type ) mask |= card.bit();
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the first card in the mask
+	 * @param mask Mask of cards
+	 * @return The card with the lowest ordinal, null if the mask is empty
+	 */
+	public static Card first(int mask){
+		return mask == 0 ? null : CARDS[Integer.numberOfTrailingZeros(mask)];
+	}
+
+	/**
+	 * Returns the names of the cards in the mask, in the order of the cards
+	 * @param mask Mask of cards
+	 * @return New list of names
+	 */
+	public static List<String> names(int mask){
+		List<String> list = new ArrayList<String>(Integer.bitCount(mask));
+		for( int m = mask & ALL; m != 0; m &= m - 1 ){
+			list.add(CARDS[Integer.numberOfTrailingZeros(m)].name);
+		}
+		return list;
+	}
+
+	@Override
+	public String toString(){
+		return name;
+	}
+}
@@ -0,0 +1,118 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of all the random choices made in one game: dealing cards, placing weapons, rolling the dice and picking
+ * squares in rooms.
+ * Uses the SplitMix64 generator, so a whole game is reproduced from its seed and the state is a single long that can
+ * be saved with the game.
+ *
+ */
+public class GameRandom {
+
+	// Odd constant the state is advanced by on every number
+	private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+	// Advanced for every unseeded source, so two made at the same time still differ
+	private static final AtomicLong SEEDS = new AtomicLong();
+
+	private long state;
+
+	/**
+	 * Creates a random source with an unpredictable seed
+	 */
+	public GameRandom(){
+		this(mix(System.nanoTime() ^ SEEDS.addAndGet(GAMMA)));
+	}
+
+	/**
+	 * Creates a random source that always produces the same numbers for the same seed
+	 * @param seed Seed of the game
+	 */
+	public GameRandom(long seed){
+		this.state = seed;
+	}
+
+	/**
+	 * Returns the random source of one game out of a series of games started from the same seed.
+	 * Gives the same numbers for the same seed and game whichever thread or order the games are played in.
+	 * @param seed Seed of the whole series
+	 * @param game Index of the game in the series
+	 * @return Random source of the game
+	 */
+	public static GameRandom forGame(long seed, long game){
+		return new GameRandom(mix(seed + mix(game + 1) * GAMMA));
+	}
+
+	/**
+	 * Creates a new random source from this one, which produces different numbers from this one
+	 * @return Independent random source
+	 */
+	public GameRandom split(){
+		return new GameRandom(mix(nextLong()));
+	}
+
+	public long nextLong(){
+		state += GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * Returns a random number from 0 up to but not including the bound
+	 * @param bound Number of possible values, must be positive
+	 * @return Random number in [0, bound)
+	 */
+	public int nextInt(int bound){
+		if( bound <= 0 ){
+			throw new IllegalArgumentException("Bound must be positive");
+		}
+
+		// Take the high bits of the product, resampling the few values that would favour the lower numbers
+		long product = (nextLong() >>> 32) * bound;
+		if( (product & 0xffffffffL) < bound ){
+			long threshold = (0x100000000L - bound) % bound;
+			while( (product & 0xffffffffL) < threshold ){
+				product = (nextLong() >>> 32) * bound;
+			}
+		}
+		return (int)(product >>> 32);
+	}
+
+	/**
+	 * Returns a random number from 0 up to but not including the bound
+	 * @param bound Number of possible values, must be positive
+	 * @return Random number in [0, bound)
+	 */
+	public long nextLong(long bound){
+		if( bound <= 0 ){
+			throw new IllegalArgumentException("Bound must be positive");
+		}
+
+		// Resample the values past the last whole multiple of the bound
+		long limit = Long.MAX_VALUE - (Long.MAX_VALUE % bound);
+		long value = nextLong() >>> 1;
+		while( value >= limit ){
+			value = nextLong() >>> 1;
+		}
+		return value % bound;
+	}
+
+	/**
+	 * Returns the state, so the game can be saved and the same numbers produced after loading it
+	 * @return State of the generator
+	 */
+	public long getState(){
+		return state;
+	}
+
+	public void setState(long state){
+		this.state = state;
+	}
+
+	private static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -1,6 +1,5 @@
 package game;
 
-import java.awt.Graphics;
 import java.awt.Point;
 
 public abstract class Item implements Cloneable {
@@ -9,6 +8,9 @@ public abstract class Item implements Cloneable {
 	protected Point position;
 	protected Room room;
 
+	// Path of the image used to draw the item, only loaded by the ui when it is drawn
+	protected String image;
+
 	public Point getPosition() {
 		return position;
 	}
@@ -33,7 +35,17 @@ public abstract class Item implements Cloneable {
 		name = n;
 	}
 
-	public abstract void draw(Graphics g, int x, int y, int w, int h);
+	/**
+	 * Returns the path of the image used to draw this item
+	 * @return Path of the image, relative to the working directory
+	 */
+	public String getImage() {
+		return image;
+	}
+
+	public void setImage(String image) {
+		this.image = image;
+	}
 
 	@Override
 	public Item clone() throws CloneNotSupportedException {
@@ -1,6 +1,5 @@
 package game;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,7 +11,9 @@ public class Player implements Cloneable {
 	private String name;
 	private String pieceName;
 	private Piece piece = null;
-	private List<String> cards = new ArrayList<String>();
+
+	// Mask of the cards in the players hand, one bit per Card
+	private int hand = 0;
 
 	public Player(String name, String pieceName) {
 		this.name = name;
@@ -50,10 +51,26 @@ public class Player implements Cloneable {
 
 	/**
 	 * Returns a list of cards that the player has in their deck
-	 * @return List of card in the players hands
+	 * @return New list of the names of the cards in the players hands
 	 */
 	public List<String> getCards() {
-		return cards;
+		return Card.names(hand);
+	}
+
+	/**
+	 * Returns the cards the player has in their deck
+	 * @return Mask of the cards, one bit per Card
+	 */
+	public int getHand() {
+		return hand;
+	}
+
+	/**
+	 * Replaces all the cards in the players deck
+	 * @param hand Mask of the cards, one bit per Card
+	 */
+	public void setHand(int hand) {
+		this.hand = hand;
 	}
 
 	/**
@@ -62,15 +79,32 @@ public class Player implements Cloneable {
 	 * @return True if the given card is in their deck
 	 */
 	public boolean hasCard(String cardName){
-		return cards.contains(cardName);
+		return (hand & Card.bit(cardName)) != 0;
+	}
+
+	/**
+	 * Checks if this player has the card provided
+	 * @param card Card to check for in their deck
+	 * @return True if the given card is in their deck
+	 */
+	public boolean hasCard(Card card){
+		return (hand & card.bit()) != 0;
 	}
 
 	/**
 	 * Adds a card to the players deck
-	 * @param card Card to add ot the players deck
+	 * @param card Name of the card to add ot the players deck
 	 */
 	public void addCard(String card) {
-		cards.add(card);
+		addCard(Card.fromName(card));
+	}
+
+	/**
+	 * Adds a card to the players deck
+	 * @param card Card to add ot the players deck
+	 */
+	public void addCard(Card card) {
+		hand |= card.bit();
 	}
 
 	/**
@@ -3,7 +3,6 @@ package game;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import ui.Square;
 
@@ -112,14 +111,15 @@ public class Room implements Cloneable {
 
 	/**
 	 * Returns a random square inside this room
+	 * @param random Random source of the game
 	 * @return Square associated with the room
 	 */
-	public Square getRandomSquare(){
+	public Square getRandomSquare(GameRandom random){
 		Square randomSquare = null;
 
 		// Loop until we can find a random square in the Room that is NOT a door
 		while( randomSquare == null || (randomSquare instanceof Door) ){
-			randomSquare = squareList.get(new Random().nextInt(squareList.size()));
+			randomSquare = squareList.get(random.nextInt(squareList.size()));
 		}
 
 		// Return a random door
@@ -0,0 +1,71 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count of events, incremented from any thread.
+ * Backed by a LongAdder, so threads counting at the same time do not fight over one field.
+ *
+ */
+public class Counter implements CounterMBean {
+
+	private final String name;
+	private final LongAdder adder = new LongAdder();
+
+	// Count and time when the rate was last worked out
+	private long lastCount = 0;
+	private long lastTime = System.nanoTime();
+	private double rate = 0;
+
+	/**
+	 * Creates a counter at 0, use Metrics.counter to get one that is exported
+	 * @param name Name the counter is exported under
+	 */
+	public Counter(String name){
+		this.name = name;
+	}
+
+	public void increment(){
+		adder.increment();
+	}
+
+	public void add(long amount){
+		adder.add(amount);
+	}
+
+	@Override
+	public String getName(){
+		return name;
+	}
+
+	@Override
+	public long getCount(){
+		return adder.sum();
+	}
+
+	/**
+	 * Returns the events per second since the last time the rate was asked for
+	 * @return Events per second, the last rate when asked again within a second
+	 */
+	@Override
+	public synchronized double getRate(){
+		long now = System.nanoTime();
+		if( now - lastTime >= 1000000000L ){
+			long current = adder.sum();
+			rate = (current - lastCount) * 1e9 / (now - lastTime);
+			lastCount = current;
+			lastTime = now;
+		}
+		return rate;
+	}
+
+	@Override
+	public void reset(){
+		adder.reset();
+		synchronized( this ){
+			lastCount = 0;
+			lastTime = System.nanoTime();
+			rate = 0;
+		}
+	}
+}
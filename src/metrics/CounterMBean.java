@@ -0,0 +1,16 @@
+package metrics;
+
+/**
+ * Management interface of a Counter, as seen through JMX
+ *
+ */
+public interface CounterMBean {
+
+	String getName();
+
+	long getCount();
+
+	double getRate();
+
+	void reset();
+}
@@ -0,0 +1,169 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Histogram of latencies or counts, recorded from any thread without locking.
+ *
+ * Buckets follow the HdrHistogram layout: values below 128 have a bucket each, and every power of two above that is
+ * split into 64 buckets of equal width, so every value is stored within 1/64 (about 1.6%) of itself whatever its
+ * size. Recording is a few shifts and one atomic increment, the count, sum and max are kept in adders so threads
+recording at the same time do not fight over one field.
+ *
+ */
+public class Histogram implements HistogramMBean {
+
+	// Buckets in each power of two above the first, as a power of two
+	private static final int SUB_BITS = 6;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	// Largest value kept apart, larger values are counted in the last bucket
+	private static final long MAX_VALUE = (1L << 42) - 1;
+
+	private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+	private final String name;
+	private final String unit;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator() {
+
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.max(left, right);
+		}
+	}, 0);
+
+	/**
+	 * Creates an empty histogram, use Metrics.histogram to get one that is exported
+	 * @param name Name the histogram is exported under
+	 * @param unit Unit of the values, such as ns
+	 */
+	public Histogram(String name, String unit){
+		this.name = name;
+		this.unit = unit;
+	}
+
+	/**
+	 * Records one value
+	 * @param value Value to record, negative values are recorded as 0
+	 */
+	public void record(long value){
+		if( value < 0 ) value = 0;
+		counts.incrementAndGet(index(Math.min(value, MAX_VALUE)));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Records the time since the start
+	 * @param start Value of System.nanoTime() when the timed work started
+	 */
+	public void recordSince(long start){
+		record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Returns the bucket of the value
+	 */
+	private static int index(long value){
+		if( value < 2 * SUB_COUNT ) return (int)value;
+
+		// Keep the top bits of the value, the rest only decides the power of two
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift << SUB_BITS) + (int)(value >>> shift);
+	}
+
+	/**
+	 * Returns the largest value stored in the bucket
+	 */
+	private static long highest(int index){
+		if( index < 2 * SUB_COUNT ) return index;
+		int shift = (index >>> SUB_BITS) - 1;
+		long mantissa = index - ((long)shift << SUB_BITS);
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	/**
+	 * Returns the value the given fraction of the recorded values are at or below, to within the precision of the
+	 * buckets
+	 * @param fraction Fraction of the values, 0.99 for the 99th percentile
+	 * @return Value, 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction){
+		long total = count.sum();
+		if( total == 0 ) return 0;
+
+		long wanted = Math.max(1, (long)Math.ceil(fraction * total));
+		long seen = 0;
+		for( int index = 0; index < BUCKETS; index++ ){
+			seen += counts.get(index);
+			if( seen >= wanted ) return Math.min(highest(index), getMax());
+		}
+		return getMax();
+	}
+
+	@Override
+	public String getName(){
+		return name;
+	}
+
+	@Override
+	public String getUnit(){
+		return unit;
+	}
+
+	@Override
+	public long getCount(){
+		return count.sum();
+	}
+
+	@Override
+	public long getMax(){
+		return max.get();
+	}
+
+	@Override
+	public double getMean(){
+		long total = count.sum();
+		return total == 0 ? 0 : (double)sum.sum() / total;
+	}
+
+	@Override
+	public long get50thPercentile(){
+		return getPercentile(0.5);
+	}
+
+	@Override
+	public long get90thPercentile(){
+		return getPercentile(0.9);
+	}
+
+	@Override
+	public long get99thPercentile(){
+		return getPercentile(0.99);
+	}
+
+	@Override
+	public long get999thPercentile(){
+		return getPercentile(0.999);
+	}
+
+	/**
+	 * Forgets everything recorded, values recorded at the same time may be partly kept
+	 */
+	@Override
+	public void reset(){
+		for( int index = 0; index < BUCKETS; index++ ){
+			counts.set(index, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+/**
+ * Management interface of a Histogram, as seen through JMX
+ *
+ */
+public interface HistogramMBean {
+
+	String getName();
+
+	String getUnit();
+
+	long getCount();
+
+	long getMax();
+
+	double getMean();
+
+	long get50thPercentile();
+
+	long get90thPercentile();
+
+	long get99thPercentile();
+
+	long get999thPercentile();
+
+	void reset();
+}
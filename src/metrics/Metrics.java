@@ -0,0 +1,183 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the histograms and counters measuring the engine and the renderer.
+ *
+ * Code on a hot path keeps its Histogram or Counter in a static final field and records into it, guarded by ENABLED
+ * so that the timing is left out entirely when measuring is turned off with -Dcluedo.metrics=false.
+ *
+ * Everything registered can be exported as MBeans under the domain "cluedo", and printed as text, on demand or every
+ * so often.
+ *
+ * Names in use:
+ * <pre>
+ * controller.tick        time of Controller.tick, ns
+ * controller.suggestion  time to resolve a suggestion, ns
+ * astar.path             time of AStar.getPath, ns
+ * astar.expanded         squares expanded by one AStar.getPath
+ * board.setUp            time of Board.setUp, ns
+ * panel.paint            time of BoardPanel.paintComponent, ns
+ * games.finished         games that reached GAME_OVER
+ * </pre>
+ *
+ */
+public class Metrics {
+
+	public static final boolean ENABLED = !"false".equals(System.getProperty("cluedo.metrics"));
+
+	private static final String DOMAIN = "cluedo";
+
+	private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+	private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	private static MBeanServer server = null;
+	private static ScheduledExecutorService dumper = null;
+
+	private Metrics(){
+	}
+
+	/**
+	 * Returns the histogram with the name, creating it the first time
+	 * @param name Name of the histogram
+	 * @param unit Unit of the values, used when it is created
+	 * @return Histogram shared by everyone using the name
+	 */
+	public static Histogram histogram(String name, String unit){
+		Histogram histogram = histograms.get(name);
+		if( histogram == null ){
+			Histogram created = new Histogram(name, unit);
+			histogram = histograms.putIfAbsent(name, created);
+			if( histogram == null ){
+				histogram = created;
+				register("Histogram", name, created);
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Returns the counter with the name, creating it the first time
+	 * @param name Name of the counter
+	 * @return Counter shared by everyone using the name
+	 */
+	public static Counter counter(String name){
+		Counter counter = counters.get(name);
+		if( counter == null ){
+			Counter created = new Counter(name);
+			counter = counters.putIfAbsent(name, created);
+			if( counter == null ){
+				counter = created;
+				register("Counter", name, created);
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Exports every histogram and counter, and the ones created later, to the platform MBean server
+	 */
+	public static synchronized void exportJmx(){
+		if( server != null ) return;
+		server = ManagementFactory.getPlatformMBeanServer();
+		for( Histogram histogram : histograms.values() ){
+			register("Histogram", histogram.getName(), histogram);
+		}
+		for( Counter counter : counters.values() ){
+			register("Counter", counter.getName(), counter);
+		}
+	}
+
+	private static synchronized void register(String type, String name, Object bean){
+		if( server == null ) return;
+		try {
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+			if( !server.isRegistered(objectName) ) server.registerMBean(bean, objectName);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes every histogram and counter as one line each, sorted by name
+	 * @param out Stream to write to
+	 */
+	public static void dump(PrintStream out){
+		StringBuilder text = new StringBuilder();
+		for( Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(histograms).entrySet() ){
+			Histogram histogram = entry.getValue();
+			if( histogram.getCount() == 0 ) continue;
+			boolean nanos = histogram.getUnit().equals("ns");
+			text.append(String.format("%-22s count=%d mean=%s p50=%s p99=%s p999=%s max=%s%n", entry.getKey(),
+					histogram.getCount(), format(histogram.getMean(), nanos), format(histogram.get50thPercentile(), nanos),
+					format(histogram.get99thPercentile(), nanos), format(histogram.get999thPercentile(), nanos),
+					format(histogram.getMax(), nanos)));
+		}
+		for( Map.Entry<String, Counter> entry : new TreeMap<String, Counter>(counters).entrySet() ){
+			Counter counter = entry.getValue();
+			text.append(String.format("%-22s count=%d rate=%.1f/s%n", entry.getKey(), counter.getCount(),
+					counter.getRate()));
+		}
+		out.print(text);
+		out.flush();
+	}
+
+	/**
+	 * Formats a value, times in microseconds
+	 */
+	private static String format(double value, boolean nanos){
+		return nanos ? String.format("%.1fus", value / 1000) : String.format("%.0f", value);
+	}
+
+	/**
+	 * Starts writing the metrics every period, on a daemon thread
+	 * @param period Time between the dumps
+	 * @param unit Unit of the period
+	 * @param out Stream to write to
+	 * @return Handle to stop the dumps with
+	 */
+	public static synchronized ScheduledFuture<?> startDump(long period, TimeUnit unit, final PrintStream out){
+		if( dumper == null ){
+			dumper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable){
+					Thread thread = new Thread(runnable, "cluedo-metrics");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return dumper.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run(){
+				dump(out);
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Forgets everything recorded so far, the histograms and counters stay registered
+	 */
+	public static void reset(){
+		for( Histogram histogram : histograms.values() ){
+			histogram.reset();
+		}
+		for( Counter counter : counters.values() ){
+			counter.reset();
+		}
+	}
+}
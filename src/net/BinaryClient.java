@@ -0,0 +1,99 @@
+package net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Blocking client for the BinaryServer, sending one request at a time.
+ * Start a request with begin, put its arguments into the returned buffer, then call and read the reply from
+ * getReply.
+ *
+ */
+public class BinaryClient implements Closeable {
+
+	private final SocketChannel channel;
+	private final ByteBuffer out = ByteBuffer.allocate(BinaryServer.BUFFER_SIZE);
+	private final ByteBuffer in = ByteBuffer.allocate(BinaryServer.BUFFER_SIZE);
+
+	/**
+	 * Connects to a server on the loopback interface
+	 * @param port Port of the server
+	 * @throws IOException If it can not connect
+	 */
+	public BinaryClient(int port) throws IOException {
+		channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+	}
+
+	/**
+	 * Starts a request
+	 * @param op Op code of the request
+	 * @return Buffer to put the arguments into
+	 */
+	public ByteBuffer begin(int op){
+		out.clear();
+		out.putShort((short)0);
+		out.put((byte)op);
+		return out;
+	}
+
+	/**
+	 * Sends the request and waits for its reply
+	 * @return Result of the reply, OK, ERROR or BUSY
+	 * @throws IOException If the connection is lost
+	 */
+	public int call() throws IOException {
+		out.putShort(0, (short)(out.position() - 2));
+		out.flip();
+		while( out.hasRemaining() ){
+			channel.write(out);
+		}
+
+		// Read the length, then the rest of the frame
+		in.clear();
+		in.limit(2);
+		fill();
+		int length = in.getShort(0) & 0xffff;
+		in.limit(2 + length);
+		fill();
+		in.position(2);
+		in.get();
+		return in.get() & 0xff;
+	}
+
+	private void fill() throws IOException {
+		while( in.hasRemaining() ){
+			if( channel.read(in) < 0 ) throw new EOFException("Server hung up");
+		}
+	}
+
+	/**
+	 * Returns the reply to the last call, positioned after its result
+	 * @return Rest of the reply
+	 */
+	public ByteBuffer getReply(){
+		return in;
+	}
+
+	/**
+	 * Returns the rest of the reply as text, the message of an ERROR or BUSY reply
+	 * @return Message
+	 */
+	public String getMessage(){
+		byte[] bytes = new byte[in.remaining()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,544 @@
+package net;
+
+import game.Card;
+import game.Piece;
+import game.Player;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import control.AMove_Node;
+import control.Controller;
+import control.SuggestionResult;
+
+/**
+ * Non blocking server for remote players, speaking a compact binary protocol to the tables of a GameHost.
+ *
+ * One selector thread reads every connection and decodes the requests, which are handed to the table as a Task. The
+ * table's thread encodes the reply straight from the controller into a pooled direct buffer and queues it on the
+ * connection; the selector thread then writes everything queued on a connection in one gathering write.
+ *
+ * Every frame starts with its length as an unsigned short, not counting the length itself, followed by the op code.
+ * Requests, numbers are bytes unless marked int:
+ * <pre>
+ * OPEN players people   JOIN int table, seat     CLOSE
+ * STATE                 HAND                     ROLL
+ * MOVE count, count x y squares                  SUGGEST character weapon
+ * REVEAL card           ACCUSE character weapon room                  FINISH
+ * </pre>
+ * Replies repeat the op code, then a result of OK, ERROR or BUSY. Errors carry a UTF-8 message, OK replies:
+ * <pre>
+ * OPEN    int table
+ * STATE   status, current seat, dice, moves left, int turns, x y of every piece
+ * HAND    int cards, one bit per Card
+ * ROLL    dice
+ * MOVE    x y, room card or 255 in the corridor
+ * SUGGEST disprover and card shown, 255 for none or a card not shown to the seat
+ * ACCUSE  1 if right, 0 if wrong
+ * </pre>
+ * Cards are sent as the ordinal of the Card. Replies come back in the order of the requests, a client waits for the
+ * reply to OPEN, JOIN and CLOSE before sending anything else as those are answered by the selector thread. The
+ * tables a connection opened are closed when it hangs up.
+ *
+ */
+public class BinaryServer implements Closeable {
+
+	// Largest frame, including the length
+	public static final int BUFFER_SIZE = 4096;
+
+	public static final int OPEN = 1;
+	public static final int JOIN = 2;
+	public static final int CLOSE = 3;
+	public static final int STATE = 4;
+	public static final int HAND = 5;
+	public static final int ROLL = 6;
+	public static final int MOVE = 7;
+	public static final int SUGGEST = 8;
+	public static final int REVEAL = 9;
+	public static final int ACCUSE = 10;
+	public static final int FINISH = 11;
+
+	public static final int OK = 0;
+	public static final int ERROR = 1;
+	public static final int BUSY = 2;
+
+	// Marks no seat, card or room in a reply
+	public static final int NONE = 255;
+
+	// Most replies written to a connection in one go
+	private static final int BATCH = 64;
+
+	private final GameHost host;
+	private final BufferPool pool = new BufferPool(BUFFER_SIZE, 1024);
+
+	// Connections with replies queued by the table threads
+	private final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<Connection>();
+
+	private Selector selector;
+	private ServerSocketChannel server;
+	private Thread thread;
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a server for the tables of the host
+	 * @param host Host opening and playing the tables
+	 */
+	public BinaryServer(GameHost host){
+		this.host = host;
+	}
+
+	/**
+	 * Starts accepting connections on the loopback interface
+	 * @param port Port to listen on, 0 for any free port
+	 * @return Port the server is listening on
+	 * @throws IOException If the port can not be opened
+	 */
+	public int start(int port) throws IOException {
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run(){
+				select();
+			}
+		}, "cluedo-binary");
+		thread.setDaemon(true);
+		thread.start();
+		return ((InetSocketAddress)server.getLocalAddress()).getPort();
+	}
+
+	private void select(){
+		while( !closed ){
+			try {
+				selector.select();
+
+				// Replies queued since the last time round
+				for( Connection connection = ready.poll(); connection != null; connection = ready.poll() ){
+					connection.flush();
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while( keys.hasNext() ){
+					SelectionKey key = keys.next();
+					keys.remove();
+					if( !key.isValid() ) continue;
+
+					if( key.isAcceptable() ){
+						accept();
+					}
+					else{
+						Connection connection = (Connection)key.attachment();
+						if( key.isReadable() ) connection.read();
+						if( key.isValid() && key.isWritable() ) connection.flush();
+					}
+				}
+			} catch (IOException e) {
+				if( !closed ) e.printStackTrace();
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if( channel == null ) return;
+		channel.configureBlocking(false);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		Connection connection = new Connection(channel);
+		connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+	}
+
+	/**
+	 * Stops the selector thread and hangs up every connection, which closes the tables they opened
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		if( selector == null ) return;
+		selector.wakeup();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for( SelectionKey key : selector.keys() ){
+			if( key.attachment() instanceof Connection ) ((Connection)key.attachment()).close();
+		}
+		server.close();
+		selector.close();
+	}
+
+	public BufferPool getPool(){
+		return pool;
+	}
+
+	/**
+	 * Returns the card sent as an ordinal, checking it is of the right kind
+	 */
+	private static Card card(int ordinal, int kind){
+		Card[] cards = Card.values();
+		if( ordinal >= cards.length || (cards[ordinal].bit() & kind) == 0 ){
+			throw new IllegalArgumentException("not a card of that kind: " + ordinal);
+		}
+		return cards[ordinal];
+	}
+
+	/**
+	 * Starts a reply frame, leaving room for the length
+	 */
+	private static void begin(ByteBuffer reply, int op, int result){
+		reply.clear();
+		reply.putShort((short)0);
+		reply.put((byte)op);
+		reply.put((byte)result);
+	}
+
+	/**
+	 * Ends a reply frame by filling in its length
+	 */
+	private static void end(ByteBuffer reply){
+		reply.putShort(0, (short)(reply.position() - 2));
+		reply.flip();
+	}
+
+	private static void error(ByteBuffer reply, int op, int result, String message){
+		begin(reply, op, result);
+		byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+		reply.put(bytes, 0, Math.min(bytes.length, reply.remaining()));
+		end(reply);
+	}
+
+	/**
+	 * One remote player, only read by the selector thread
+	 */
+	private class Connection {
+
+		final SocketChannel channel;
+		SelectionKey key;
+
+		// Partly read frames
+		final ByteBuffer in = pool.acquire();
+
+		// Replies from any thread, and the ones the socket did not take yet from the selector thread
+		final ConcurrentLinkedQueue<ByteBuffer> out = new ConcurrentLinkedQueue<ByteBuffer>();
+		final ArrayDeque<ByteBuffer> pending = new ArrayDeque<ByteBuffer>();
+		final ByteBuffer[] batch = new ByteBuffer[BATCH];
+		final AtomicBoolean queued = new AtomicBoolean();
+
+		GameSession session;
+		int seat;
+		volatile boolean closed = false;
+
+		// Tables this connection opened, closed when it hangs up
+		final ArrayList<Integer> opened = new ArrayList<Integer>();
+
+		Connection(SocketChannel channel){
+			this.channel = channel;
+		}
+
+		/**
+		 * Reads what has arrived and handles every whole frame
+		 */
+		void read(){
+			try {
+				if( channel.read(in) < 0 ){
+					close();
+					return;
+				}
+			} catch (IOException e) {
+				close();
+				return;
+			}
+
+			in.flip();
+			while( in.remaining() >= 2 ){
+				int length = in.getShort(in.position()) & 0xffff;
+				if( length == 0 || length > BUFFER_SIZE - 2 ){
+
+					// Not speaking the protocol
+					close();
+					return;
+				}
+				if( in.remaining() < 2 + length ) break;
+
+				int end = in.position() + 2 + length;
+				int limit = in.limit();
+				in.position(in.position() + 2);
+				in.limit(end);
+				handle(in);
+				in.limit(limit);
+				in.position(end);
+			}
+			in.compact();
+		}
+
+		/**
+		 * Decodes one request, the buffer holds exactly its op code and arguments
+		 */
+		void handle(ByteBuffer frame){
+			int op = frame.get() & 0xff;
+			try {
+				switch( op ){
+				case OPEN:
+					GameSession table = host.openTable(frame.get(), frame.get());
+					opened.add(table.getId());
+					ByteBuffer reply = pool.acquire();
+					begin(reply, op, OK);
+					reply.putInt(table.getId());
+					end(reply);
+					send(reply);
+					return;
+				case JOIN:
+					GameSession joined = host.getTable(frame.getInt());
+					int joinedSeat = frame.get() & 0xff;
+					if( joined == null ) throw new IllegalArgumentException("no such table");
+					if( joinedSeat >= joined.getPeople() ) throw new IllegalArgumentException("seat is not for people");
+					session = joined;
+					seat = joinedSeat;
+					sendEmpty(op);
+					return;
+				}
+
+				if( session == null ) throw new IllegalStateException("join a table first");
+				switch( op ){
+				case CLOSE:
+					host.closeTable(session.getId());
+					opened.remove(Integer.valueOf(session.getId()));
+					session = null;
+					sendEmpty(op);
+					return;
+				case STATE:
+				case HAND:
+				case ROLL:
+				case FINISH:
+					session.execute(new Request(op, seat, 0, 0, 0, null));
+					return;
+				case REVEAL:
+					session.execute(new Request(op, seat, frame.get() & 0xff, 0, 0, null));
+					return;
+				case SUGGEST:
+					session.execute(new Request(op, seat, card(frame.get() & 0xff, Card.CHARACTERS).ordinal(),
+							card(frame.get() & 0xff, Card.WEAPONS).ordinal(), 0, null));
+					return;
+				case ACCUSE:
+					session.execute(new Request(op, seat, card(frame.get() & 0xff, Card.CHARACTERS).ordinal(),
+							card(frame.get() & 0xff, Card.WEAPONS).ordinal(), card(frame.get() & 0xff, Card.ROOMS)
+									.ordinal(), null));
+					return;
+				case MOVE:
+
+					// Build the path back to front, the decoding is done here so the table only moves the piece
+					int count = frame.get() & 0xff;
+					if( count == 0 || frame.remaining() != 2 * count ) throw new IllegalArgumentException("bad path");
+					int squares = frame.position();
+					AMove_Node path = null;
+					for( int index = count - 1; index >= 0; index-- ){
+						Point point = new Point(frame.get(squares + 2 * index) & 0xff,
+								frame.get(squares + 2 * index + 1) & 0xff);
+						path = new AMove_Node(point, 0, 0, path);
+					}
+					session.execute(new Request(op, seat, 0, 0, 0, path));
+					return;
+				default:
+					throw new IllegalArgumentException("unknown op " + op);
+				}
+			} catch (HostFullException e) {
+				sendError(op, BUSY, e.getMessage());
+			} catch (BufferUnderflowException e) {
+				sendError(op, ERROR, "frame too short");
+			} catch (RuntimeException e) {
+				sendError(op, ERROR, e.getMessage());
+			}
+		}
+
+		void sendEmpty(int op){
+			ByteBuffer reply = pool.acquire();
+			begin(reply, op, OK);
+			end(reply);
+			send(reply);
+		}
+
+		void sendError(int op, int result, String message){
+			ByteBuffer reply = pool.acquire();
+			error(reply, op, result, message);
+			send(reply);
+		}
+
+		/**
+		 * Queues a reply from any thread, waking the selector only for the first reply since the last write
+		 */
+		void send(ByteBuffer reply){
+			if( closed ){
+				pool.release(reply);
+				return;
+			}
+			out.add(reply);
+			if( queued.compareAndSet(false, true) ){
+				ready.add(this);
+				selector.wakeup();
+			}
+		}
+
+		/**
+		 * Writes as many queued replies as the socket takes, on the selector thread
+		 */
+		void flush(){
+			queued.set(false);
+			if( closed ) return;
+			for( ByteBuffer reply = out.poll(); reply != null; reply = out.poll() ){
+				pending.add(reply);
+			}
+
+			try {
+				while( !pending.isEmpty() ){
+					int count = 0;
+					long wanted = 0;
+					for( ByteBuffer reply : pending ){
+						if( count == BATCH ) break;
+						batch[count++] = reply;
+						wanted += reply.remaining();
+					}
+					long written = channel.write(batch, 0, count);
+
+					// Give back the replies written in full
+					while( !pending.isEmpty() && !pending.peek().hasRemaining() ){
+						pool.release(pending.poll());
+					}
+					if( written < wanted ) break;
+				}
+			} catch (IOException e) {
+				close();
+				return;
+			}
+
+			// Wait for the socket to drain before writing the rest
+			key.interestOps(pending.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+
+		void close(){
+			if( closed ) return;
+			closed = true;
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+			}
+			pool.release(in);
+			for( ByteBuffer reply : pending ){
+				pool.release(reply);
+			}
+			for( ByteBuffer reply = out.poll(); reply != null; reply = out.poll() ){
+				pool.release(reply);
+			}
+			for( int id : opened ){
+				host.closeTable(id);
+			}
+		}
+
+		/**
+		 * Decoded request, run and encoded on the table's thread
+		 */
+		private class Request extends GameSession.Task {
+
+			final int op;
+			final int seat;
+			final int first;
+			final int second;
+			final int third;
+			final AMove_Node path;
+
+			Request(int op, int seat, int first, int second, int third, AMove_Node path){
+				this.op = op;
+				this.seat = seat;
+				this.first = first;
+				this.second = second;
+				this.third = third;
+				this.path = path;
+			}
+
+			@Override
+			protected void run(){
+				ByteBuffer reply = pool.acquire();
+				try {
+					begin(reply, op, OK);
+					encode(reply);
+					end(reply);
+				} catch (Exception e) {
+					error(reply, op, ERROR, e.getMessage());
+				}
+				send(reply);
+			}
+
+			private void encode(ByteBuffer reply) throws Exception {
+				Card[] cards = Card.values();
+				Controller controller = session.getController();
+				switch( op ){
+				case STATE:
+					reply.put((byte)controller.getStatus().ordinal());
+					reply.put((byte)controller.getCurrentPlayerIndex());
+					reply.put((byte)controller.getDiceRoll());
+					reply.put((byte)controller.getMovesRemaining());
+					reply.putInt(controller.getTurns());
+					for( Player player : controller.getPlayers() ){
+						reply.put((byte)player.getPiece().getPosition().x);
+						reply.put((byte)player.getPiece().getPosition().y);
+					}
+					break;
+				case HAND:
+					reply.putInt(controller.getPlayers()[seat].getHand());
+					break;
+				case ROLL:
+					reply.put((byte)session.roll(seat));
+					break;
+				case MOVE:
+					Piece piece = session.move(seat, path);
+					reply.put((byte)piece.getPosition().x);
+					reply.put((byte)piece.getPosition().y);
+					reply.put((byte)(piece.isInRoom() ? Card.fromName(piece.getRoom().getName()).ordinal() : NONE));
+					break;
+				case SUGGEST:
+					SuggestionResult result = session.suggest(seat, cards[first], cards[second]);
+					reply.put((byte)(result.isDisproved() ? result.getDisprover() : NONE));
+					reply.put((byte)(result.isDisproved() ? result.getShown().ordinal() : NONE));
+					break;
+				case REVEAL:
+					if( first >= cards.length ) throw new IllegalArgumentException("no such card");
+					session.reveal(seat, cards[first]);
+					break;
+				case ACCUSE:
+					reply.put((byte)(session.accuse(seat, cards[first], cards[second], cards[third]) ? 1 : 0));
+					break;
+				case FINISH:
+					session.finish(seat);
+					break;
+				}
+			}
+
+			@Override
+			protected void cancel(){
+				ByteBuffer reply = pool.acquire();
+				error(reply, op, ERROR, "table closed");
+				send(reply);
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct buffers of one size, shared by the selector thread and the table threads.
+ * Direct buffers are written to the socket without being copied first, but are slow to allocate and only freed by
+ * the garbage collector, so they are kept and handed out again instead.
+ *
+ */
+public class BufferPool {
+
+	private final int bufferSize;
+	private final int maxPooled;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger pooled = new AtomicInteger();
+	private final AtomicInteger allocated = new AtomicInteger();
+
+	/**
+	 * Creates an empty pool
+	 * @param bufferSize Capacity of every buffer
+	 * @param maxPooled Most buffers kept for later, the rest are left to the garbage collector
+	 */
+	public BufferPool(int bufferSize, int maxPooled){
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Takes a cleared buffer from the pool, allocating one when it is empty
+	 * @return Buffer to fill
+	 */
+	public ByteBuffer acquire(){
+		ByteBuffer buffer = free.poll();
+		if( buffer == null ){
+			allocated.incrementAndGet();
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+		pooled.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Gives a buffer back, it must not be used afterwards
+	 * @param buffer Buffer taken from this pool
+	 */
+	public void release(ByteBuffer buffer){
+		if( pooled.incrementAndGet() <= maxPooled ){
+			free.offer(buffer);
+		}
+		else{
+			pooled.decrementAndGet();
+		}
+	}
+
+	public int getBufferSize(){
+		return bufferSize;
+	}
+
+	/**
+	 * Returns how many buffers the pool had to allocate, which stops growing once it is warm
+	 * @return Number of buffers allocated
+	 */
+	public int getAllocated(){
+		return allocated.get();
+	}
+}
@@ -0,0 +1,370 @@
+package net;
+
+import game.GameRandom;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import control.Controller;
+
+/**
+ * Hosts many tables in one JVM behind a line based protocol on the loopback interface.
+ *
+ * Every connection and every table runs on its own virtual thread, so a table waiting for a person costs a parked
+ * virtual thread and not a platform thread. Two limits keep the host healthy: a new table is only admitted while
+ * the number of tables and the memory charged to them are within their budgets, and only a fixed number of tables
+ * may be working at the same time, the rest wait for an active permit.
+ *
+ * The memory of a table is measured once per process, as the heap still in use after a collection once a batch of
+ * sample tables has been built, and charged to every table until it is closed.
+ *
+ * A connection starts with one of:
+ * <pre>
+ * NEW players people  open a table, people seats for people and bots in the rest, replies OK id
+ * JOIN id seat        play a seat of a table
+ * CLOSE               close the table that was joined
+ * QUIT                hang up
+ * </pre>
+ * After joining, every other line is a command for the GameSession. The tables a connection opened are closed when
+ * it hangs up, so a client that goes away does not keep its tables charged to the budgets.
+ *
+ */
+public class GameHost implements Closeable {
+
+	// Memory charged to a table when the allocations can not be measured
+	private static final long DEFAULT_TABLE_BYTES = 256 * 1024;
+
+	// Stack and bookkeeping of a parked virtual thread
+	private static final long THREAD_BYTES = 2 * 1024;
+
+	// Tables built to measure the memory of one, enough that the noise of a collection is small next to them
+	private static final int SAMPLE_TABLES = 32;
+
+	// Memory of a table once measured, 0 until the first host is created
+	private static long measuredTableBytes = 0;
+
+	private final int maxTables;
+	private final int maxActive;
+	private final long memoryBudget;
+	private final Semaphore active;
+	private final long tableBytes;
+
+	private final ConcurrentHashMap<Integer, GameSession> sessions = new ConcurrentHashMap<Integer, GameSession>();
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final AtomicLong usedBytes = new AtomicLong();
+
+	// Tables open or being opened, only changed together with usedBytes while holding the lock of the host
+	private int reserved = 0;
+	private final GameRandom seeds = new GameRandom();
+
+	private ServerSocket server;
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a host
+	 * @param maxTables Most tables open at the same time
+	 * @param maxActive Most tables working at the same time
+	 * @param memoryBudget Most memory charged to the open tables, in bytes
+	 */
+	public GameHost(int maxTables, int maxActive, long memoryBudget){
+		this.maxTables = maxTables;
+		this.memoryBudget = memoryBudget;
+		this.maxActive = maxActive;
+		this.active = new Semaphore(maxActive);
+		this.tableBytes = measureTableBytes();
+	}
+
+	/**
+	 * Starts accepting connections on the loopback interface
+	 * @param port Port to listen on, 0 for any free port
+	 * @return Port the host is listening on
+	 * @throws IOException If the port can not be opened
+	 */
+	public int start(int port) throws IOException {
+		server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		Thread.ofVirtual().name("cluedo-accept").start(new Runnable() {
+			@Override
+			public void run(){
+				accept();
+			}
+		});
+		return server.getLocalPort();
+	}
+
+	private void accept(){
+		while( !closed ){
+			try {
+				final Socket socket = server.accept();
+				Thread.ofVirtual().start(new Runnable() {
+					@Override
+					public void run(){
+						serve(socket);
+					}
+				});
+			} catch (IOException e) {
+				if( !closed ) e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Answers the lines of one connection until it hangs up
+	 */
+	private void serve(Socket socket){
+		List<Integer> opened = null;
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+					StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(),
+					StandardCharsets.UTF_8), true);
+
+			GameSession session = null;
+			int seat = -1;
+
+			// Closed when the connection ends
+			opened = new ArrayList<Integer>();
+			for( String line = in.readLine(); line != null; line = in.readLine() ){
+				String[] words = line.trim().split("\\s+");
+				String command = words[0].toUpperCase();
+
+				if( command.equals("QUIT") ) break;
+				try {
+					if( command.equals("NEW") ){
+						GameSession created = openTable(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+						opened.add(created.getId());
+						out.println("OK " + created.getId());
+					}
+					else if( command.equals("JOIN") ){
+						GameSession joined = sessions.get(Integer.parseInt(words[1]));
+						int joinedSeat = Integer.parseInt(words[2]);
+						if( joined == null ){
+							out.println("ERR no table " + words[1]);
+						}
+						else if( joinedSeat < 0 || joinedSeat >= joined.getPeople() ){
+							out.println("ERR seat " + joinedSeat + " is not for people");
+						}
+						else{
+							session = joined;
+							seat = joinedSeat;
+							out.println("OK");
+						}
+					}
+					else if( session == null ){
+						out.println("ERR join a table first");
+					}
+					else if( command.equals("CLOSE") ){
+						closeTable(session.getId());
+						opened.remove(Integer.valueOf(session.getId()));
+						session = null;
+						out.println("OK");
+					}
+					else{
+						out.println(session.submit(seat, words));
+					}
+				} catch (HostFullException e) {
+					out.println("BUSY " + e.getMessage());
+				} catch (RuntimeException e) {
+					out.println("ERR " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+
+			// Connection dropped
+		} catch (InterruptedException e) {
+
+			// Host closed
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+			if( opened != null ){
+				for( int id : opened ){
+					closeTable(id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens a new table, if the host can take it
+	 * @param players Number of seats, 3 - 6
+	 * @param people Number of seats played by people, the others are bots
+	 * @return The new table, already running
+	 * @throws HostFullException If there are too many tables or not enough memory left
+	 */
+	public GameSession openTable(int players, int people) throws HostFullException {
+		if( players < 3 || players > 6 || people < 0 || people > players ){
+			throw new IllegalArgumentException("Can not seat " + people + " people at " + players + " seats");
+		}
+		if( closed ) throw new HostFullException("host closed");
+
+		// Reserve the table and its memory before building it, so tables opened at the same time can not overrun the
+		// budgets
+		synchronized( this ){
+			if( reserved >= maxTables ) throw new HostFullException("table limit " + maxTables);
+			if( usedBytes.get() + tableBytes > memoryBudget ) throw new HostFullException("memory limit " + memoryBudget);
+			reserved++;
+			usedBytes.addAndGet(tableBytes);
+		}
+
+		long seed;
+		synchronized( seeds ){
+			seed = seeds.nextLong();
+		}
+
+		GameSession session;
+		try {
+			session = new GameSession(nextId.incrementAndGet(), this, players, people, tableBytes, seed);
+		} catch (RuntimeException e) {
+			unreserve(tableBytes);
+			throw e;
+		}
+		sessions.put(session.getId(), session);
+		session.start();
+		return session;
+	}
+
+	/**
+	 * Closes a table and gives back its memory
+	 * @param id Number of the table
+	 */
+	public void closeTable(int id){
+		GameSession session = sessions.remove(id);
+		if( session != null ){
+			session.close();
+			unreserve(session.getBytes());
+		}
+	}
+
+	/**
+	 * Gives back a table reserved by openTable
+	 * @param bytes Memory charged to the table
+	 */
+	private synchronized void unreserve(long bytes){
+		reserved--;
+		usedBytes.addAndGet(-bytes);
+	}
+
+	public GameSession getTable(int id){
+		return sessions.get(id);
+	}
+
+	/**
+	 * Returns the number of open tables
+	 * @return Number of tables
+	 */
+	public int getTableCount(){
+		return sessions.size();
+	}
+
+	/**
+	 * Returns the number of tables working right now
+	 * @return Number of tables holding an active permit
+	 */
+	public int getActiveCount(){
+		return maxActive - active.availablePermits();
+	}
+
+	/**
+	 * Returns the memory charged to the open tables
+	 * @return Number of bytes
+	 */
+	public long getUsedBytes(){
+		return usedBytes.get();
+	}
+
+	/**
+	 * Returns the memory charged to every table
+	 * @return Number of bytes
+	 */
+	public long getTableBytes(){
+		return tableBytes;
+	}
+
+	void acquire() throws InterruptedException {
+		active.acquire();
+	}
+
+	void release(){
+		active.release();
+	}
+
+	/**
+	 * Stops accepting connections and closes every table
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		for( Integer id : sessions.keySet() ){
+			closeTable(id);
+		}
+		if( server != null ) server.close();
+	}
+
+	/**
+	 * Measures the heap kept by a table, once per process as it needs a collection
+	 */
+	private static synchronized long measureTableBytes(){
+		if( measuredTableBytes == 0 ) measuredTableBytes = measureRetainedBytes();
+		return measuredTableBytes;
+	}
+
+	/**
+	 * Builds a batch of tables and divides the growth of the heap still in use after a collection between them.
+	 * The first table is built before so the board layout it loads is not counted.
+	 */
+	private static long measureRetainedBytes(){
+		GameSession.newTable(6, new GameRandom(0));
+
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		Controller[] tables = new Controller[SAMPLE_TABLES];
+		long before = usedAfterCollection(memory);
+		for( int table = 0; table < SAMPLE_TABLES; table++ ){
+			tables[table] = GameSession.newTable(6, new GameRandom(table));
+		}
+		long after = usedAfterCollection(memory);
+		Reference.reachabilityFence(tables);
+
+		if( after > before ) return (after - before) / SAMPLE_TABLES + THREAD_BYTES;
+		return measureAllocatedBytes();
+	}
+
+	private static long usedAfterCollection(MemoryMXBean memory){
+		memory.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Counts the bytes allocated building a table, used when the collector did not give back a usable figure.
+	 * Everything allocated is counted, garbage included, so this is an upper bound of the memory kept by the table.
+	 */
+	private static long measureAllocatedBytes(){
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if( bean instanceof com.sun.management.ThreadMXBean ){
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+			long before = threads.getCurrentThreadAllocatedBytes();
+			GameSession.newTable(6, new GameRandom(0));
+			long after = threads.getCurrentThreadAllocatedBytes();
+			if( before >= 0 && after > before ) return after - before + THREAD_BYTES;
+		}
+		return DEFAULT_TABLE_BYTES;
+	}
+}
@@ -0,0 +1,507 @@
+package net;
+
+import game.Card;
+import game.GameRandom;
+import game.InvalidMoveException;
+import game.Piece;
+import game.Player;
+import game.Room;
+
+import java.awt.Point;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import ui.Board;
+import ai.AutoPlayer;
+import control.AMove_Node;
+import control.CardChoice;
+import control.Controller;
+import control.Controller.Status;
+import control.SuggestionResult;
+
+/**
+ * One table hosted by a GameHost, with its own headless Board and Controller.
+ *
+ * The table is played by a single virtual thread: seats played by bots are ticked straight away, and when it is the
+ * turn of a person the thread waits on the queue of commands, which parks it without holding a platform thread. A
+ * command is run on the table's thread and its reply handed back to the connection that sent it, so the Controller
+ * is only ever used by one thread. The thread holds one of the host's active permits only while it is working.
+ *
+ * Commands are words, cards are written as their enum names:
+ * <pre>
+ * STATE                     status, current player, dice and turns
+ * HAND                      cards of the seat
+ * ROLL                      roll the dice
+ * MOVE room                 walk towards the room, as far as the dice allows
+ * SUGGEST character weapon  suggest in the room the piece is in
+ * REVEAL card               card to show first when disproving a suggestion
+ * ACCUSE character weapon room
+ * END                       finish the turn
+ * </pre>
+ * The same turn actions are offered to the BinaryServer as methods, run inside a Task on the table's thread.
+ *
+ */
+public class GameSession {
+
+	private final int id;
+	private final GameHost host;
+	private final Board board;
+	private final Controller controller;
+	private final int people;
+	private final long bytes;
+	private final SpectatorFeed feed;
+
+	// Commands from the connections, waiting for the table's thread
+	private final LinkedBlockingQueue<Task> commands = new LinkedBlockingQueue<Task>();
+
+	// Card each seat prefers to show when disproving a suggestion
+	private final int[] reveal;
+
+	private Thread thread;
+	private volatile boolean closed = false;
+	private volatile boolean finished = false;
+
+	/**
+	 * Creates a table, the first seats are played by people and the rest by bots
+	 * @param id Number of the table on the host
+	 * @param host Host the table belongs to
+	 * @param players Number of seats, 3 - 6
+	 * @param people Number of seats played by people
+	 * @param bytes Memory charged to the table by the host
+	 * @param seed Seed of the game
+	 */
+	GameSession(int id, GameHost host, int players, int people, long bytes, long seed){
+		this.id = id;
+		this.host = host;
+		this.people = people;
+		this.bytes = bytes;
+
+		GameRandom random = new GameRandom(seed);
+		controller = newTable(players, random);
+		board = controller.getBoard();
+		feed = new SpectatorFeed(controller);
+
+		AutoPlayer bot = new AutoPlayer(random.split());
+		for( int seat = people; seat < players; seat++ ){
+			controller.setStrategy(seat, bot);
+		}
+
+		// Suggestions are resolved straight away, so people choose the card to show in advance
+		reveal = new int[players];
+		controller.setCardChoice(new CardChoice() {
+			@Override
+			public Card choose(Controller controller, int seat, int cards){
+				return Card.first((reveal[seat] & cards) != 0 ? reveal[seat] & cards : cards);
+			}
+		});
+	}
+
+	/**
+	 * Sets up a board and controller with the cards dealt
+	 */
+	static Controller newTable(int players, GameRandom random){
+		Player[] seats = new Player[players];
+		for( int seat = 0; seat < players; seat++ ){
+			seats[seat] = new Player("Player " + (seat + 1), Card.get(seat).getName());
+		}
+
+		Board board = new Board(random);
+		board.setUp(seats);
+		Controller controller = new Controller(board);
+		controller.setPlayers(seats);
+		controller.dealCards();
+		return controller;
+	}
+
+	/**
+	 * Starts the virtual thread playing the table
+	 */
+	void start(){
+		thread = Thread.ofVirtual().name("cluedo-table-" + id).start(new Runnable() {
+			@Override
+			public void run(){
+				play();
+			}
+		});
+	}
+
+	/**
+	 * Sends a command to the table and waits for the reply
+	 * @param seat Seat of the person sending it
+	 * @param words Command and its arguments
+	 * @return Reply to send back
+	 */
+	public String submit(int seat, String[] words) throws InterruptedException {
+		Command command = new Command(seat, words);
+		execute(command);
+		try {
+			return command.reply.get();
+		} catch (ExecutionException e) {
+			return "ERR " + e.getCause().getMessage();
+		}
+	}
+
+	/**
+	 * Queues a task for the table's thread, without waiting for it
+	 * @param task Task to run, cancelled instead if the table is closed
+	 */
+	public void execute(Task task){
+		if( closed ){
+			task.cancel();
+			return;
+		}
+		commands.add(task);
+
+		// Closed while adding, the table's thread may already have cancelled the others
+		if( closed && commands.remove(task) ) task.cancel();
+	}
+
+	/**
+	 * Adds a viewer to the table, sent a keyframe straight away and then what changes after every tick or command
+	 * @param capacity Most frames kept for the viewer before they only get keyframes
+	 * @param viewer Seat whose hidden cards the viewer may see, SpectatorFeed.PUBLIC or SpectatorFeed.EVERYTHING
+	 * @return Subscription to take the frames from, unsubscribe with getFeed
+	 */
+	public SpectatorFeed.Subscription watch(int capacity, int viewer){
+		SpectatorFeed.Subscription subscription = feed.subscribe(capacity, viewer);
+
+		// Nothing to do, the feed is updated on the table's thread after every task
+		execute(new Task() {
+			@Override
+			protected void run(){
+			}
+
+			@Override
+			protected void cancel(){
+			}
+		});
+		return subscription;
+	}
+
+	/**
+	 * Plays the bots and runs the commands until the table is closed
+	 */
+	private void play(){
+		try {
+			while( !closed ){
+
+				// Bots take their whole turn in one go
+				if( isBotTurn() ){
+					host.acquire();
+					try {
+						while( isBotTurn() && !closed ){
+							controller.tick();
+							feed.update();
+						}
+					} finally {
+						host.release();
+					}
+					continue;
+				}
+
+				finished = controller.getStatus() == Status.GAME_OVER;
+
+				// Wait for a person, without holding a permit
+				Task task = commands.take();
+				host.acquire();
+				try {
+					task.run();
+					feed.update();
+				} finally {
+					host.release();
+				}
+			}
+		} catch (InterruptedException e) {
+
+			// Closed while waiting
+		}
+
+		// Nobody is left to answer the commands still waiting
+		for( Task task = commands.poll(); task != null; task = commands.poll() ){
+			task.cancel();
+		}
+	}
+
+	private boolean isBotTurn(){
+		int seat = controller.getCurrentPlayerIndex();
+		return controller.getStatus() != Status.GAME_OVER && seat != -1 && controller.getStrategy(seat) != null;
+	}
+
+	/**
+	 * Runs a text command on the table's thread
+	 */
+	private String run(int seat, String[] words) throws Exception {
+		String name = words[0].toUpperCase();
+		if( name.equals("STATE") ){
+			return "OK " + controller.getStatus() + " " + controller.getCurrentPlayerIndex() + " "
+					+ controller.getDiceRoll() + " " + controller.getTurns();
+		}
+		if( name.equals("HAND") ){
+			return "OK " + cardNames(controller.getPlayers()[seat].getHand());
+		}
+		if( name.equals("REVEAL") ){
+			reveal(seat, Card.valueOf(words[1]));
+			return "OK";
+		}
+		if( name.equals("ROLL") ){
+			return "OK " + roll(seat);
+		}
+		if( name.equals("MOVE") ){
+			checkTurn(seat);
+			Room room = findRoom(Card.valueOf(words[1]));
+			Piece piece = controller.getPlayers()[seat].getPiece();
+			AMove_Node path = room == null ? null : AutoPlayer.findPath(board, piece, room, controller.getRandom());
+			if( path == null ) return "ERR no path";
+
+			move(seat, path);
+			return "OK " + piece.getPosition().x + " " + piece.getPosition().y + " " + piece.getRoom().getName();
+		}
+		if( name.equals("SUGGEST") ){
+			SuggestionResult result = suggest(seat, Card.valueOf(words[1]), Card.valueOf(words[2]));
+			return result.isDisproved() ? "OK " + result.getDisprover() + " " + result.getShown().name() : "OK NONE";
+		}
+		if( name.equals("ACCUSE") ){
+			return accuse(seat, Card.valueOf(words[1]), Card.valueOf(words[2]), Card.valueOf(words[3])) ? "OK WIN"
+					: "OK WRONG";
+		}
+		if( name.equals("END") ){
+			finish(seat);
+			return "OK";
+		}
+		return "ERR unknown command " + words[0];
+	}
+
+	/**
+	 * Throws unless it is the seat's turn in a game still going
+	 */
+	private void checkTurn(int seat){
+		if( controller.getStatus() == Status.GAME_OVER ) throw new IllegalStateException("game over");
+		if( seat != controller.getCurrentPlayerIndex() ) throw new IllegalStateException("not your turn");
+	}
+
+	/**
+	 * Rolls the dice for the seat, only from a Task
+	 * @param seat Seat of the person
+	 * @return Number rolled
+	 */
+	public int roll(int seat){
+		checkTurn(seat);
+		if( controller.getStatus() != Status.ROLLING_DICE ) throw new IllegalStateException("already rolled");
+		int roll = controller.rollDice();
+		controller.setStatus(Status.SELECTING_MOVE);
+		return roll;
+	}
+
+	/**
+	 * Walks the piece of the seat along the path, as far as the dice allows, only from a Task
+	 * @param seat Seat of the person
+	 * @param path Squares to walk, each next to the one before
+	 * @return Piece that was moved
+	 */
+	public Piece move(int seat, AMove_Node path) throws InvalidMoveException {
+		checkTurn(seat);
+		if( controller.getStatus() != Status.SELECTING_MOVE ) throw new IllegalStateException("roll first");
+
+		// The controller only checks the squares can hold the piece, not that they follow each other
+		Piece piece = controller.getPlayers()[seat].getPiece();
+		Point last = piece.getPosition();
+		for( AMove_Node step = path; step != null; step = step.getNext() ){
+			Point point = step.getPoint();
+			if( point.x < 0 || point.y < 0 || point.x >= Board.BOARD_WIDTH || point.y >= Board.BOARD_HEIGHT ){
+				throw new InvalidMoveException("Off the board " + point);
+			}
+			if( !board.getSquareAt(point.x, point.y).isRoom() && !board.getSquareAt(point.x, point.y).isCorridoor() ){
+				throw new InvalidMoveException("Not a room or corridor " + point);
+			}
+			if( Math.abs(point.x - last.x) + Math.abs(point.y - last.y) > 1 && !(step == path && leaves(piece, point)) ){
+				throw new InvalidMoveException("Squares do not follow each other " + last + " " + point);
+			}
+			last = point;
+		}
+
+		controller.attemptPlayerMove(path);
+		while( controller.getStatus() == Status.MOVING ){
+			controller.tick();
+		}
+		return piece;
+	}
+
+	/**
+	 * Suggests the cards in the room the piece of the seat is in, only from a Task
+	 * @param seat Seat of the person
+	 * @param character Character suggested
+	 * @param weapon Weapon suggested
+	 * @return Who disproved the suggestion and with which card
+	 */
+	public SuggestionResult suggest(int seat, Card character, Card weapon) throws Exception {
+		checkTurn(seat);
+		Piece piece = controller.getPlayers()[seat].getPiece();
+		if( !piece.isInRoom() ) throw new IllegalStateException("not in a room");
+		return controller.resolveSuggestion(character.getName(), weapon.getName(), piece.getRoom().getName());
+	}
+
+	/**
+	 * Sets the card the seat shows first when it can disprove a suggestion, only from a Task
+	 * @param seat Seat of the person
+	 * @param card Card to show, must be in the seat's hand
+	 */
+	public void reveal(int seat, Card card){
+		if( (controller.getPlayers()[seat].getHand() & card.bit()) == 0 ){
+			throw new IllegalArgumentException("not holding " + card.name());
+		}
+		reveal[seat] = card.bit();
+	}
+
+	/**
+	 * Accuses for the seat and finishes the turn if they were wrong, only from a Task
+	 * @param seat Seat of the person
+	 * @param character Character accused
+	 * @param weapon Weapon accused
+	 * @param room Room accused
+	 * @return True if the accusation was right
+	 */
+	public boolean accuse(int seat, Card character, Card weapon, Card room) throws Exception {
+		checkTurn(seat);
+		controller.accuseMurderer(character.getName(), weapon.getName(), room.getName());
+		if( controller.getStatus() == Status.GAME_OVER && controller.getCurrentPlayerIndex() == seat ) return true;
+		if( controller.getStatus() != Status.GAME_OVER ) controller.finishTurn();
+		return false;
+	}
+
+	/**
+	 * Finishes the turn of the seat, only from a Task
+	 * @param seat Seat of the person
+	 */
+	public void finish(int seat) throws Exception {
+		checkTurn(seat);
+
+		// Stopping part way through a move
+		if( controller.getStatus() == Status.SELECTING_MOVE ) controller.setStatus(Status.WAITING);
+		controller.finishTurn();
+	}
+
+	/**
+	 * Checks whether a path may start on the square, away from the piece: out of a door of its room or through the
+	 * secret passage
+	 */
+	private boolean leaves(Piece piece, Point point){
+		if( !piece.isInRoom() ) return false;
+		Room room = piece.getRoom();
+		Room target = board.getSquareAt(point.x, point.y).getRoom();
+		return target == room || (room.getPortal() != null && target == room.getPortal().getTargetRoom());
+	}
+
+	private Room findRoom(Card card){
+		for( Room room : board.getRooms() ){
+			if( room.getName().equals(card.getName()) ) return room;
+		}
+		return null;
+	}
+
+	private static String cardNames(int cards){
+		StringBuilder names = new StringBuilder();
+		for( ; cards != 0; cards &= cards - 1 ){
+			if( names.length() > 0 ) names.append(' ');
+			names.append(Card.first(cards).name());
+		}
+		return names.toString();
+	}
+
+	/**
+	 * Stops the table's thread, commands still waiting are answered with an error
+	 */
+	void close(){
+		closed = true;
+		if( thread != null ) thread.interrupt();
+	}
+
+	public int getId(){
+		return id;
+	}
+
+	/**
+	 * Returns the number of seats played by people
+	 * @return Number of seats
+	 */
+	public int getPeople(){
+		return people;
+	}
+
+	/**
+	 * Returns the memory charged to this table, an estimate of the board, controller and thread it keeps
+	 * @return Number of bytes
+	 */
+	public long getBytes(){
+		return bytes;
+	}
+
+	public SpectatorFeed getFeed(){
+		return feed;
+	}
+
+	public boolean isClosed(){
+		return closed;
+	}
+
+	/**
+	 * Returns whether the game is over, the table stays open for the people to look at it until it is closed
+	 * @return True once someone won or everyone was eliminated
+	 */
+	public boolean isFinished(){
+		return finished;
+	}
+
+	/**
+	 * Returns the controller of the table, only safe to read from the table's own thread or once it is closed
+	 * @return Controller of the game
+	 */
+	public Controller getController(){
+		return controller;
+	}
+
+	/**
+	 * Work for the table's thread, the only thread allowed to use the controller
+	 */
+	public static abstract class Task {
+
+		/**
+		 * Runs on the table's thread while holding an active permit
+		 */
+		protected abstract void run();
+
+		/**
+		 * Called instead of run when the table was closed first
+		 */
+		protected abstract void cancel();
+	}
+
+	/**
+	 * Text command waiting for the table's thread
+	 */
+	private class Command extends Task {
+
+		final int seat;
+		final String[] words;
+		final CompletableFuture<String> reply = new CompletableFuture<String>();
+
+		Command(int seat, String[] words){
+			this.seat = seat;
+			this.words = words;
+		}
+
+		@Override
+		protected void run(){
+			try {
+				reply.complete(GameSession.this.run(seat, words));
+			} catch (Exception e) {
+				reply.complete("ERR " + e.getMessage());
+			}
+		}
+
+		@Override
+		protected void cancel(){
+			reply.complete("ERR table closed");
+		}
+	}
+}
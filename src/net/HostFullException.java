@@ -0,0 +1,14 @@
+package net;
+
+/**
+ * Error thrown when the GameHost turns a new table away, because it has as many tables or as much memory in use as
+ * it is allowed
+ *
+ */
+public class HostFullException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public HostFullException(String string){
+		super(string);
+	}
+}
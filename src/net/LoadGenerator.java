@@ -0,0 +1,194 @@
+package net;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the BinaryServer over loopback: a number of clients each play the first seat of their own table, against
+ * two bots, as fast as the replies come back. Reports the commands answered per second and the latency of the
+ * replies.
+ *
+ * Run with: java net.LoadGenerator [clients] [seconds] [port], without a port a host and server are started in the
+ * same JVM.
+ *
+ */
+public class LoadGenerator {
+
+	// Commands of one turn, repeated
+	private static final int[] TURN = { BinaryServer.STATE, BinaryServer.HAND, BinaryServer.ROLL, BinaryServer.FINISH };
+
+	private final int port;
+	private final int clients;
+
+	/**
+	 * Creates a load generator
+	 * @param port Port of the server on the loopback interface
+	 * @param clients Number of connections sending commands at the same time
+	 */
+	public LoadGenerator(int port, int clients){
+		this.port = port;
+		this.clients = clients;
+	}
+
+	/**
+	 * Sends commands from every client for a while
+	 * @param millis How long to keep sending, in milliseconds
+	 * @return Latencies of all the commands answered
+	 * @throws Exception If a client fails
+	 */
+	public Result run(long millis) throws Exception {
+		final long end = System.nanoTime() + millis * 1000000L;
+		final List<long[]> latencies = new ArrayList<long[]>();
+		final List<Exception> failures = new ArrayList<Exception>();
+		Thread[] threads = new Thread[clients];
+
+		long start = System.nanoTime();
+		for( int client = 0; client < clients; client++ ){
+			threads[client] = Thread.ofVirtual().start(new Runnable() {
+				@Override
+				public void run(){
+					try {
+						long[] times = play(end);
+						synchronized( latencies ){
+							latencies.add(times);
+						}
+					} catch (Exception e) {
+						synchronized( failures ){
+							failures.add(e);
+						}
+					}
+				}
+			});
+		}
+		for( Thread thread : threads ){
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		if( !failures.isEmpty() ) throw failures.get(0);
+
+		int count = 0;
+		for( long[] times : latencies ){
+			count += (int)times[0];
+		}
+		long[] all = new long[count];
+		int index = 0;
+		for( long[] times : latencies ){
+			System.arraycopy(times, 1, all, index, (int)times[0]);
+			index += (int)times[0];
+		}
+		Arrays.sort(all);
+		return new Result(all, elapsed);
+	}
+
+	/**
+	 * Plays one client until the end time
+	 * @return Number of commands, then the latency of each in nanoseconds
+	 */
+	private long[] play(long end) throws IOException {
+		BinaryClient client = new BinaryClient(port);
+		long[] times = new long[1024];
+		int count = 0;
+		try {
+			join(client);
+			for( int step = 0; System.nanoTime() < end; step++ ){
+				int op = TURN[step % TURN.length];
+				long sent = System.nanoTime();
+				client.begin(op);
+				int result = client.call();
+				long latency = System.nanoTime() - sent;
+
+				if( count + 1 == times.length ) times = Arrays.copyOf(times, times.length * 2);
+				times[++count] = latency;
+
+				// The bots won, start another game
+				if( result != BinaryServer.OK ){
+					String message = client.getMessage();
+					if( !message.equals("game over") ) throw new IOException(message);
+					client.begin(BinaryServer.CLOSE);
+					client.call();
+					join(client);
+					step = -1;
+				}
+			}
+			client.begin(BinaryServer.CLOSE);
+			client.call();
+		} finally {
+			client.close();
+		}
+		times[0] = count;
+		return times;
+	}
+
+	private void join(BinaryClient client) throws IOException {
+		client.begin(BinaryServer.OPEN).put((byte)3).put((byte)1);
+		if( client.call() != BinaryServer.OK ) throw new IOException(client.getMessage());
+		int table = client.getReply().getInt();
+		client.begin(BinaryServer.JOIN).putInt(table).put((byte)0);
+		if( client.call() != BinaryServer.OK ) throw new IOException(client.getMessage());
+	}
+
+	/**
+	 * Latencies of the commands answered in one run
+	 */
+	public static class Result {
+
+		private final long[] latencies;
+		private final long elapsed;
+
+		Result(long[] latencies, long elapsed){
+			this.latencies = latencies;
+			this.elapsed = elapsed;
+		}
+
+		public int getCommands(){
+			return latencies.length;
+		}
+
+		public double getCommandsPerSecond(){
+			return latencies.length * 1e9 / elapsed;
+		}
+
+		/**
+		 * Returns the latency the given fraction of the commands were answered within
+		 * @param fraction Fraction of the commands, 0.99 for the 99th percentile
+		 * @return Latency in nanoseconds
+		 */
+		public long getPercentile(double fraction){
+			if( latencies.length == 0 ) return 0;
+			int index = (int)Math.ceil(fraction * latencies.length) - 1;
+			return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		GameHost host = null;
+		BinaryServer server = null;
+		int port;
+		if( args.length > 2 ){
+			port = Integer.parseInt(args[2]);
+		}
+		else{
+			host = new GameHost(clients * 2, Runtime.getRuntime().availableProcessors(), Long.MAX_VALUE);
+			server = new BinaryServer(host);
+			port = server.start(0);
+		}
+
+		try {
+
+			// Warm up before measuring
+			new LoadGenerator(port, clients).run(Math.min(2000, seconds * 1000L));
+			Result result = new LoadGenerator(port, clients).run(seconds * 1000L);
+			System.out.printf("%d clients: %.0f commands/s, p50 %.1f us, p99 %.1f us, max %.1f us%n", clients,
+					result.getCommandsPerSecond(), result.getPercentile(0.5) / 1e3, result.getPercentile(0.99) / 1e3,
+					result.getPercentile(1) / 1e3);
+		} finally {
+			if( server != null ) server.close();
+			if( host != null ) host.close();
+		}
+	}
+}
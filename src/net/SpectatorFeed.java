@@ -0,0 +1,567 @@
+package net;
+
+import game.Card;
+import game.Item;
+import game.Player;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import ui.Board;
+import ai.KnowledgeBase;
+import control.Controller;
+import control.Controller.Status;
+import control.GameListener;
+
+/**
+ * Broadcasts a game to spectators as the changes made since the last update, instead of the whole board.
+ *
+ * The feed compares the game with what it last sent every time update is called, on the thread playing the game, and
+ * encodes the pieces and weapons that moved, a change of status and a suggestion that was answered into one frame.
+ * The frame is encoded once and shared by every subscriber, only the sequence number is their own. Every so often a
+ * keyframe with the whole state is sent instead, so a spectator that missed something catches up.
+ *
+ * Each subscriber has a queue of a fixed size. A subscriber that lets it fill up is dropped to keyframes only: its
+ * queue is emptied and from then on holds at most the latest keyframe, until the subscriber has taken it and is sent
+ * the changes again.
+ *
+ * Every frame, after its length as an unsigned short, holds:
+ * <pre>
+ * type (KEYFRAME or DELTA), int sequence, int turns, flags
+ * if STATE:      status, current seat, dice, eliminated seats one bit each
+ * count, then count times: item (Card ordinal), x, y
+ * if SUGGESTION: kind (SUGGESTED or ACCUSED), seat, int cards, disprover or 255
+ * private part, only for viewers other than PUBLIC:
+ * private flags
+ * if HANDS:      count, then count times: seat, int cards
+ * if SEEN:       int cards the seat has seen in the hands of others
+ * if ENVELOPE:   int cards
+ * if SHOWN:      card shown for the suggestion
+ * </pre>
+ * What a subscriber may see depends on its viewer: PUBLIC sees what everyone at the table sees, a seat also sees its
+ * own hand and the cards shown to it, and EVERYTHING sees all the hands and the envelope. The private part is encoded
+ * once for each of these classes of viewer and shared by all its subscribers, so the cost of an update grows with the
+ * number of seats and not the number of spectators. The public part never reads the hands or the envelope, and only
+ * the EVERYTHING class reads the envelope.
+ *
+ */
+public class SpectatorFeed implements GameListener {
+
+	public static final int KEYFRAME = 1;
+	public static final int DELTA = 2;
+
+	// Flags of the sections in a frame
+	public static final int STATE = 1;
+	public static final int SUGGESTION = 2;
+
+	public static final int SUGGESTED = 0;
+	public static final int ACCUSED = 1;
+
+	// Flags of the sections in the private part
+	public static final int HANDS = 1;
+	public static final int SEEN = 2;
+	public static final int ENVELOPE = 4;
+	public static final int SHOWN = 8;
+
+	// Viewers that are not a seat
+	public static final int PUBLIC = -2;
+	public static final int EVERYTHING = -1;
+
+	// Marks no seat in a frame
+	public static final int NONE = 255;
+
+	// Updates between keyframes
+	public static final int KEYFRAME_INTERVAL = 32;
+
+	private static final int ITEMS = Card.CHARACTERS | Card.WEAPONS;
+
+	// Private part of the frames for PUBLIC viewers
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+	// Largest frame: header, state and every item
+	private static final int MAX_BODY = 4 + 1 + 4 + 1 + 3 * Integer.bitCount(ITEMS) + 7;
+
+	private final Controller controller;
+
+	private final CopyOnWriteArrayList<Subscription> subscribers = new CopyOnWriteArrayList<Subscription>();
+
+	// Subscribers waiting for their first keyframe
+	private final ConcurrentLinkedQueue<Subscription> joining = new ConcurrentLinkedQueue<Subscription>();
+
+	// What was last sent, only used by the thread playing the game
+	private final int[] cells = new int[Card.COUNT];
+	private Status status;
+	private int current;
+	private int dice;
+	private int eliminated;
+	private int suggestionTurn = -1;
+	private int suggestionCards;
+	private int updates = 0;
+
+	// Encoded this update, for each class of viewer: PUBLIC, EVERYTHING then the seats
+	private boolean newSuggestion;
+	private ByteBuffer keyframe;
+	private ByteBuffer[] keyframeTails = new ByteBuffer[0];
+	private ByteBuffer[] deltaTails = new ByteBuffer[0];
+
+	/**
+	 * Creates a feed of the game, nothing is sent until update is called
+	 * @param controller Controller of the game
+	 */
+	public SpectatorFeed(Controller controller){
+		this.controller = controller;
+		remember();
+	}
+
+	/**
+	 * Adds a spectator who sees what everyone at the table sees, sent a keyframe on the next update
+	 * @param capacity Most frames kept for the spectator before they are dropped to keyframes only
+	 * @return Subscription to take the frames from
+	 */
+	public Subscription subscribe(int capacity){
+		return subscribe(capacity, PUBLIC);
+	}
+
+	/**
+	 * Adds a viewer, who is sent a keyframe on the next update
+	 * @param capacity Most frames kept for the viewer before they are dropped to keyframes only
+	 * @param viewer Seat of the player watching, PUBLIC or EVERYTHING
+	 * @return Subscription to take the frames from
+	 */
+	public Subscription subscribe(int capacity, int viewer){
+		if( viewer < PUBLIC || viewer >= controller.getPlayers().length ){
+			throw new IllegalArgumentException("No such viewer " + viewer);
+		}
+		Subscription subscription = new Subscription(capacity, viewer);
+		joining.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * Stops sending to a spectator
+	 * @param subscription Subscription returned by subscribe
+	 */
+	public void unsubscribe(Subscription subscription){
+		subscribers.remove(subscription);
+		joining.remove(subscription);
+	}
+
+	@Override
+	public void boardChanged(Controller controller){
+		update();
+	}
+
+	/**
+	 * Sends what changed since the last update to every spectator, only on the thread playing the game
+	 */
+	public void update(){
+		if( subscribers.isEmpty() && joining.isEmpty() ){
+			remember();
+			return;
+		}
+
+		// Keyframes and private parts are only encoded when someone needs one
+		int classes = 2 + controller.getPlayers().length;
+		if( keyframeTails.length != classes ){
+			keyframeTails = new ByteBuffer[classes];
+			deltaTails = new ByteBuffer[classes];
+		}
+		Arrays.fill(keyframeTails, null);
+		Arrays.fill(deltaTails, null);
+		keyframe = null;
+
+		ByteBuffer delta = encodeDelta();
+		updates += delta == null ? 0 : 1;
+		remember();
+		boolean periodic = updates >= KEYFRAME_INTERVAL;
+		if( periodic ) updates = 0;
+
+		for( Subscription subscription = joining.poll(); subscription != null; subscription = joining.poll() ){
+			subscription.keyframe(keyframe(), keyframeTail(subscription.viewer));
+			subscribers.add(subscription);
+		}
+		for( Subscription subscription : subscribers ){
+			int viewer = subscription.viewer;
+			if( subscription.keyframesOnly ){
+
+				// Caught up with the last keyframe, so it can follow the changes again
+				if( subscription.queue.isEmpty() ){
+					subscription.keyframesOnly = false;
+					subscription.keyframe(keyframe(), keyframeTail(viewer));
+				}
+				else if( periodic ){
+					subscription.keyframe(keyframe(), keyframeTail(viewer));
+				}
+			}
+			else if( periodic ? !subscription.offer(KEYFRAME, keyframe(), keyframeTail(viewer)) : delta != null
+					&& !subscription.offer(DELTA, delta, deltaTail(viewer)) ){
+
+				// Fell behind, it starts again from the state as it is now
+				subscription.keyframe(keyframe(), keyframeTail(viewer));
+			}
+		}
+	}
+
+	private ByteBuffer keyframe(){
+		if( keyframe == null ) keyframe = encodeKeyframe();
+		return keyframe;
+	}
+
+	private ByteBuffer keyframeTail(int viewer){
+		int index = viewer + 2;
+		if( keyframeTails[index] == null ) keyframeTails[index] = encodeTail(viewer, true);
+		return keyframeTails[index];
+	}
+
+	private ByteBuffer deltaTail(int viewer){
+		int index = viewer + 2;
+		if( deltaTails[index] == null ) deltaTails[index] = encodeTail(viewer, false);
+		return deltaTails[index];
+	}
+
+	/**
+	 * Encodes what changed since the last frame, null if nothing did
+	 */
+	private ByteBuffer encodeDelta(){
+		ByteBuffer body = ByteBuffer.allocate(MAX_BODY);
+		body.putInt(controller.getTurns());
+		body.put((byte)0);
+		int flags = 0;
+
+		if( controller.getStatus() != status || controller.getCurrentPlayerIndex() != current
+				|| controller.getDiceRoll() != dice || eliminated() != eliminated ){
+			flags |= STATE;
+			putState(body);
+		}
+
+		// Count of the items, filled in once they are known
+		int countAt = body.position();
+		body.put((byte)0);
+		int count = 0;
+		for( int items = ITEMS; items != 0; items &= items - 1 ){
+			Card card = Card.first(items);
+			int cell = cell(card);
+			if( cell != cells[card.ordinal()] ){
+				putItem(body, card, cell);
+				count++;
+			}
+		}
+		body.put(countAt, (byte)count);
+
+		newSuggestion = isNewSuggestion();
+		if( newSuggestion ){
+			flags |= SUGGESTION;
+			putSuggestion(body);
+		}
+
+		if( flags == 0 && count == 0 ) return null;
+		body.put(4, (byte)flags);
+		body.flip();
+		return body.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Encodes the whole state
+	 */
+	private ByteBuffer encodeKeyframe(){
+		ByteBuffer body = ByteBuffer.allocate(MAX_BODY);
+		body.putInt(controller.getTurns());
+		boolean suggested = controller.hasSuggested() && isAnswered();
+		body.put((byte)(suggested ? STATE | SUGGESTION : STATE));
+		putState(body);
+
+		int countAt = body.position();
+		body.put((byte)0);
+		int count = 0;
+		for( int items = ITEMS; items != 0; items &= items - 1 ){
+			Card card = Card.first(items);
+			int cell = cell(card);
+			if( cell != -1 ){
+				putItem(body, card, cell);
+				count++;
+			}
+		}
+		body.put(countAt, (byte)count);
+
+		if( suggested ) putSuggestion(body);
+		body.flip();
+		return body.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Encodes the private part for one class of viewer, the hands and the envelope only go into keyframes as they
+	 * never change during a game
+	 */
+	private ByteBuffer encodeTail(int viewer, boolean keyframe){
+		if( viewer == PUBLIC ) return EMPTY;
+
+		Player[] players = controller.getPlayers();
+		ByteBuffer tail = ByteBuffer.allocate(1 + 1 + 5 * players.length + 4 + 4 + 1);
+		tail.put((byte)0);
+		int flags = 0;
+		if( keyframe ){
+			flags |= HANDS;
+			tail.put((byte)(viewer == EVERYTHING ? players.length : 1));
+			for( int seat = 0; seat < players.length; seat++ ){
+				if( viewer != EVERYTHING && viewer != seat ) continue;
+				tail.put((byte)seat);
+				tail.putInt(players[seat].getHand());
+			}
+
+			if( viewer == EVERYTHING ){
+				flags |= ENVELOPE;
+				tail.putInt(controller.getSolution());
+			}
+			else{
+				flags |= SEEN;
+				tail.putInt(seen(viewer));
+			}
+		}
+
+		// Only the suggester and whoever showed the card see it
+		boolean answered = keyframe ? controller.hasSuggested() && isAnswered() : newSuggestion;
+		Card shown = controller.getRevealedCard();
+		if( answered && shown != null && controller.getStatus() == Status.REVEALING
+				&& (viewer == EVERYTHING || viewer == controller.getCurrentPlayerIndex()
+						|| viewer == controller.getRotatingPlayerIndex()) ){
+			flags |= SHOWN;
+			tail.put((byte)shown.ordinal());
+		}
+
+		if( flags == 0 ) return EMPTY;
+		tail.put(0, (byte)flags);
+		tail.flip();
+		return tail.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns the cards the seat knows are in the hands of the others, from what it was shown or worked out
+	 */
+	private int seen(int seat){
+		KnowledgeBase knowledge = controller.getKnowledge(seat);
+		int cards = 0;
+		for( int holder = 0; holder < controller.getPlayers().length; holder++ ){
+			if( holder != seat ) cards |= knowledge.getHas(holder);
+		}
+		return cards;
+	}
+
+	private void putState(ByteBuffer body){
+		body.put((byte)controller.getStatus().ordinal());
+		body.put((byte)controller.getCurrentPlayerIndex());
+		body.put((byte)controller.getDiceRoll());
+		body.put((byte)eliminated());
+	}
+
+	private void putItem(ByteBuffer body, Card card, int cell){
+		body.put((byte)card.ordinal());
+		body.put((byte)(cell % Board.BOARD_WIDTH));
+		body.put((byte)(cell / Board.BOARD_WIDTH));
+	}
+
+	/**
+	 * Writes the suggestion or accusation of the current player, with who disproved it but not the card
+	 */
+	private void putSuggestion(ByteBuffer body){
+		int seat = controller.getCurrentPlayerIndex();
+		boolean accused = controller.getStatus() == Status.GAME_OVER || controller.isEliminated(seat);
+		body.put((byte)(accused ? ACCUSED : SUGGESTED));
+		body.put((byte)seat);
+		body.putInt(controller.getSuggestion());
+		body.put((byte)(controller.getStatus() == Status.REVEALING ? controller.getRotatingPlayerIndex() : NONE));
+	}
+
+	/**
+	 * Checks whether the current player's suggestion has been answered and not sent yet
+	 */
+	private boolean isNewSuggestion(){
+		return controller.hasSuggested() && isAnswered()
+				&& (suggestionTurn != controller.getTurns() || suggestionCards != controller.getSuggestion());
+	}
+
+	private boolean isAnswered(){
+		Status now = controller.getStatus();
+		return now == Status.REVEALING || now == Status.WAITING || now == Status.GAME_OVER;
+	}
+
+	/**
+	 * Remembers the state that was sent, the next delta is made against it
+	 */
+	private void remember(){
+		for( int items = ITEMS; items != 0; items &= items - 1 ){
+			Card card = Card.first(items);
+			cells[card.ordinal()] = cell(card);
+		}
+		status = controller.getStatus();
+		current = controller.getCurrentPlayerIndex();
+		dice = controller.getDiceRoll();
+		eliminated = eliminated();
+		if( controller.hasSuggested() && isAnswered() ){
+			suggestionTurn = controller.getTurns();
+			suggestionCards = controller.getSuggestion();
+		}
+	}
+
+	private int cell(Card card){
+		Item item = controller.getBoard() == null ? null : controller.getBoard().getItem(card.getName());
+		if( item == null ) return -1;
+		Point position = item.getPosition();
+		return position.y * Board.BOARD_WIDTH + position.x;
+	}
+
+	private int eliminated(){
+		Player[] players = controller.getPlayers();
+		int seats = 0;
+		for( int seat = 0; players != null && seat < players.length; seat++ ){
+			if( controller.isEliminated(seat) ) seats |= 1 << seat;
+		}
+		return seats;
+	}
+
+	public int getSubscriberCount(){
+		return subscribers.size() + joining.size();
+	}
+
+	/**
+	 * Frame for one spectator: a body shared with the other spectators and the spectator's own sequence number
+	 */
+	public static class Frame {
+
+		private final int type;
+		private final int sequence;
+		private final ByteBuffer body;
+		private final ByteBuffer tail;
+
+		Frame(int type, int sequence, ByteBuffer body, ByteBuffer tail){
+			this.type = type;
+			this.sequence = sequence;
+			this.body = body;
+			this.tail = tail;
+		}
+
+		public boolean isKeyframe(){
+			return type == KEYFRAME;
+		}
+
+		public int getSequence(){
+			return sequence;
+		}
+
+		/**
+		 * Returns the body of the frame, starting at the turns
+		 * @return Buffer of its own, reading does not change the frame
+		 */
+		public ByteBuffer getBody(){
+			return body.duplicate();
+		}
+
+		/**
+		 * Returns the private part of the frame, shared with the viewers of the same class
+		 * @return Buffer of its own, empty when there is nothing private to send
+		 */
+		public ByteBuffer getPrivate(){
+			return tail.duplicate();
+		}
+
+		/**
+		 * Writes the whole frame, with its length, type and sequence number
+		 * @param out Buffer to write to
+		 */
+		public void writeTo(ByteBuffer out){
+			out.putShort((short)(1 + 4 + body.remaining() + tail.remaining()));
+			out.put((byte)type);
+			out.putInt(sequence);
+			out.put(body.duplicate());
+			out.put(tail.duplicate());
+		}
+	}
+
+	/**
+	 * Frames waiting for one spectator
+	 */
+	public static class Subscription {
+
+		private final ArrayBlockingQueue<Frame> queue;
+		private final int viewer;
+
+		// Only changed by the thread playing the game
+		private int sequence = 0;
+		private volatile boolean keyframesOnly = false;
+		private volatile long dropped = 0;
+
+		Subscription(int capacity, int viewer){
+			this.queue = new ArrayBlockingQueue<Frame>(capacity);
+			this.viewer = viewer;
+		}
+
+		/**
+		 * Queues a frame, dropping the spectator to keyframes only when the queue is full
+		 * @return False if the spectator was dropped and needs a keyframe
+		 */
+		boolean offer(int type, ByteBuffer body, ByteBuffer tail){
+			if( !queue.offer(new Frame(type, sequence + 1, body, tail)) ){
+				keyframesOnly = true;
+				dropped++;
+				return false;
+			}
+			sequence++;
+			return true;
+		}
+
+		/**
+		 * Replaces whatever is queued with the keyframe
+		 */
+		void keyframe(ByteBuffer body, ByteBuffer tail){
+			dropped += queue.size();
+			queue.clear();
+			queue.offer(new Frame(KEYFRAME, ++sequence, body, tail));
+		}
+
+		/**
+		 * Takes the next frame
+		 * @return Next frame, null if there is none
+		 */
+		public Frame poll(){
+			return queue.poll();
+		}
+
+		/**
+		 * Waits for the next frame
+		 * @param timeout How long to wait
+		 * @param unit Unit of the timeout
+		 * @return Next frame, null if there was none in time
+		 */
+		public Frame poll(long timeout, TimeUnit unit) throws InterruptedException {
+			return queue.poll(timeout, unit);
+		}
+
+		/**
+		 * Returns what the viewer may see
+		 * @return Seat of the player watching, PUBLIC or EVERYTHING
+		 */
+		public int getViewer(){
+			return viewer;
+		}
+
+		/**
+		 * Checks if the spectator fell behind and is only sent keyframes
+		 * @return True while only keyframes are sent
+		 */
+		public boolean isKeyframesOnly(){
+			return keyframesOnly;
+		}
+
+		/**
+		 * Returns how many frames were thrown away because the spectator fell behind
+		 * @return Number of frames
+		 */
+		public long getDropped(){
+			return dropped;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package net;
+
+import game.Card;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import ui.Board;
+import control.Controller.Status;
+
+/**
+ * What a spectator knows of a game, rebuilt from the frames of a SpectatorFeed.
+ * Deltas must follow each other without a gap in the sequence numbers, after a gap the view waits for the next
+ * keyframe.
+ *
+ */
+public class SpectatorView {
+
+	private final int[] cells = new int[Card.COUNT];
+	private int sequence = -1;
+	private boolean synced = false;
+
+	private int turns;
+	private Status status;
+	private int current;
+	private int dice;
+	private int eliminated;
+
+	private int suggestionKind = -1;
+	private int suggester;
+	private int suggestion;
+	private int disprover;
+
+	// Private part, left empty for viewers who may not see it
+	private final int[] hands = new int[6];
+	private int seen;
+	private int envelope;
+	private int shown = -1;
+
+	public SpectatorView(){
+		Arrays.fill(cells, -1);
+	}
+
+	/**
+	 * Applies a frame to the view
+	 * @param frame Next frame taken from the subscription
+	 * @return True if it was applied, false if the view is waiting for a keyframe
+	 */
+	public boolean apply(SpectatorFeed.Frame frame){
+		if( !frame.isKeyframe() && (!synced || frame.getSequence() != sequence + 1) ){
+			synced = false;
+			return false;
+		}
+		sequence = frame.getSequence();
+		synced = true;
+
+		ByteBuffer body = frame.getBody();
+		if( frame.isKeyframe() ){
+			Arrays.fill(cells, -1);
+			suggestionKind = -1;
+			shown = -1;
+		}
+		turns = body.getInt();
+		int flags = body.get();
+		if( (flags & SpectatorFeed.STATE) != 0 ){
+			status = Status.values()[body.get()];
+			current = body.get();
+			dice = body.get() & 0xff;
+			eliminated = body.get() & 0xff;
+		}
+		for( int count = body.get() & 0xff; count > 0; count-- ){
+			int card = body.get() & 0xff;
+			int x = body.get() & 0xff;
+			int y = body.get() & 0xff;
+			cells[card] = y * Board.BOARD_WIDTH + x;
+		}
+		if( (flags & SpectatorFeed.SUGGESTION) != 0 ){
+			suggestionKind = body.get();
+			suggester = body.get() & 0xff;
+			suggestion = body.getInt();
+			disprover = body.get() & 0xff;
+			shown = -1;
+		}
+		applyPrivate(frame.getPrivate());
+		return true;
+	}
+
+	private void applyPrivate(ByteBuffer tail){
+		if( !tail.hasRemaining() ) return;
+		int flags = tail.get();
+		if( (flags & SpectatorFeed.HANDS) != 0 ){
+			for( int count = tail.get(); count > 0; count-- ){
+				int seat = tail.get();
+				hands[seat] = tail.getInt();
+			}
+		}
+		if( (flags & SpectatorFeed.SEEN) != 0 ){
+			seen = tail.getInt();
+		}
+		if( (flags & SpectatorFeed.ENVELOPE) != 0 ){
+			envelope = tail.getInt();
+		}
+		if( (flags & SpectatorFeed.SHOWN) != 0 ){
+			shown = tail.get();
+			seen |= 1 << shown;
+		}
+	}
+
+	/**
+	 * Returns the square the piece or weapon is on
+	 * @param card Card of the piece or weapon
+	 * @return Cell y * BOARD_WIDTH + x, -1 if it is not on the board
+	 */
+	public int getCell(Card card){
+		return cells[card.ordinal()];
+	}
+
+	public int getSequence(){
+		return sequence;
+	}
+
+	public boolean isSynced(){
+		return synced;
+	}
+
+	public int getTurns(){
+		return turns;
+	}
+
+	public Status getStatus(){
+		return status;
+	}
+
+	public int getCurrentPlayerIndex(){
+		return current;
+	}
+
+	public int getDiceRoll(){
+		return dice;
+	}
+
+	/**
+	 * Returns the seats eliminated by a wrong accusation
+	 * @return One bit for each seat
+	 */
+	public int getEliminated(){
+		return eliminated;
+	}
+
+	/**
+	 * Returns whether the last suggestion sent was a suggestion or an accusation
+	 * @return SUGGESTED or ACCUSED, -1 if none was sent since the last keyframe
+	 */
+	public int getSuggestionKind(){
+		return suggestionKind;
+	}
+
+	public int getSuggester(){
+		return suggester;
+	}
+
+	public int getSuggestion(){
+		return suggestion;
+	}
+
+	/**
+	 * Returns the cards in a hand
+	 * @param seat Seat of the player
+	 * @return Mask of the cards, 0 if the viewer may not see them
+	 */
+	public int getHand(int seat){
+		return hands[seat];
+	}
+
+	/**
+	 * Returns the cards of other hands the viewing seat has been shown or worked out
+	 * @return Mask of the cards
+	 */
+	public int getSeen(){
+		return seen;
+	}
+
+	/**
+	 * Returns the murderer cards
+	 * @return Mask of the cards, 0 unless the viewer sees everything
+	 */
+	public int getEnvelope(){
+		return envelope;
+	}
+
+	/**
+	 * Returns the card shown for the last suggestion
+	 * @return Card, null if none was or the viewer may not see it
+	 */
+	public Card getShown(){
+		return shown == -1 ? null : Card.get(shown);
+	}
+
+	/**
+	 * Returns who disproved the last suggestion
+	 * @return Seat, SpectatorFeed.NONE if nobody could
+	 */
+	public int getDisprover(){
+		return disprover;
+	}
+}
@@ -0,0 +1,111 @@
+package sim;
+
+/**
+ * Totals of a batch of simulated games. Results of separate batches are combined with merge.
+ *
+ */
+public class SimulationResult {
+
+	// Piece names in the order used by pieceWins
+	public static final String[] PIECES = { "Miss Scarlett", "Colonel Mustard", "Mrs. White", "The Reverand Green",
+			"Mrs. Peacock", "Professor Plum" };
+
+	private final int players;
+
+	private long games = 0;
+	private long solved = 0;
+	private long solvedTurns = 0;
+	private final long[] seatWins;
+	private final long[] pieceGames = new long[PIECES.length];
+	private final long[] pieceWins = new long[PIECES.length];
+	private long nanos = 0;
+
+	public SimulationResult(int players) {
+		this.players = players;
+		this.seatWins = new long[players];
+	}
+
+	/**
+	 * Records a finished game
+	 * @param pieces Index in PIECES of the piece played by each seat
+	 * @param winner Seat that won, -1 if nobody solved the murder
+	 * @param turns Turns played until the game ended
+	 */
+	public void addGame(int[] pieces, int winner, int turns) {
+		games++;
+		for (int seat = 0; seat < players; seat++) {
+			pieceGames[pieces[seat]]++;
+		}
+
+		if (winner != -1) {
+			solved++;
+			solvedTurns += turns;
+			seatWins[winner]++;
+			pieceWins[pieces[winner]]++;
+		}
+	}
+
+	/**
+	 * Adds the totals of the other result to this one
+	 * @param other Result of another batch with the same number of players
+	 * @return This result
+	 */
+	public SimulationResult merge(SimulationResult other) {
+		games += other.games;
+		solved += other.solved;
+		solvedTurns += other.solvedTurns;
+		for (int seat = 0; seat < players; seat++) {
+			seatWins[seat] += other.seatWins[seat];
+		}
+		for (int piece = 0; piece < PIECES.length; piece++) {
+			pieceGames[piece] += other.pieceGames[piece];
+			pieceWins[piece] += other.pieceWins[piece];
+		}
+		return this;
+	}
+
+	public void setNanos(long nanos) {
+		this.nanos = nanos;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	public long getSolved() {
+		return solved;
+	}
+
+	public double getGamesPerSecond() {
+		return nanos == 0 ? 0 : games / (nanos / 1e9);
+	}
+
+	public double getMeanTurnsToSolution() {
+		return solved == 0 ? 0 : solvedTurns / (double) solved;
+	}
+
+	public double getSeatWinRate(int seat) {
+		return games == 0 ? 0 : seatWins[seat] / (double) games;
+	}
+
+	public double getPieceWinRate(int piece) {
+		return pieceGames[piece] == 0 ? 0 : pieceWins[piece] / (double) pieceGames[piece];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("%d games with %d players in %.2fs (%.0f games/sec)%n", games, players, nanos / 1e9,
+				getGamesPerSecond()));
+		text.append(String.format("Solved %d (%.1f%%), mean turns to solution %.1f%n", solved,
+				games == 0 ? 0 : 100.0 * solved / games, getMeanTurnsToSolution()));
+		for (int seat = 0; seat < players; seat++) {
+			text.append(String.format("  Seat %d: %.1f%% wins%n", seat + 1, 100 * getSeatWinRate(seat)));
+		}
+		for (int piece = 0; piece < PIECES.length; piece++) {
+			text.append(String.format("  %-20s %.1f%% wins in %d games%n", PIECES[piece], 100 * getPieceWinRate(piece),
+					pieceGames[piece]));
+		}
+		return text.toString();
+	}
+}
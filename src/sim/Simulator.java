@@ -0,0 +1,182 @@
+package sim;
+
+import ai.AutoPlayer;
+import game.GameRandom;
+import game.Player;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import metrics.Metrics;
+import ui.Board;
+import control.Controller;
+import control.Controller.Status;
+
+/**
+ * Plays complete games between AutoPlayers without a display.
+ * Games are split into batches across a fork-join pool, every game has its own Board and Controller so the batches
+ * share nothing but the final totals.
+ * Every game gets a random source derived from the seed of the run and the index of the game, so a run with the same
+ * seed plays exactly the same games however they are split between threads.
+ *
+ */
+public class Simulator {
+
+	// Games that go on longer than this are counted as unsolved
+	public static final int MAX_TURNS = 1000;
+
+	// Games played by one task before it stops splitting
+	private static final int BATCH_SIZE = 32;
+
+	private final int players;
+	private final ForkJoinPool pool;
+
+	// Seed the random source of every game is derived from
+	private long seed = System.nanoTime();
+
+	/**
+	 * Creates a simulator running on all the cores of the machine
+	 * @param players Number of players in each game, 3 - 6
+	 */
+	public Simulator(int players) {
+		this(players, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a simulator running on the given pool
+	 * @param players Number of players in each game, 3 - 6
+	 * @param pool Pool the games are played on
+	 */
+	public Simulator(int players, ForkJoinPool pool) {
+		if (players < 3 || players > SimulationResult.PIECES.length) {
+			throw new IllegalArgumentException("Player count should range from 3 - 6");
+		}
+		this.players = players;
+		this.pool = pool;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed of the run, so the same games are played every time
+	 * @param seed Seed every game is derived from
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Plays the given number of games
+	 * @param games Number of games to play
+	 * @return Totals of all the games
+	 */
+	public SimulationResult run(int games) {
+		long start = System.nanoTime();
+		SimulationResult result = pool.invoke(new Batch(0, games));
+		result.setNanos(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Plays one game from dealing the cards until someone solves the murder, everyone is eliminated or MAX_TURNS is
+	 * reached
+	 * @param random Source of every random choice made in the game
+	 * @param result Totals to add the game to
+	 */
+	public void playGame(GameRandom random, SimulationResult result) throws Exception {
+
+		// Random pieces for each seat so seats and pieces can be compared separately
+		int[] order = new int[SimulationResult.PIECES.length];
+		for (int i = 0; i < order.length; i++) {
+			int j = random.nextInt(i + 1);
+			order[i] = order[j];
+			order[j] = i;
+		}
+
+		Player[] gamePlayers = new Player[players];
+		for (int seat = 0; seat < players; seat++) {
+			gamePlayers[seat] = new Player("Player " + (seat + 1), SimulationResult.PIECES[order[seat]]);
+		}
+
+		Board board = new Board(random);
+		board.setUp(gamePlayers);
+		Controller controller = new Controller(board);
+		controller.setPlayers(gamePlayers);
+		controller.dealCards();
+
+		// Every seat is played by a strategy, so ticking plays the whole game
+		AutoPlayer strategy = new AutoPlayer(random);
+		for (int seat = 0; seat < players; seat++) {
+			controller.setStrategy(seat, strategy);
+		}
+
+		while (controller.getStatus() != Status.GAME_OVER && controller.getTurns() < MAX_TURNS) {
+			controller.tick();
+		}
+
+		int winner = controller.getStatus() == Status.GAME_OVER ? controller.getCurrentPlayerIndex() : -1;
+		result.addGame(order, winner, controller.getTurns() + 1);
+	}
+
+	/**
+	 * Range of games, split in half until it is small enough to play
+	 */
+	private class Batch extends RecursiveTask<SimulationResult> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		Batch(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			if (to - from > BATCH_SIZE) {
+				int middle = (from + to) >>> 1;
+				Batch left = new Batch(from, middle);
+				left.fork();
+				SimulationResult right = new Batch(middle, to).compute();
+				return right.merge(left.join());
+			}
+
+			SimulationResult result = new SimulationResult(players);
+			try {
+				for (int game = from; game < to; game++) {
+					playGame(GameRandom.forGame(seed, game), result);
+				}
+			} catch (Exception e) {
+				throw new RuntimeException("Simulated game failed", e);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Runs the simulation from the command line
+	 * @param args [games] [players] [seed]
+	 */
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+		Simulator simulator = new Simulator(players);
+		if (args.length > 2) {
+			simulator.setSeed(Long.parseLong(args[2]));
+		}
+
+		// Warm up before measuring
+		simulator.run(Math.min(games, 1000));
+		Metrics.reset();
+		Metrics.exportJmx();
+
+		System.out.println("Seed " + simulator.getSeed());
+		System.out.println(simulator.run(games));
+		Metrics.dump(System.out);
+	}
+}
@@ -0,0 +1,192 @@
+package store;
+
+import game.Card;
+import game.Item;
+import game.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ui.Board;
+import control.Controller;
+import control.GameRecorder;
+
+/**
+ * Append only log of one game, written as fixed size binary records so it can be audited and played back offline
+ * with a GameReplay.
+ *
+ * Every record is RECORD_SIZE bytes:
+ * <pre>
+ * 0  type   one of the record types below
+ * 1  seat   seat of the player, or the card of the item for MOVED
+ * 2  x      column, for MOVED
+ * 3  y      row, for MOVED
+ * 4  value  card mask, dice roll or count depending on the type
+ * 8  turn   turns finished when the event happened
+ * 12 time   milliseconds since the log was started
+ * </pre>
+ * Records are gathered in a direct buffer and written through the FileChannel when it is full, on flush and on close.
+ *
+ */
+public class GameLog implements GameRecorder, Closeable {
+
+	public static final int RECORD_SIZE = 16;
+
+	// Format of the records, in the value of the START record
+	public static final int VERSION = 1;
+
+	// Record types
+	public static final byte START = 1; // seat: number of players, value: VERSION
+	public static final byte PLAYER = 2; // seat, value: card of their piece
+	public static final byte DEAL = 3; // seat, or the number of players for the envelope, value: cards
+	public static final byte MOVED = 4; // seat: card of the item, x, y
+	public static final byte DICE = 5; // seat, value: roll
+	public static final byte SUGGEST = 6; // seat, value: cards
+	public static final byte PASS = 7; // seat
+	public static final byte REVEAL = 8; // seat, value: card revealed
+	public static final byte ACCUSE = 9; // seat, value: cards
+	public static final byte FINISH = 10; // seat
+
+	// Records gathered before each write
+	private static final int BUFFERED_RECORDS = 256;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_SIZE);
+	private final long start = System.currentTimeMillis();
+
+	private Controller controller;
+	private int records = 0;
+
+	/**
+	 * Opens the log, adding to the end of the file if it already exists
+	 * @param file File to write to
+	 * @throws IOException If the file can not be opened
+	 */
+	public GameLog(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Starts recording the game, the log is told about the deal when the cards are dealt
+	 * @param controller Controller of the game
+	 */
+	public void record(Controller controller){
+		this.controller = controller;
+		controller.setRecorder(this);
+	}
+
+	/**
+	 * Writes the players, the position of every piece and weapon and the deal
+	 */
+	@Override
+	public void dealt(Controller controller){
+		this.controller = controller;
+		Player[] players = controller.getPlayers();
+		write(START, players.length, 0, 0, VERSION);
+		for( int seat = 0; seat < players.length; seat++ ){
+			write(PLAYER, seat, 0, 0, Card.fromName(players[seat].getPieceName()).ordinal());
+		}
+
+		Board board = controller.getBoard();
+		for( int cards = Card.CHARACTERS | Card.WEAPONS; cards != 0; cards &= cards - 1 ){
+			Item item = board.getItem(Card.first(cards).getName());
+			if( item != null && item.getPosition() != null ) moved(item);
+		}
+
+		for( int seat = 0; seat < players.length; seat++ ){
+			write(DEAL, seat, 0, 0, players[seat].getHand());
+		}
+		write(DEAL, players.length, 0, 0, controller.getSolution());
+	}
+
+	@Override
+	public void diceRolled(int seat, int roll){
+		write(DICE, seat, 0, 0, roll);
+	}
+
+	@Override
+	public void moved(Item item){
+		write(MOVED, Card.fromName(item.getName()).ordinal(), item.getPosition().x, item.getPosition().y, 0);
+	}
+
+	@Override
+	public void suggested(int seat, int cards){
+		write(SUGGEST, seat, 0, 0, cards);
+	}
+
+	@Override
+	public void passed(int seat){
+		write(PASS, seat, 0, 0, 0);
+	}
+
+	@Override
+	public void revealed(int seat, Card card){
+		write(REVEAL, seat, 0, 0, card.bit());
+	}
+
+	@Override
+	public void accused(int seat, int cards){
+		write(ACCUSE, seat, 0, 0, cards);
+	}
+
+	@Override
+	public void turnFinished(int seat){
+		write(FINISH, seat, 0, 0, 0);
+	}
+
+	/**
+	 * Returns the number of records written since the log was opened
+	 * @return Number of records
+	 */
+	public int getRecords(){
+		return records;
+	}
+
+	/**
+	 * Writes the records gathered so far to the file
+	 * @throws IOException If the file can not be written
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while( buffer.hasRemaining() ){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the rest of the records and closes the file, the game is no longer recorded
+	 */
+	@Override
+	public void close() throws IOException {
+		if( controller != null && controller.getRecorder() == this ) controller.setRecorder(null);
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void write(byte type, int seat, int x, int y, int value){
+		try {
+			if( !buffer.hasRemaining() ) flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		buffer.put(type);
+		buffer.put((byte)seat);
+		buffer.put((byte)x);
+		buffer.put((byte)y);
+		buffer.putInt(value);
+		buffer.putInt(controller == null ? 0 : controller.getTurns());
+		buffer.putInt((int)(System.currentTimeMillis() - start));
+		records++;
+	}
+}
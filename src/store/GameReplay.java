@@ -0,0 +1,221 @@
+package store;
+
+import game.Card;
+import game.GameRandom;
+import game.Item;
+import game.Player;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ui.Board;
+import control.Controller;
+import control.Controller.Status;
+
+/**
+ * Plays a GameLog back into a new Board and Controller, or into a game with the same pieces in the same seats so
+ * many logs can be played back without setting up a board for each.
+ * The file is mapped into memory and read a record at a time, every record is applied through the same Controller
+ * methods the game used, so the knowledge of every player is rebuilt along with the board, the hands and the turns.
+ * Items are put on the squares written in the log, the rooms do not pick random squares again. The distances a
+ * player can move are not worked out for every roll, the moves that were made follow in the log.
+ *
+ */
+public class GameReplay {
+
+	private final MappedByteBuffer buffer;
+
+	// Game to play back into when its pieces match the log, null to always set up a new one
+	private final Controller reuse;
+
+	private Player[] players;
+	private int[] hands;
+	private Board board;
+	private Controller controller;
+	private int events = 0;
+
+	/**
+	 * Opens a log to play back
+	 * @param file File written by a GameLog
+	 * @throws IOException If the file can not be read
+	 */
+	public GameReplay(Path file) throws IOException {
+		this(file, null);
+	}
+
+	/**
+	 * Opens a log to play back into the given game, which is set up again only if its pieces are not the ones in the
+	 * log
+	 * @param file File written by a GameLog
+	 * @param reuse Game to play back into, such as the Controller of the last log played back
+	 * @throws IOException If the file can not be read
+	 */
+	public GameReplay(Path file, Controller reuse) throws IOException {
+		this.reuse = reuse;
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Plays back the whole log
+	 * @return Controller of the game as it was at the end of the log
+	 * @throws IOException If the log is damaged or does not follow the rules of the game
+	 */
+	public Controller replay() throws IOException {
+		while( step() ){
+		}
+		return controller;
+	}
+
+	/**
+	 * Plays back the next record
+	 * @return False if there are no records left
+	 * @throws IOException If the log is damaged or does not follow the rules of the game
+	 */
+	public boolean step() throws IOException {
+		if( buffer.remaining() < GameLog.RECORD_SIZE ) return false;
+
+		int position = buffer.position();
+		byte type = buffer.get(position);
+		int seat = buffer.get(position + 1);
+		int x = buffer.get(position + 2);
+		int y = buffer.get(position + 3);
+		int value = buffer.getInt(position + 4);
+		buffer.position(position + GameLog.RECORD_SIZE);
+
+		if( type != GameLog.START && players == null ){
+			throw new IOException("Log does not start with a START record");
+		}
+
+		try {
+			apply(type, seat, x, y, value);
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Record " + events + " can not be played back", e);
+		}
+		events++;
+		return true;
+	}
+
+	private void apply(byte type, int seat, int x, int y, int value) throws Exception {
+		switch( type ){
+		case GameLog.START:
+			if( value != GameLog.VERSION ) throw new IOException("Unknown log version " + value);
+			players = new Player[seat];
+			hands = new int[seat];
+			break;
+
+		case GameLog.PLAYER:
+			players[seat] = new Player("Player " + (seat + 1), Card.get(value).getName());
+
+			// Every player is known, set up the table
+			if( seat == players.length - 1 ){
+				if( samePieces(reuse, players) ){
+					controller = reuse;
+					controller.restart();
+					board = controller.getBoard();
+					players = controller.getPlayers();
+				}
+				else{
+					board = new Board(new GameRandom(0));
+					board.setUp(players);
+					controller = new Controller(board);
+					controller.setPlayers(players);
+				}
+			}
+			break;
+
+		case GameLog.DEAL:
+			if( seat < players.length ){
+				hands[seat] = value;
+			}
+			else{
+				controller.setDeal(value, hands);
+			}
+			break;
+
+		case GameLog.MOVED:
+			Item item = board.getItem(Card.get(seat).getName());
+			board.placeItem(item, x, y);
+			break;
+
+		case GameLog.DICE:
+			controller.replayDiceRoll(value);
+			controller.setStatus(Status.SELECTING_MOVE);
+			break;
+
+		case GameLog.SUGGEST:
+			controller.suggestMurderer(name(value & Card.CHARACTERS), name(value & Card.WEAPONS),
+					name(value & Card.ROOMS));
+			break;
+
+		case GameLog.PASS:
+			controller.skipRotatingPlayer();
+			break;
+
+		case GameLog.REVEAL:
+			controller.setRevealingCard(name(value));
+			break;
+
+		case GameLog.ACCUSE:
+			controller.accuseMurderer(name(value & Card.CHARACTERS), name(value & Card.WEAPONS),
+					name(value & Card.ROOMS));
+			break;
+
+		case GameLog.FINISH:
+
+			// Moves are placed straight on the board, so the turn may still look unfinished
+			Status status = controller.getStatus();
+			if( status == Status.SELECTING_MOVE || status == Status.MOVING || status == Status.ROLLING_DICE ){
+				controller.setStatus(Status.WAITING);
+			}
+			controller.finishTurn();
+			break;
+
+		default:
+			throw new IOException("Unknown record type " + type);
+		}
+	}
+
+	/**
+	 * Checks the game has the given pieces in the same seats
+	 */
+	private static boolean samePieces(Controller game, Player[] players){
+		if( game == null || game.getBoard() == null || !game.getBoard().isSetUp() ) return false;
+
+		Player[] seats = game.getPlayers();
+		if( seats == null || seats.length != players.length ) return false;
+		for( int seat = 0; seat < seats.length; seat++ ){
+			if( !seats[seat].getPieceName().equals(players[seat].getPieceName()) ) return false;
+		}
+		return true;
+	}
+
+	private static String name(int card){
+		return Card.first(card).getName();
+	}
+
+	/**
+	 * Returns the number of records played back so far
+	 * @return Number of records
+	 */
+	public int getEvents(){
+		return events;
+	}
+
+	public Controller getController(){
+		return controller;
+	}
+
+	public Board getBoard(){
+		return board;
+	}
+}
@@ -0,0 +1,143 @@
+package store;
+
+import game.Card;
+import game.GameRandom;
+import game.Item;
+import game.Player;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import ui.Board;
+import control.Controller;
+
+/**
+ * Binary snapshot of a whole game in progress, so games can be checkpointed and restored after a crash.
+ *
+ * The format starts with MAGIC and VERSION, followed by the players and their pieces, the square of every piece and
+ * weapon, the state of the random source and the state of the Controller: the turn, the hands, the envelope, the card
+ * last revealed, the eliminated players and what every player knows. Rooms are not written, an item belongs to the room of its square.
+ *
+ * Reading into a game that is already set up for the same players reuses its objects, so checkpointing and
+ * restoring the same table over and over does not allocate.
+ *
+ */
+public class Snapshot {
+
+	public static final int MAGIC = 0x434c5545;
+	public static final int VERSION = 2;
+
+	// Largest snapshot of a game with 6 players, every knowledge base holding as many clauses as it can
+	public static final int MAX_SIZE = 64 * 1024;
+
+	// Pieces and weapons, written in the order of their cards
+	private static final int ITEMS = Card.CHARACTERS | Card.WEAPONS;
+
+	private Snapshot(){
+	}
+
+	/**
+	 * Writes the game at the position of the buffer
+	 * @param controller Controller of the game, the cards must have been dealt
+	 * @param buffer Buffer with at least MAX_SIZE bytes remaining
+	 */
+	public static void write(Controller controller, ByteBuffer buffer){
+		Player[] players = controller.getPlayers();
+		Board board = controller.getBoard();
+
+		buffer.putInt(MAGIC);
+		buffer.putShort((short)VERSION);
+		buffer.put((byte)players.length);
+		for( Player player : players ){
+			buffer.put((byte)Card.fromName(player.getPieceName()).ordinal());
+		}
+
+		for( int cards = ITEMS; cards != 0; cards &= cards - 1 ){
+			Item item = board.getItem(Card.first(cards).getName());
+			buffer.put((byte)item.getPosition().x);
+			buffer.put((byte)item.getPosition().y);
+		}
+
+		buffer.putLong(controller.getRandom().getState());
+		controller.writeState(buffer);
+	}
+
+	/**
+	 * Reads a game back into a game with the same players, whose board has been set up
+	 * @param buffer Buffer positioned at the start of the snapshot
+	 * @param controller Controller to restore
+	 * @throws IOException If the snapshot is damaged, from another version or for other players
+	 */
+	public static void read(ByteBuffer buffer, Controller controller) throws IOException {
+		try {
+			int players = readHeader(buffer);
+			Player[] seats = controller.getPlayers();
+			if( seats == null || seats.length != players ){
+				throw new IOException("Snapshot is for " + players + " players");
+			}
+			for( Player player : seats ){
+				if( buffer.get() != Card.fromName(player.getPieceName()).ordinal() ){
+					throw new IOException("Snapshot is for other pieces");
+				}
+			}
+
+			readGame(buffer, controller);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Snapshot is cut short", e);
+		}
+	}
+
+	/**
+	 * Reads a game into a new Board and Controller
+	 * @param buffer Buffer positioned at the start of the snapshot
+	 * @return Controller of the restored game
+	 * @throws IOException If the snapshot is damaged or from another version
+	 */
+	public static Controller load(ByteBuffer buffer) throws IOException {
+		try {
+			Player[] players = new Player[readHeader(buffer)];
+			for( int seat = 0; seat < players.length; seat++ ){
+				players[seat] = new Player("Player " + (seat + 1), Card.get(buffer.get()).getName());
+			}
+
+			Board board = new Board(new GameRandom());
+			board.setUp(players);
+			Controller controller = new Controller(board);
+			controller.setPlayers(players);
+
+			readGame(buffer, controller);
+			return controller;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Snapshot is cut short", e);
+		}
+	}
+
+	private static int readHeader(ByteBuffer buffer) throws IOException {
+		if( buffer.getInt() != MAGIC ){
+			throw new IOException("Not a snapshot");
+		}
+		int version = buffer.getShort();
+		if( version != VERSION ){
+			throw new IOException("Unknown snapshot version " + version);
+		}
+		return buffer.get();
+	}
+
+	private static void readGame(ByteBuffer buffer, Controller controller){
+		Board board = controller.getBoard();
+		for( int cards = ITEMS; cards != 0; cards &= cards - 1 ){
+			Item item = board.getItem(Card.first(cards).getName());
+			int x = buffer.get();
+			int y = buffer.get();
+
+			// Only items that moved are placed, so restoring the same game again does not allocate
+			if( item.getPosition().x != x || item.getPosition().y != y ){
+				board.placeItem(item, x, y);
+			}
+		}
+
+		controller.getRandom().setState(buffer.getLong());
+		controller.readState(buffer);
+	}
+}
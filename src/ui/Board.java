@@ -1,6 +1,7 @@
 package ui;
 
 import game.Door;
+import game.GameRandom;
 import game.InvalidMoveException;
 import game.Item;
 import game.Piece;
@@ -9,24 +10,26 @@ import game.Portal;
 import game.Room;
 import game.Weapon;
 
-import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.Random;
+import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.management.RuntimeErrorException;
-import javax.swing.ImageIcon;
 
+import metrics.Histogram;
+import metrics.Metrics;
 import control.AMove_Node;
 
 /**
@@ -40,6 +43,12 @@ public class Board implements Cloneable{
 	public static final int TILE_WIDTH = 25;
 	public static final int TILE_HEIGHT = 25;
 	public static final int WALL_THICKNESS = 4;
+	public static final int CELLS = BOARD_WIDTH*BOARD_HEIGHT;
+
+	// Room mask allowing a move into any room
+	public static final int ANY_ROOM = -1;
+
+	private static final Histogram SET_UP_TIME = Metrics.histogram("board.setUp", "ns");
 
 	// roomSet of which contains a 2D array of the rooms on the map
 	private Square[][] layout = new Square[BOARD_WIDTH][BOARD_HEIGHT]; // [x][y]
@@ -50,6 +59,9 @@ public class Board implements Cloneable{
 	// Maps from room name to the room itself
 	private HashMap<String,Room> roomMap = new HashMap<String,Room>();
 
+	// Layout of the rooms read from rooms.txt, shared by every board
+	private static String[] roomLayout = null;
+
 	// Statics positions where the pieces will always start
 	private static HashMap<String, Point> pieceStartingPosition = new HashMap<String, Point>(){{
 		put("Mrs. White",new Point(9,0));
@@ -76,11 +88,44 @@ public class Board implements Cloneable{
 	// Boolean to indicate if the board has been setUp or not.
 	private boolean hasBeenSetUp = false;
 
+	// Incremented before and after a piece changes square, so it is odd while the squares are changing. Used to know
+	// when paths found earlier are out of date, also by searches running on another thread
+	private volatile int occupancyVersion = 0;
+
+	// Random source of the game, used to place the weapons and pieces in rooms
+	private GameRandom random;
+
+	// Told about the squares items are put on or taken off, added to on the EDT while the game thread tells them
+	private List<BoardListener> listeners = new CopyOnWriteArrayList<BoardListener>();
+
+	// Neighbour table compiled in setUp, indexed by cell id (y*BOARD_WIDTH+x)
+	// neighbours holds the cells that can be moved to, neighbourRooms holds the bit of the room a move enters
+	// when it goes from the corridor into a room (0 if the move is not restricted by the room exception)
+	private int[][] neighbours;
+	private int[][] neighbourRooms;
+
+	// Index in roomList of the room each cell belongs to, -1 for corridors and squares outside the board
+	private int[] cellRooms;
+
+	// Door edges for each room in roomList, stored as pairs of cells {from, to, from, to, ...}
+	private int[][] roomEntries;
+	private int[][] roomExits;
+
 	/**
 	 * Creates a new board object.
 	 * Sets up the board layout consisting of each square being a blank square where they are not a room, Piece or weapon.
 	 */
 	public Board(){
+		this(new GameRandom());
+	}
+
+	/**
+	 * Creates a new board object that makes its random choices from the given source, so the same seed places
+	 * everything in the same squares.
+	 * @param random Random source of the game
+	 */
+	public Board(GameRandom random){
+		this.random = random;
 
 		// Sets up the game with all the rooms, pieces and weapons
 		setUpRooms();
@@ -106,13 +151,17 @@ public class Board implements Cloneable{
 		int newX = move.getPoint().x;
 		int newY = move.getPoint().y;
 
-		// Make sure we can move to that location
-		if( !layout[newX][newY].canContainPiece() ){
+		// Make sure we can move to that location, weapons can share a square with a piece
+		if( item instanceof Weapon ? !layout[newX][newY].canContainWeapon() : !layout[newX][newY].canContainPiece() ){
 			throw new InvalidMoveException(newX + "," + newY + " already contains a piece. ( Can't jump over other pieces ) ");
 		}
 
+		// Pieces are about to change squares
+		if( item instanceof Piece ) occupancyVersion++;
+
 		// Remove item from board
-		layout[item.getPosition().x][item.getPosition().y].removeItem(item);
+		Point from = item.getPosition();
+		layout[from.x][from.y].removeItem(item);
 
 		/** Perform the move */
 		// Assign the item to be at that position on the board
@@ -131,7 +180,7 @@ public class Board implements Cloneable{
 				// Get a randomSquare that can contain the Piece
 				Square randomSquare = null;
 				while( randomSquare == null || !randomSquare.canContainPiece() ){
-					randomSquare = layout[newX][newY].getRoom().getRandomSquare();
+					randomSquare = layout[newX][newY].getRoom().getRandomSquare(random);
 				}
 
 				// Set the piece to the random Square
@@ -150,7 +199,13 @@ public class Board implements Cloneable{
 				// Unhandled Exception, should never get here unless the room is null
 				throw new RuntimeException("Piece moved to an area that is not a room or a corridoor Room(" + layout[newX][newY].isRoom() + ")" );
 			}
+
+			// Squares pieces can walk through have changed
+			occupancyVersion++;
 		}
+
+		fireSquaresChanged(new Rectangle(from.x, from.y, 1, 1));
+		fireSquaresChanged(new Rectangle(item.getPosition().x, item.getPosition().y, 1, 1));
 	}
 
 	/**
@@ -171,11 +226,11 @@ public class Board implements Cloneable{
 
 			// Move Piece to a random position in the room
 			Square randomSquare = null;
-			for( randomSquare = room.getRandomSquare(); !randomSquare.canContainPiece(); randomSquare = room.getRandomSquare()){}
+			for( randomSquare = room.getRandomSquare(random); !randomSquare.canContainPiece(); randomSquare = room.getRandomSquare(random)){}
 			movePiece(new AMove_Node(randomSquare.getPosition(), 0, 0, null), piece);
 
 			// Move Weapon to that position
-			for( randomSquare = room.getRandomSquare(); !randomSquare.canContainWeapon(); randomSquare = room.getRandomSquare()){}
+			for( randomSquare = room.getRandomSquare(random); !randomSquare.canContainWeapon(); randomSquare = room.getRandomSquare(random)){}
 			movePiece(new AMove_Node(randomSquare.getPosition(), 0, 0, null), weapon);
 
 		} catch (InvalidMoveException e) {
@@ -184,6 +239,74 @@ public class Board implements Cloneable{
 
 	}
 
+	/**
+	 * Returns the piece or weapon with the given name
+	 * @param name Name of the piece or weapon
+	 * @return The item, null if there is no item with that name
+	 */
+	public Item getItem(String name){
+		Item item = pieceMap.get(name);
+		return item != null ? item : weaponMap.get(name);
+	}
+
+	/**
+	 * Puts the item straight onto the square, without the movement rules or picking a random square in a room.
+	 * Used to restore a game that was saved or logged, where the square is already known.
+	 * @param item Piece or weapon to place
+	 * @param x Column of the square
+	 * @param y Row of the square
+	 */
+	public void placeItem(Item item, int x, int y){
+		Square from = layout[item.getPosition().x][item.getPosition().y];
+		Square to = layout[x][y];
+
+		// Take it off the square it was on
+		if( item instanceof Weapon ){
+			if( from.getWeapon() == item ) from.setWeapon(null);
+			if( item.getRoom() != null ) item.getRoom().removeWeapon((Weapon)item);
+			to.setWeapon((Weapon)item);
+			to.getRoom().addWeapon((Weapon)item);
+		}
+		else{
+			occupancyVersion++;
+			if( from.getPiece() == item ) from.setPiece(null);
+			to.setPiece((Piece)item);
+			occupancyVersion++;
+		}
+
+		item.setRoom(to.getRoom());
+		item.setPosition(x, y);
+
+		fireSquaresChanged(new Rectangle(from.getPosition().x, from.getPosition().y, 1, 1));
+		fireSquaresChanged(new Rectangle(x, y, 1, 1));
+	}
+
+	/**
+	 * Adds a listener that will be told every time items are put on or taken off squares
+	 * @param listener Listener such as the panel drawing the board
+	 */
+	public void addListener(BoardListener listener){
+		listeners.add(listener);
+	}
+
+	/**
+	 * Stops telling the listener about changed squares
+	 * @param listener Listener added with addListener
+	 */
+	public void removeListener(BoardListener listener){
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Tells all the listeners the squares have changed
+	 * @param squares Squares that changed, in board coordinates
+	 */
+	private void fireSquaresChanged(Rectangle squares){
+		for( BoardListener listener : listeners ){
+			listener.squaresChanged(this, squares);
+		}
+	}
+
 	@Override
 	public Board clone(){
 		Board clone = null;
@@ -203,85 +326,24 @@ public class Board implements Cloneable{
 			}
 		}
 
+		// The copy is not the board being drawn
+		clone.listeners = new CopyOnWriteArrayList<BoardListener>();
 
 		return clone;
 	}
 
-	/**
-	 * Draws the board on the graphics pane provided
-	 * @param g
-	 */
-	public void draw(Graphics g){
-
-		// We should never have a null, if it's null then we haven't set the board up yet.
-		if( layout[0][0] == null){return;}
-
-		// Draw background
-		for( int x = 0; x < BOARD_WIDTH; x++ ){
-			for( int y = 0; y < BOARD_HEIGHT; y++ ){
-
-				// Draw Square base colour
-				layout[x][y].draw(g, x*TILE_WIDTH, y*TILE_HEIGHT, TILE_WIDTH, TILE_HEIGHT);
-
-				// Draw walls of rooms
-				if( layout[x][y].isRoom() ){
-
-					g.setColor(new Color(58,19,50));
-
-					//		N
-					//	E		W
-					//		S
-
-					// East Wall
-					if( x-1 >= 0 && !layout[x-1][y].isRoom() &&  ( !(layout[x][y] instanceof Door) || ((Door)layout[x][y]).getDirection() == Door.VERTICAL ) ){
-						g.fillRect( x*TILE_WIDTH, y*TILE_HEIGHT, WALL_THICKNESS, TILE_HEIGHT+1);
-					}
-
-					// WEST Wall
-					if( x+1 < BOARD_WIDTH && !layout[x+1][y].isRoom() &&  ( !(layout[x][y] instanceof Door) || ((Door)layout[x][y]).getDirection() == Door.VERTICAL ) ){
-						g.fillRect( x*TILE_WIDTH+TILE_WIDTH-WALL_THICKNESS+1, y*TILE_HEIGHT, WALL_THICKNESS, TILE_HEIGHT+1);
-					}
-
-					// North Wall
-					if( y-1 >= 0 && !layout[x][y-1].isRoom() &&  ( !(layout[x][y] instanceof Door) || ((Door)layout[x][y]).getDirection() == Door.HORIZONTAL ) ){
-						g.fillRect( x*TILE_WIDTH, y*TILE_HEIGHT, TILE_WIDTH+1, WALL_THICKNESS);
-					}
-
-					// South Wall
-					if( y+1 < BOARD_HEIGHT && !layout[x][y+1].isRoom() &&  ( !(layout[x][y] instanceof Door) || ((Door)layout[x][y]).getDirection() == Door.HORIZONTAL ) ){
-						g.fillRect( x*TILE_WIDTH, y*TILE_HEIGHT+TILE_HEIGHT-WALL_THICKNESS/2-1, TILE_WIDTH+1, WALL_THICKNESS);
-					}
-				}
-			}
-		}
-
-		// Draw Name of room in the center of the room
-		g.setColor(Color.black);
-		for(Room room : roomList){
-
-			// Do not draw name for corridors
-			if( room.getName().equals(Room.CORRIDOR) ) continue;
-
-			Rectangle bounds = room.getBounds();
-			int x = (TILE_WIDTH *bounds.x) +  (TILE_WIDTH * bounds.width/2) - g.getFontMetrics().stringWidth(room.getName())/2;
-			int y = (TILE_HEIGHT *bounds.y) + (TILE_HEIGHT * bounds.height/2);
-			g.drawString(room.getName(), x, y);
-		}
-
-	}
-
 	/**
 	 * Sets up all the weapons and weapon mapping from weaponName to weapon object
 	 */
 	private void setUpWeapons(){
 
 		// List of all weapons in the game
-		weaponList.add(new Weapon("Lead Pipe",null, new ImageIcon("src/resources/lead_pipe.png")));
-		weaponList.add(new Weapon("Rope",null, new ImageIcon("src/resources/rope.png")));
-		weaponList.add(new Weapon("Wrench",null, new ImageIcon("src/resources/wrench.png")));
-		weaponList.add(new Weapon("Revolver",null, new ImageIcon("src/resources/revolver.png")));
-		weaponList.add(new Weapon("Dagger",null, new ImageIcon("src/resources/dagger.png")));
-		weaponList.add(new Weapon("Candlestick",null, new ImageIcon("src/resources/candlestick.png")));
+		weaponList.add(new Weapon("Lead Pipe",null, "src/resources/lead_pipe.png"));
+		weaponList.add(new Weapon("Rope",null, "src/resources/rope.png"));
+		weaponList.add(new Weapon("Wrench",null, "src/resources/wrench.png"));
+		weaponList.add(new Weapon("Revolver",null, "src/resources/revolver.png"));
+		weaponList.add(new Weapon("Dagger",null, "src/resources/dagger.png"));
+		weaponList.add(new Weapon("Candlestick",null, "src/resources/candlestick.png"));
 
 		// List of all weapons in the game
 		weaponMap.put("Lead Pipe",weaponList.get(0));
@@ -328,12 +390,12 @@ public class Board implements Cloneable{
 	private void setUpPieces(){
 
 		// List of all Piece in the game
-		pieceList.add(new Piece("Mrs. White",null, new ImageIcon("src/resources/piece_white.png")));
-		pieceList.add(new Piece("The Reverand Green",null,new ImageIcon("src/resources/piece_green.png")));
-		pieceList.add(new Piece("Mrs. Peacock",null,new ImageIcon("src/resources/piece_blue.png")));
-		pieceList.add(new Piece("Colonel Mustard",null,new ImageIcon("src/resources/piece_yellow.png")));
-		pieceList.add(new Piece("Miss Scarlett",null,new ImageIcon("src/resources/piece_red.png")));
-		pieceList.add(new Piece("Professor Plum",null,new ImageIcon("src/resources/piece_purple.png")));
+		pieceList.add(new Piece("Mrs. White",null, "src/resources/piece_white.png"));
+		pieceList.add(new Piece("The Reverand Green",null,"src/resources/piece_green.png"));
+		pieceList.add(new Piece("Mrs. Peacock",null,"src/resources/piece_blue.png"));
+		pieceList.add(new Piece("Colonel Mustard",null,"src/resources/piece_yellow.png"));
+		pieceList.add(new Piece("Miss Scarlett",null,"src/resources/piece_red.png"));
+		pieceList.add(new Piece("Professor Plum",null,"src/resources/piece_purple.png"));
 
 		// Mapping from PieceName to the Piece Object
 		pieceMap.put("Mrs. White",pieceList.get(0));
@@ -344,6 +406,36 @@ public class Board implements Cloneable{
 		pieceMap.put("Professor Plum",pieceList.get(5));
 	}
 
+	/**
+	 * Returns the lines of rooms.txt. The file is only read the first time, every board after that shares the lines.
+	 * @return Each row of the board layout
+	 */
+	private static synchronized String[] getRoomLayout(){
+		if( roomLayout != null ) return roomLayout;
+
+		Scanner scan = null;
+		try {
+			scan = new Scanner(new File("src/rooms.txt"));
+		} catch (FileNotFoundException e) {
+
+			// Not running from the project folder, look on the classpath instead
+			InputStream stream = Board.class.getResourceAsStream("/rooms.txt");
+			if( stream == null ){
+				throw new RuntimeException("Can not find rooms.txt", e);
+			}
+			scan = new Scanner(stream);
+		}
+
+		ArrayList<String> lines = new ArrayList<String>();
+		while( scan.hasNext() ){
+			lines.add(scan.next());
+		}
+		scan.close();
+
+		roomLayout = lines.toArray(new String[lines.size()]);
+		return roomLayout;
+	}
+
 	/**
 	 * Sets up the board assigning all squares to the appropriate rooms
 	 * @param players The players of which will all be attending the game. Must be at length 6
@@ -355,21 +447,17 @@ public class Board implements Cloneable{
 			throw new RuntimeErrorException(null, "Player count should range from 3 - 6");
 		}
 
-		Scanner scan = null;
-		try {
-			scan = new Scanner(new File("src/rooms.txt"));
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
-
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		occupancyVersion++;
+		String[] lines = getRoomLayout();
 
 		// Doors saved to look at later
 		ArrayList<Point> doors = new ArrayList<Point>();
 		LinkedHashMap<Point,Character> portals = new LinkedHashMap<Point,Character>();
 
-		for(int y = 0; scan.hasNext(); y++ ){
+		for(int y = 0; y < lines.length; y++ ){
 
-			String line = scan.next();
+			String line = lines[y];
 			for(int x = 0; x < line.length(); x++ ){
 				char c = line.charAt(x);
 
@@ -479,6 +567,9 @@ public class Board implements Cloneable{
 			square.getRoom().addSquare(nextSquare);
 		}
 
+		// Topology will not change until the next setUp
+		buildNeighbourTable();
+
 		// Assign players positions and pieces
 		for( int i = 0; i < players.length; i++){
 
@@ -524,16 +615,16 @@ public class Board implements Cloneable{
 			}
 
 			// Choose a random room to put the weapon in
-			Room randomRoom = roomList.get(new Random().nextInt(roomList.size()));
+			Room randomRoom = roomList.get(random.nextInt(roomList.size()));
 			while( randomRoomlist.contains(randomRoom) ){
-				randomRoom = roomList.get(new Random().nextInt(roomList.size()));
+				randomRoom = roomList.get(random.nextInt(roomList.size()));
 			}
 			randomRoomlist.add(randomRoom);
 
 			// Put the weapon in a random square of the room
-			Square randomSquare = randomRoom.getRandomSquare();
+			Square randomSquare = randomRoom.getRandomSquare(random);
 			while( !randomSquare.canContainWeapon() ){
-				randomSquare = randomRoom.getRandomSquare();
+				randomSquare = randomRoom.getRandomSquare(random);
 			}
 			randomSquare.setWeapon(weapon);
 
@@ -546,6 +637,9 @@ public class Board implements Cloneable{
 
 		// Indicate that the board ahs been set up
 		hasBeenSetUp = true;
+		occupancyVersion++;
+		fireSquaresChanged(new Rectangle(0, 0, BOARD_WIDTH, BOARD_HEIGHT));
+		if( Metrics.ENABLED ) SET_UP_TIME.recordSince(start);
 	}
 
 	/**
@@ -567,6 +661,29 @@ public class Board implements Cloneable{
 		return null;
 	}
 
+	/**
+	 * Returns a number that changes every time a piece moves to another square through movePiece, moveToRoom or setUp.
+	 * Anything worked out from the positions of the pieces is still valid while the version stays the same.
+	 * The version is odd while the pieces are being moved, so something reading the board on another thread can
+	 * check it read the same even version before and after.
+	 * @return Occupancy version of the board
+	 */
+	public int getOccupancyVersion(){
+		return occupancyVersion;
+	}
+
+	/**
+	 * Returns the random source the board makes its choices from
+	 * @return Random source of the game
+	 */
+	public GameRandom getRandom(){
+		return random;
+	}
+
+	public void setRandom(GameRandom random){
+		this.random = random;
+	}
+
 	/**
 	 * Checks if the board has been setup using the setUp command yet
 	 * @return True if the board has already been setup
@@ -585,18 +702,195 @@ public class Board implements Cloneable{
 		return layout[x/TILE_WIDTH][y/TILE_HEIGHT];
 	}
 
+	/**
+	 * Retrieves the square at the given board coordinates, without dividing by the tile size
+	 * @param x Column of the square
+	 * @param y Row of the square
+	 * @return Square at the position
+	 */
+	public Square getSquareAt(int x, int y){
+		return layout[x][y];
+	}
+
 	public ArrayList<Square> getAdjacentSquares(int x, int y, Square exception){
 		ArrayList<Square> list = new ArrayList<Square>();
 
-		if( x-1 >= 0 &&           validMove(layout[x][y], layout[x-1][y], exception) ){ list.add(layout[x-1][y] ); }
-		if( x+1 < BOARD_WIDTH &&  validMove(layout[x][y], layout[x+1][y], exception) ){ list.add(layout[x+1][y] ); }
-		if( y-1 >= 0 &&           validMove(layout[x][y], layout[x][y-1], exception) ){ list.add(layout[x][y-1] ); }
-		if( y+1 < BOARD_HEIGHT && validMove(layout[x][y], layout[x][y+1], exception) ){ list.add(layout[x][y+1] ); }
-
+		int cell = y*BOARD_WIDTH + x;
+		int roomMask = getRoomMask(exception);
+		int[] next = neighbours[cell];
+		int[] rooms = neighbourRooms[cell];
+		for( int i = 0; i < next.length; i++ ){
+			if( canEnter(rooms[i], roomMask) ){
+				list.add( layout[next[i]%BOARD_WIDTH][next[i]/BOARD_WIDTH] );
+			}
+		}
 
 		return list;
 	}
 
+	/**
+	 * Compiles the neighbour table and the door edges of every room from the current layout.
+	 * Moves are checked once using validMove, only the room exception is left to be checked for each query.
+	 */
+	private void buildNeighbourTable(){
+		neighbours = new int[CELLS][];
+		neighbourRooms = new int[CELLS][];
+		cellRooms = new int[CELLS];
+
+		int[] next = new int[4];
+		int[] rooms = new int[4];
+		ArrayList<ArrayList<Integer>> entries = new ArrayList<ArrayList<Integer>>();
+		ArrayList<ArrayList<Integer>> exits = new ArrayList<ArrayList<Integer>>();
+		for( int i = 0; i < roomList.size(); i++ ){
+			entries.add(new ArrayList<Integer>());
+			exits.add(new ArrayList<Integer>());
+		}
+
+		for( int x = 0; x < BOARD_WIDTH; x++ ){
+			for( int y = 0; y < BOARD_HEIGHT; y++ ){
+				Square from = layout[x][y];
+				int cell = y*BOARD_WIDTH + x;
+				int count = 0;
+
+				cellRooms[cell] = from.isRoom() ? roomList.indexOf(from.getRoom()) : -1;
+
+				// Same order as the squares were always checked in: left, right, up, down
+				for( int direction = 0; direction < 4; direction++ ){
+					int nx = x + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+					int ny = y + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+					if( nx < 0 || nx >= BOARD_WIDTH || ny < 0 || ny >= BOARD_HEIGHT ) continue;
+
+					Square to = layout[nx][ny];
+					if( !validMove(from, to, null) ) continue;
+
+					int neighbour = ny*BOARD_WIDTH + nx;
+					next[count] = neighbour;
+					rooms[count] = 0;
+
+					// Entering a room through a door, only allowed when it's the room we want
+					if( from.isCorridoor() && to.isRoom() ){
+						int index = roomList.indexOf(to.getRoom());
+						rooms[count] = 1 << index;
+						entries.get(index).add(cell);
+						entries.get(index).add(neighbour);
+					}
+					// Leaving a room through a door
+					else if( from.isRoom() && to.isCorridoor() ){
+						int index = roomList.indexOf(from.getRoom());
+						exits.get(index).add(cell);
+						exits.get(index).add(neighbour);
+					}
+					count++;
+				}
+
+				neighbours[cell] = Arrays.copyOf(next, count);
+				neighbourRooms[cell] = Arrays.copyOf(rooms, count);
+			}
+		}
+
+		roomEntries = new int[roomList.size()][];
+		roomExits = new int[roomList.size()][];
+		for( int i = 0; i < roomList.size(); i++ ){
+			roomEntries[i] = toArray(entries.get(i));
+			roomExits[i] = toArray(exits.get(i));
+		}
+	}
+
+	private static int[] toArray(ArrayList<Integer> list){
+		int[] array = new int[list.size()];
+		for( int i = 0; i < array.length; i++ ){
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Returns the cells that can be moved to from the given cell, ignoring the room exception.
+	 * Use canEnter with the matching getNeighbourRooms value to apply the exception. Do not modify the array.
+	 * @param cell Cell id (y*BOARD_WIDTH+x)
+	 * @return Cell ids of the legal neighbours
+	 */
+	public int[] getNeighbours(int cell){
+		return neighbours[cell];
+	}
+
+	/**
+	 * Returns the room bit for each of the moves in getNeighbours.
+	 * 0 if the move does not enter a room, otherwise the bit of the room the move enters.
+	 * @param cell Cell id (y*BOARD_WIDTH+x)
+	 * @return Room bits matching getNeighbours(cell)
+	 */
+	public int[] getNeighbourRooms(int cell){
+		return neighbourRooms[cell];
+	}
+
+	/**
+	 * Returns the room mask for the given exception square, to be used with canEnter
+	 * @param exception Square containing the room we are allowed to enter, null for any room
+	 * @return Mask of the rooms that can be entered
+	 */
+	public int getRoomMask(Square exception){
+		if( exception == null ) return ANY_ROOM;
+		if( exception.getRoom() == null ) return 0;
+
+		int index = roomList.indexOf(exception.getRoom());
+		return index == -1 ? 0 : 1 << index;
+	}
+
+	/**
+	 * Checks if a move with the given room bit is allowed by the room mask
+	 * @param roomBit Value from getNeighbourRooms
+	 * @param roomMask Value from getRoomMask
+	 * @return True if the move can be made
+	 */
+	public static boolean canEnter(int roomBit, int roomMask){
+		return roomBit == 0 || (roomBit & roomMask) != 0;
+	}
+
+	/**
+	 * Returns the index of the room the cell belongs to
+	 * @param cell Cell id (y*BOARD_WIDTH+x)
+	 * @return Index in getRooms(), -1 if the cell is not part of a room
+	 */
+	public int getRoomIndex(int cell){
+		return cellRooms[cell];
+	}
+
+	/**
+	 * Returns the index of the room, the same index used by the room masks
+	 * @param room Room on this board
+	 * @return Index in getRooms()
+	 */
+	public int getRoomIndex(Room room){
+		return roomList.indexOf(room);
+	}
+
+	/**
+	 * Returns all the rooms on the board, including the corridor
+	 * @return List of rooms
+	 */
+	public ArrayList<Room> getRooms(){
+		return roomList;
+	}
+
+	/**
+	 * Returns the door edges entering the room, as pairs of cells {corridor, door, corridor, door, ...}
+	 * @param room Room on this board
+	 * @return Pairs of cell ids
+	 */
+	public int[] getRoomEntries(Room room){
+		return roomEntries[roomList.indexOf(room)];
+	}
+
+	/**
+	 * Returns the door edges leaving the room, as pairs of cells {door, corridor, door, corridor, ...}
+	 * @param room Room on this board
+	 * @return Pairs of cell ids
+	 */
+	public int[] getRoomExits(Room room){
+		return roomExits[roomList.indexOf(room)];
+	}
+
 	/**
 	 * Checks if it's a valid move to move between the two squares
 	 * The exception parameter is meant to contain a square that contains the room we want to move to if any.
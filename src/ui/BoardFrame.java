@@ -1,5 +1,6 @@
 package ui;
 
+import game.Card;
 import game.Player;
 
 import java.awt.BorderLayout;
@@ -17,7 +18,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.AbstractAction;
 import javax.swing.ButtonGroup;
@@ -34,13 +35,19 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 
+import ai.AutoPlayer;
+import ai.EnvelopeProbability;
+import ai.KnowledgeBase;
 import control.AlreadySuggestedException;
 import control.Controller;
+import control.GameListener;
 import control.TurnNotFinishedException;
 import control.Controller.Status;
 import control.PlayerEliminatedException;
+import control.SuggestionResult;
 
 public class BoardFrame extends JFrame implements WindowListener {
 
@@ -50,8 +57,18 @@ public class BoardFrame extends JFrame implements WindowListener {
 	private static final long serialVersionUID = 1L;
 
 	private Controller controller;
+	private BoardPanel panel;
 	private List<Player> players = new ArrayList<Player>();
 
+	// Odds of each card being a murderer card, shown with the hints
+	private EnvelopeProbability odds = new EnvelopeProbability();
+
+	// Time a bot may think about each decision
+	private static final long BOT_BUDGET_MILLIS = 200;
+
+	// Seat shown as the current player
+	private int shownPlayer = -1;
+
 	// These fields are used for entering the player's input.
 	JTextField name1;
 	JTextField name2;
@@ -92,10 +109,30 @@ public class BoardFrame extends JFrame implements WindowListener {
 	 */
 	private void setupBoard() {
 		// Set the panel to the controller and deal the cards to the players.
-		BoardPanel panel = new BoardPanel(controller.getBoard(), controller);
-		controller.setPanel(panel);
+		panel = new BoardPanel(controller.getBoard(), controller);
+		controller.addListener(panel);
 		controller.dealCards();
 
+		// Bots think on the shared decision threads of the controller, so a
+		// slow one can not freeze the game
+		controller.setDecisionBudget(BOT_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+
+		// Bots finish their turns without the buttons, keep the controls up
+		// to date with whose turn it is
+		controller.addListener(new GameListener() {
+
+			@Override
+			public void boardChanged(Controller controller) {
+				SwingUtilities.invokeLater(new Runnable() {
+
+					@Override
+					public void run() {
+						showCurrentPlayer();
+					}
+				});
+			}
+		});
+
 		super.setLayout(new BorderLayout());
 
 		// Set up the menu bar.
@@ -147,6 +184,29 @@ public class BoardFrame extends JFrame implements WindowListener {
 			}
 		});
 		options.add(menuItem);
+		menuItem = new JMenuItem(new AbstractAction("Let a Bot Play") {
+
+			// The current player hands their seat over to a bot
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				int seat = controller.getCurrentPlayerIndex();
+				if (seat != -1 && controller.getStrategy(seat) == null) {
+					controller.setStrategy(seat,
+							new AutoPlayer(controller.getRandom()));
+					shownPlayer = -1;
+					showCurrentPlayer();
+				}
+			}
+		});
+		options.add(menuItem);
+		menuItem = new JMenuItem(new AbstractAction("Hints") {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				showHints();
+			}
+		});
+		options.add(menuItem);
 
 		menuBar.add(file);
 		menuBar.add(options);
@@ -161,7 +221,7 @@ public class BoardFrame extends JFrame implements WindowListener {
 		playerName = new JLabel();
 		playerName.setText("Current Player:   "
 				+ controller.getCurrentPlayer().getName());
-		playerName.setIcon(controller.getCurrentPlayer().getPiece().getImage());
+		playerName.setIcon(panel.getRenderer().getIcon(controller.getCurrentPlayer().getPiece()));
 
 		playerInfo.add(playerName);
 
@@ -184,9 +244,8 @@ public class BoardFrame extends JFrame implements WindowListener {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				int roll = new Random().nextInt(12) + 1;
+				int roll = controller.rollDice();
 				numberDice.setText(Integer.toString(roll));
-				controller.setDiceRoll(roll);
 				rollDice.setEnabled(false); // A player cannot roll the dice
 											// twice in his turn.
 				controller.setStatus(Status.SELECTING_MOVE);
@@ -240,22 +299,7 @@ public class BoardFrame extends JFrame implements WindowListener {
 			public void actionPerformed(ActionEvent e) {
 				try {
 					controller.finishTurn();
-
-					// Setting up things in the GUI for the next player's turn.
-					rollDice.setEnabled(true);
-					numberDice.setText("");
-					playerName.setText("Current Player: "
-							+ controller.getCurrentPlayer().getName());
-					playerName.setIcon(controller.getCurrentPlayer().getPiece()
-							.getImage());
-					String[] playerCards = new String[playerCards().length + 1];
-					for (int i = 0; i < playerCards().length; i++)
-						playerCards[i] = playerCards()[i];
-					playerCards[playerCards.length - 1] = "Player's Cards";
-					DefaultComboBoxModel model = new DefaultComboBoxModel(
-							playerCards);
-					cardList.setModel(model);
-					cardList.setSelectedIndex(playerCards.length - 1);
+					showCurrentPlayer();
 				} catch (TurnNotFinishedException ex) {
 					JOptionPane
 							.showMessageDialog(BoardFrame.this,
@@ -281,6 +325,57 @@ public class BoardFrame extends JFrame implements WindowListener {
 		super.setVisible(true);
 	}
 
+	/**
+	 * Sets up the controls for the player whose turn it is, when the turn has
+	 * moved on since they were last shown. Seats played by bots can not use
+	 * the controls.
+	 */
+	private void showCurrentPlayer() {
+		int seat = controller.getCurrentPlayerIndex();
+
+		// A bot has won or everyone has been eliminated
+		if (controller.getStatus() == Status.GAME_OVER) {
+			if (shownPlayer != -2) {
+				shownPlayer = -2;
+				Player winner = controller.getCurrentPlayer();
+				JOptionPane.showMessageDialog(BoardFrame.this,
+						(winner != null ? "The winner is " + winner.getName()
+								+ "!" : "The murderer escapes!")
+								+ "\nIt was "
+								+ controller.getMurdererCharacter() + " with the "
+								+ controller.getMurdererWeapon() + " in the "
+								+ controller.getMurdererRoom() + ".");
+			}
+			return;
+		}
+
+		if (seat == shownPlayer) {
+			return;
+		}
+		shownPlayer = seat;
+
+		// Setting up things in the GUI for the next player's turn.
+		boolean person = controller.getStrategy(seat) == null;
+		rollDice.setEnabled(person
+				&& controller.getStatus() == Status.ROLLING_DICE);
+		suggest.setEnabled(person);
+		accuse.setEnabled(person);
+		finishTurn.setEnabled(person);
+		numberDice.setText("");
+		playerName.setText("Current Player: "
+				+ controller.getCurrentPlayer().getName()
+				+ (person ? "" : " (bot)"));
+		playerName.setIcon(panel.getRenderer().getIcon(
+				controller.getCurrentPlayer().getPiece()));
+		String[] playerCards = new String[playerCards().length + 1];
+		for (int i = 0; i < playerCards().length; i++)
+			playerCards[i] = playerCards()[i];
+		playerCards[playerCards.length - 1] = "Player's Cards";
+		DefaultComboBoxModel model = new DefaultComboBoxModel(playerCards);
+		cardList.setModel(model);
+		cardList.setSelectedIndex(playerCards.length - 1);
+	}
+
 	/**
 	 * This method displays the dialog where the players have to enter their
 	 * names and their desired pieces. The game requires at least 3 players and
@@ -500,7 +595,7 @@ public class BoardFrame extends JFrame implements WindowListener {
 							gamePlayers[i] = players.get(i);
 						Board board = new Board();
 						board.setUp(gamePlayers);
-						controller = new Controller(board, null); // Creates
+						controller = new Controller(board); // Creates
 																	// the
 						// controller
 						// for the
@@ -555,24 +650,11 @@ public class BoardFrame extends JFrame implements WindowListener {
 		return cardNames;
 	}
 
-	/**
-	 * This method returns all the rotating player's cards in an an array for
-	 * when a suggestion is made.
-	 * 
-	 * @return
-	 */
-	public String[] rotatingPlayerCards() {
-		String[] playerCards = new String[controller.getRotatingPlayer()
-				.getCards().size()];
-		controller.getCurrentPlayer().getCards().toArray(playerCards);
-		return playerCards;
-	}
-
 	/**
 	 * A player can make a suggestion about whom he/she thinks the murderer
-	 * cards are based on the room they are in. A separate dialog is opened
-	 * which allows the other players to reveal a card of theirs to disprove the
-	 * current player's suggestion or simply skip the turn.
+	 * cards are based on the room they are in. Bots disprove the suggestion on
+	 * their own, when the disprover is a person a separate dialog is opened
+	 * which allows them to reveal one of the suggested cards they hold.
 	 */
 	public void suggest() {
 
@@ -773,9 +855,23 @@ public class BoardFrame extends JFrame implements WindowListener {
 							.getActionCommand();
 					final String accusedRoom = rooms.getSelection()
 							.getActionCommand();
+					// Bots disprove for themselves, only a person holding
+					// one of the cards is asked which one to reveal
+					final int disprover = controller.getDisprover(Card
+							.bit(accusedChar)
+							| Card.bit(accusedWeapon)
+							| Card.bit(accusedRoom));
+					boolean manual = disprover != -1
+							&& controller.getStrategy(disprover) == null;
+					SuggestionResult result = null;
 					try {
-						controller.suggestMurderer(accusedChar, accusedWeapon,
-								accusedRoom);
+						if (manual) {
+							controller.suggestMurderer(accusedChar,
+									accusedWeapon, accusedRoom);
+						} else {
+							result = controller.resolveSuggestion(accusedChar,
+									accusedWeapon, accusedRoom);
+						}
 					} catch (Exception ex) {
 						if (ex instanceof AlreadySuggestedException) {
 							JOptionPane.showMessageDialog(BoardFrame.this,
@@ -789,9 +885,28 @@ public class BoardFrame extends JFrame implements WindowListener {
 					}
 					d.dispose();
 
-					// This is the disprove dialog which opens up so
-					// that
-					// other players can reveal
+					// Only tell the suggester the card they were shown
+					if (!manual) {
+						if (result.isDisproved()) {
+							JOptionPane.showMessageDialog(BoardFrame.this,
+									controller.getPlayers()[disprover]
+											.getName()
+											+ " revealed: "
+											+ result.getShown().getName());
+						} else {
+							JOptionPane.showMessageDialog(BoardFrame.this,
+									"Nobody could disprove your suggestion.");
+						}
+						return;
+					}
+
+					// Everyone before the disprover holds none of the cards
+					while (controller.getRotatingPlayerIndex() != disprover) {
+						controller.skipRotatingPlayer();
+					}
+
+					// This is the disprove dialog which opens up so that
+					// the disprover can reveal one of the suggested cards
 
 					final JDialog disprove = new JDialog(BoardFrame.this,
 							"Disprove ("
@@ -805,29 +920,25 @@ public class BoardFrame extends JFrame implements WindowListener {
 					JPanel suggestedPanel = new JPanel();
 					suggestedPanel.setLayout(new BorderLayout());
 
-					final JLabel myLabel = new JLabel("Suggested Character: "
-							+ accusedChar);
-					suggestedPanel.add(myLabel, BorderLayout.NORTH);
+					suggestedPanel.add(new JLabel("Suggested Character: "
+							+ accusedChar), BorderLayout.NORTH);
 					suggestedPanel.add(new JLabel("Suggested Weapon: "
 							+ accusedWeapon), BorderLayout.CENTER);
 					suggestedPanel.add(new JLabel("Suggested Room: "
 							+ accusedRoom), BorderLayout.SOUTH);
 
+					// Only the cards that disprove the suggestion are offered
 					JPanel disprovePanel = new JPanel();
 					disprovePanel.setLayout(new FlowLayout());
-					final JComboBox toDisproveList = new JComboBox(
-							rotatingPlayerCards());
-					toDisproveList.addItem("Player's Cards");
-					toDisproveList
-							.setSelectedIndex(rotatingPlayerCards().length);
+					final JComboBox toDisproveList = new JComboBox(Card.names(
+							controller.getDisprovingCards(disprover))
+							.toArray());
 					disprovePanel.add(toDisproveList);
 
 					JPanel buttons = new JPanel();
 					buttons.setLayout(new FlowLayout());
 					JButton reveal = new JButton("Reveal");
-					JButton skip = new JButton("Skip");
 					buttons.add(reveal);
-					buttons.add(skip);
 
 					reveal.addActionListener(new ActionListener() {
 
@@ -853,34 +964,6 @@ public class BoardFrame extends JFrame implements WindowListener {
 						}
 					});
 
-					skip.addActionListener(new ActionListener() {
-
-						@Override
-						public void actionPerformed(ActionEvent e) {
-							controller.skipRotatingPlayer();
-							if (controller.getRotatingPlayer() != controller
-									.getCurrentPlayer()) {
-								disprove.setTitle("Disprove ("
-										+ controller.getRotatingPlayer()
-												.getName() + ")");
-								myLabel.setText("Suggested Character: "
-										+ accusedChar);
-
-								String[] playerCards = new String[playerCards().length + 1];
-								for (int i = 0; i < rotatingPlayerCards().length; i++)
-									playerCards[i] = rotatingPlayerCards()[i];
-								playerCards[playerCards.length - 1] = "Player's Cards";
-								DefaultComboBoxModel model = new DefaultComboBoxModel(
-										playerCards);
-								toDisproveList.setModel(model);
-								toDisproveList
-										.setSelectedIndex(playerCards.length - 1);
-							} else {
-								disprove.dispose();
-							}
-						}
-					});
-
 					mainPanel.add(suggestedPanel, BorderLayout.NORTH);
 					mainPanel.add(disprovePanel, BorderLayout.CENTER);
 					mainPanel.add(buttons, BorderLayout.SOUTH);
@@ -908,6 +991,60 @@ public class BoardFrame extends JFrame implements WindowListener {
 
 	}
 
+	/**
+	 * Shows the current player what they have worked out so far: the murderer
+	 * cards that are certain, who holds each card they know about and the
+	 * odds of the other cards being murderer cards.
+	 */
+	public void showHints() {
+		KnowledgeBase knowledge = controller.getKnowledge(controller
+				.getCurrentPlayerIndex());
+		if (knowledge == null) {
+			return;
+		}
+
+		double[] probabilities = odds.compute(knowledge).getProbabilities();
+
+		StringBuilder hints = new StringBuilder();
+		hints.append("Murderer cards known: ");
+		hints.append(knowledge.getEnvelope() != 0 ? Card
+				.names(knowledge.getEnvelope()) : "none yet");
+		hints.append("\n\n");
+
+		Player[] players = controller.getPlayers();
+		for (Card.Type type : Card.Type.values()) {
+			for (int i = 0; i < Card.COUNT; i++) {
+				Card card = Card.get(i);
+				if (card.getType() != type)
+					continue;
+
+				// Who holds the card, if we know
+				int holder = knowledge.getHolder(card);
+				String where;
+				if (holder == knowledge.getEnvelopeIndex()) {
+					where = "MURDER";
+				} else if (holder != -1) {
+					where = players[holder].getName();
+				} else if ((knowledge.getPossibleEnvelope() & card.bit()) != 0) {
+					where = String.format("? (%.0f%% murder)",
+							100 * probabilities[i]);
+				} else {
+					where = "not the murder";
+				}
+				hints.append(card.getName()).append(": ").append(where)
+						.append("\n");
+			}
+			hints.append("\n");
+		}
+		if (!odds.isExact()) {
+			hints.append("Too many suggestions to track, the odds are approximate\n");
+		}
+
+		JOptionPane.showMessageDialog(BoardFrame.this, hints.toString(),
+				"Hints (" + controller.getCurrentPlayer().getName() + ")",
+				JOptionPane.INFORMATION_MESSAGE);
+	}
+
 	/**
 	 * This method opens a dialog which allows a player to make an accusation
 	 * about the murderer, the room in which it happened and the weapon used for
@@ -0,0 +1,18 @@
+package ui;
+
+import java.awt.Rectangle;
+
+/**
+ * Listener told which squares of a Board have changed, so a view only has to redraw those squares instead of the
+ * whole board.
+ *
+ */
+public interface BoardListener {
+
+	/**
+	 * Called after a piece or weapon has been put on or taken off the squares
+	 * @param board Board that changed
+	 * @param squares Squares that changed, in board coordinates
+	 */
+	void squaresChanged(Board board, Rectangle squares);
+}
@@ -1,6 +1,7 @@
 package ui;
 
 import game.InvalidMoveException;
+import game.Piece;
 import game.Portal;
 import game.Room;
 
@@ -8,28 +9,56 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 
+import metrics.Histogram;
+import metrics.Metrics;
 import control.AMove_Node;
 import control.AStar;
 import control.Controller;
+import control.GameListener;
 
-public class BoardPanel extends JPanel implements MouseListener, MouseMotionListener{
+public class BoardPanel extends JPanel implements MouseListener, MouseMotionListener, GameListener, BoardListener{
 
 	private static final int COORDINATEBAR_THICKNESS = 25;
 	private static final long serialVersionUID = -3863986693958886842L;
+	private static final Color REACHABLE_COLOR = new Color(0,255,0,48);
+	private static final Histogram PAINT_TIME = Metrics.histogram("panel.paint", "ns");
 	private Board board;
 	private Point movePoint = new Point(0,0);
 	private AMove_Node path = null;
 
+	// Square holding the portal the mouse is on, drawn as a line to its room instead of a path
+	private Square portal = null;
+
+	// Squares covered by the path or portal line drawn last, repainted when the path changes
+	private List<Rectangle> overlay = new ArrayList<Rectangle>();
+
+	// State of the game when the panel was last fully repainted, anything else only repaints what changed
+	private Controller.Status paintedStatus = null;
+	private int paintedPlayer = -1;
+
+	// Paths already found for the hovered squares
+	private final PathCache pathCache = new PathCache();
+
+	// Finds the paths off the Event Dispatch Thread, and the latest path asked of it
+	private final PathWorker pathWorker = new PathWorker();
+	private PathRequest requested = null;
+
 	private Controller control = null;
 
+	// Draws the board, the board itself knows nothing about drawing
+	private final BoardRenderer renderer = new BoardRenderer();
+
 
 	/**\
 	 * Creates a basic BoardPanel with the listeners. But does not contain a board or controller.
@@ -51,6 +80,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 
 		this.board = board;
 		this.control = control;
+		board.addListener(this);
 
 		// Assign the size of the background according to the panel
 		this.setBackground(Color.black);
@@ -60,6 +90,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 	@Override
 	public void paintComponent(Graphics g){
 		if( board == null || control == null) return;
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 		super.paintComponents(g);
 
 		// Draw Background
@@ -71,18 +102,19 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 
 		// Draw the board with an offset away from the bars
 		g.translate(COORDINATEBAR_THICKNESS, 0);
-		board.draw(g);
+		renderer.draw(g, board);
 
 		// Draw the path from the characters Piece to the mouse
 		if( control.getStatus() == Controller.Status.SELECTING_MOVE ){
 
-			Square highlightedSquare = board.getSquare(movePoint);
+			// Show every square the player can get to
+			drawReachable(g);
 
 			// Draw path if the mouse is on a square
-			if( highlightedSquare.isPortal() && control.getCurrentPlayer().getPiece().getRoom().equals(highlightedSquare.getRoom()) ){
+			if( portal != null ){
 
 				// Draw path from the portal to the room it's targetting
-				drawLineFromPortal(g, highlightedSquare);
+				drawLineFromPortal(g, portal);
 			}
 			else{
 
@@ -90,6 +122,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 				drawPath(g);
 			}
 		}
+		if( Metrics.ENABLED ) PAINT_TIME.recordSince(start);
 	}
 
 	/**
@@ -143,29 +176,243 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 		g.setColor(Color.black);
 		g.drawLine(startPoint.x * Board.TILE_WIDTH + Board.TILE_WIDTH/2, startPoint.y * Board.TILE_HEIGHT  + Board.TILE_HEIGHT/2,
 				   endPoint.x, endPoint.y);
-
-		// Create a path so we can travel to the room
-		path = new AMove_Node(board.getSquare(movePoint).getPortal().getTargetRoom().getRandomSquare().getPosition(), 0, 0, null);
 	}
 
 
+	/**
+	 * Highlights the squares the current player can move to with the moves they have remaining
+	 * @param g Graphics object to draw on
+	 */
+	public void drawReachable(Graphics g){
+		g.setColor(REACHABLE_COLOR);
+
+		// Only the squares being repainted
+		Rectangle clip = g.getClipBounds();
+		int minX = 0, minY = 0, maxX = Board.BOARD_WIDTH, maxY = Board.BOARD_HEIGHT;
+		if( clip != null ){
+			minX = Math.max(0, clip.x/Board.TILE_WIDTH);
+			minY = Math.max(0, clip.y/Board.TILE_HEIGHT);
+			maxX = Math.min(Board.BOARD_WIDTH, (clip.x + clip.width)/Board.TILE_WIDTH + 1);
+			maxY = Math.min(Board.BOARD_HEIGHT, (clip.y + clip.height)/Board.TILE_HEIGHT + 1);
+		}
+		for( int x = minX; x < maxX; x++ ){
+			for( int y = minY; y < maxY; y++ ){
+				if( control.canReach(x, y) ){
+					g.fillRect(x*Board.TILE_WIDTH, y*Board.TILE_HEIGHT, Board.TILE_WIDTH, Board.TILE_HEIGHT);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Draws the shortest path from the characters Piece to the location on the mouse
 	 * @param g Graphics object to draw the path on
 	 */
 	public void drawPath(Graphics g ){
-		if( movePoint == null || board == null || !board.isSetUp() ) return;
-		g.setColor(new Color(255,255,255,128));
+		// Draw the path if we have a path
+		if( path != null ){
+
+			// Transparent White for the path
+			g.setColor(new Color(255,255,255,128));
+
+			// Draw path from the character to the mouse
+			AMove_Node lastNode = path;
+			int movesRequired = 0;
+			while( lastNode != null ){
+
+				// Draw Each tile but not the last
+				g.fillRect(lastNode.getPoint().x*Board.TILE_WIDTH, lastNode.getPoint().y*Board.TILE_HEIGHT, Board.TILE_WIDTH, Board.TILE_HEIGHT);
+
+				// Get next node and increase moves required
+				lastNode = lastNode.getNext();
+				movesRequired++;
+
+				// Can't access this square via the path
+				if( movesRequired >= control.getMovesRemaining() ){
+					// Set Color to red
+					g.setColor(new Color(255,0,0,128));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the path or portal to the square the mouse is on.
+	 * Everything is repainted when the turn or status has changed since the last time, as the reachable squares
+	 * change with them, otherwise only the squares the old and the new path cover.
+	 */
+	private void update(){
+		if( control == null ) return;
+		List<Rectangle> old = overlay;
+
+		findPathToMouse();
+		overlay = getOverlay();
+		updateTitle();
+
+		if( control.getStatus() != paintedStatus || control.getCurrentPlayerIndex() != paintedPlayer ){
+			paintedStatus = control.getStatus();
+			paintedPlayer = control.getCurrentPlayerIndex();
+			repaint();
+			return;
+		}
+		for( Rectangle bounds : old ) repaint(bounds);
+		for( Rectangle bounds : overlay ) repaint(bounds);
+	}
+
+	/**
+	 * Finds the path from the characters Piece to the location on the mouse, or the portal the mouse is on
+	 */
+	private void findPathToMouse(){
+		path = null;
+		portal = null;
+		if( movePoint == null || board == null || control == null || !board.isSetUp() ) return;
+		if( control.getStatus() != Controller.Status.SELECTING_MOVE ) return;
 
 		// Positions for the path
 		Square startPosition = board.getSquare(control.getCurrentPlayer().getPiece().getPosition());
 		Square endPosition = board.getSquare(movePoint);
 
+		// Portal of the room the piece is in leads straight to another room
+		if( endPosition.isPortal() && control.getCurrentPlayer().getPiece().getRoom().equals(endPosition.getRoom()) ){
+			portal = endPosition;
+			return;
+		}
+
+		// The distance field already knows if the square is out of reach, no need to look for a path
+		if( !control.canReach(movePoint.x, movePoint.y) ) return;
+
 		// Can not move around in the same room
 		if( startPosition.isRoom() && endPosition.isRoom() && startPosition.getRoom().equals(endPosition.getRoom()) ){
 			return;
 		}
 
+		// Shortest path read back from the distance field, no search needed
+		path = control.getReachability().getPath(movePoint.x, movePoint.y);
+		if( path != null ) return;
+
+		// Otherwise door scans and A* only run when the hover target or the board changed
+		int startCell = startPosition.getPosition().y*Board.BOARD_WIDTH + startPosition.getPosition().x;
+		int targetCell = movePoint.y*Board.BOARD_WIDTH + movePoint.x;
+		int version = board.getOccupancyVersion();
+
+		AMove_Node cached = pathCache.get(startCell, targetCell, version);
+		if( cached != null ){
+			path = cached == PathCache.NO_PATH ? null : cached;
+			return;
+		}
+
+		// Found on the worker and shown once it's done, unless it's already being looked for
+		if( requested == null || !requested.isFor(startCell, targetCell, version) ){
+			requested = new PathRequest(startCell, targetCell, version, startPosition, endPosition,
+										control.getCurrentPlayer().getPiece());
+			pathWorker.submit(requested);
+		}
+	}
+
+	/**
+	 * Path to the square the mouse is on, found by the worker and cached once it's done
+	 */
+	private class PathRequest extends PathWorker.Request {
+
+		private final int startCell;
+		private final int targetCell;
+		private final int version;
+		private final Square startPosition;
+		private final Square endPosition;
+		private final Piece piece;
+
+		public PathRequest(int startCell, int targetCell, int version, Square startPosition, Square endPosition, Piece piece){
+			this.startCell = startCell;
+			this.targetCell = targetCell;
+			this.version = version;
+			this.startPosition = startPosition;
+			this.endPosition = endPosition;
+			this.piece = piece;
+		}
+
+		public boolean isFor(int startCell, int targetCell, int version){
+			return this.startCell == startCell && this.targetCell == targetCell && this.version == version;
+		}
+
+		@Override
+		protected AMove_Node search() {
+			return findPath(startPosition, endPosition, piece);
+		}
+
+		@Override
+		protected boolean isCurrent() {
+
+			// The version is odd while pieces are moving
+			return version % 2 == 0 && board.getOccupancyVersion() == version;
+		}
+
+		@Override
+		protected void found(AMove_Node found) {
+			pathCache.put(startCell, targetCell, version, found);
+			if( requested == this ) requested = null;
+
+			// Shown if the mouse is still on the square and nothing has moved, otherwise the cache misses again
+			update();
+		}
+	}
+
+	/**
+	 * Returns the areas of the panel covered by the path or the portal line
+	 * @return Bounds in the coordinates of the panel
+	 */
+	private List<Rectangle> getOverlay(){
+		List<Rectangle> bounds = new ArrayList<Rectangle>();
+		if( portal != null ){
+
+			// Line from the middle of the portal to the middle of the room, with a pixel either side
+			Rectangle room = portal.getPortal().getTargetRoom().getBounds();
+			Rectangle line = new Rectangle(portal.getPosition().x*Board.TILE_WIDTH + Board.TILE_WIDTH/2,
+											portal.getPosition().y*Board.TILE_HEIGHT + Board.TILE_HEIGHT/2, 0, 0);
+			line.add(room.x*Board.TILE_WIDTH + (room.width/2)*Board.TILE_WIDTH, room.y*Board.TILE_HEIGHT + (room.height/2)*Board.TILE_HEIGHT);
+			line.grow(1, 1);
+			line.translate(COORDINATEBAR_THICKNESS, 0);
+			bounds.add(line);
+		}
+		else{
+			for( AMove_Node node = path; node != null; node = node.getNext() ){
+				bounds.add(getSquareBounds(new Rectangle(node.getPoint().x, node.getPoint().y, 1, 1)));
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Returns the area of the panel the squares are drawn in
+	 * @param squares Squares in board coordinates
+	 * @return Bounds in the coordinates of the panel
+	 */
+	private Rectangle getSquareBounds(Rectangle squares){
+		return new Rectangle(COORDINATEBAR_THICKNESS + squares.x*Board.TILE_WIDTH, squares.y*Board.TILE_HEIGHT,
+							squares.width*Board.TILE_WIDTH, squares.height*Board.TILE_HEIGHT);
+	}
+
+	/**
+	 * Shows the coordinates of the mouse and how many moves it takes to get there in the title of the frame
+	 */
+	private void updateTitle(){
+		JFrame frame = (JFrame) SwingUtilities.getWindowAncestor(this);
+		if( frame == null || movePoint == null ) return;
+
+		int distance = control.getReachability().getDistance(movePoint.x, movePoint.y);
+		String moves = control.canReach(movePoint.x, movePoint.y) ? distance + " moves" : "out of reach";
+		frame.setTitle("Coordinates: " + getCoordinateString() + " - " + moves);
+	}
+
+
+	/**
+	 * Finds the path from the start square to the end square, using the closest doors if either of them is a room
+	 * @param startPosition Square the current piece is on
+	 * @param endPosition Square the mouse is on
+	 * @param piece Piece that would walk the path
+	 * @return Path to the end square or null if there is none
+	 */
+	private AMove_Node findPath(Square startPosition, Square endPosition, Piece piece){
+
 		// If we are in a room, find the closest door to the character
 		if( startPosition.isRoom() ){
 
@@ -173,7 +420,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			Square closestDoor = startPosition;
 			for(Square door : startPosition.getRoom().getDoors() ){
 				if( closestDoor == null ||
-						door.getPosition().distance(movePoint) < closestDoor.getPosition().distance(movePoint)){
+						door.getPosition().distance(endPosition.getPosition()) < closestDoor.getPosition().distance(endPosition.getPosition())){
 					closestDoor = door;
 				}
 			}
@@ -198,43 +445,10 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			endPosition = closestDoor;
 		}
 
-
-
 		// Get the path from the mouse to the desired location
-		path = AStar.getPath(startPosition.getPosition(), endPosition.getPosition(), control.getCurrentPlayer().getPiece(), board);
-
-		// Draw the path if we have a path
-		if( path != null ){
-
-			// Transparent White for the path
-			g.setColor(new Color(255,255,255,128));
-
-			// Draw path from the character to the mouse
-			AMove_Node lastNode = path;
-			int movesRequired = 0;
-			while( lastNode != null ){
-
-				// Draw Each tile but not the last
-				g.fillRect(lastNode.getPoint().x*Board.TILE_WIDTH, lastNode.getPoint().y*Board.TILE_HEIGHT, Board.TILE_WIDTH, Board.TILE_HEIGHT);
-
-				// Get next node and increase moves required
-				lastNode = lastNode.getNext();
-				movesRequired++;
-
-				// Can't access this square via the path
-				if( movesRequired >= control.getMovesRemaining() ){
-					// Set Color to red
-					g.setColor(new Color(255,0,0,128));
-				}
-			}
-		}
-
-		// Draw the coordinates of the mouse
-		g.setColor(Color.black);
-		((JFrame) SwingUtilities.getWindowAncestor(this)).setTitle("Coordinates: " + getCoordinateString());
+		return AStar.getPath(startPosition.getPosition(), endPosition.getPosition(), piece, board);
 	}
 
-
 	@Override
 	public void mousePressed(MouseEvent e) {
 
@@ -245,13 +459,29 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			if( control.getMovesRemaining() > 0 ){
 
 				// Move to the path if we aren't clicking on a portal
-				control.attemptPlayerMove(path);
+				control.attemptPlayerMove(portal != null ? getPortalMove(portal) : path);
 			}
 		} catch (InvalidMoveException e1) {
 			e1.printStackTrace();
 		}
 	}
 
+	/**
+	 * Returns the move through the portal, to the first free square of the room it leads to.
+	 * The board puts the piece on a random square of the room when it moves, so the game's random numbers are only
+	 * used once the move is made and never by where the mouse goes.
+	 * @param portal Square holding the portal
+	 * @return Move into the room, null if the room is full
+	 */
+	private AMove_Node getPortalMove(Square portal){
+		for( Square square : portal.getPortal().getTargetRoom().getSquares() ){
+			if( square.canContainPiece() ){
+				return new AMove_Node(square.getPosition(), 0, 0, null);
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public void mouseMoved(MouseEvent e) {
 		if( board == null || !board.isSetUp() ) return;
@@ -263,23 +493,45 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 		// Stay on the bounds
 		if( x >= Board.BOARD_WIDTH || y >= Board.BOARD_HEIGHT ){
 			movePoint = null;
+			update();
 			return;
 		}
 
 		// If we don't have a move point, then assign one
 		if( movePoint == null ){
 			movePoint = new Point(x,y);
-			repaint();
+			update();
 		}
 		// We already have a point, make sure they aren't the same
 		else if( movePoint.x != x || movePoint.y != y ){
 
 			// Save point if it's different to the currently saved
 			movePoint.setLocation(x,y);
-			repaint();
+			update();
 		}
 	}
 
+	/**
+	 * Repaints everything when the turn or status changes, the squares that changed have already been repainted
+	 */
+	@Override
+	public void boardChanged(Controller controller) {
+
+		// Games can be played off the event thread, the path is only used on it
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+				update();
+			}
+		});
+	}
+
+	@Override
+	public void squaresChanged(Board board, Rectangle squares) {
+		repaint(getSquareBounds(squares));
+	}
+
 	@Override public void mouseClicked(MouseEvent e) {}
 	@Override public void mouseReleased(MouseEvent e) {}
 	@Override public void mouseEntered(MouseEvent e) {}
@@ -296,6 +548,22 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 	}
 
 
+	/**
+	 * Returns the cache of the paths drawn to the mouse, including how many lookups hit and missed
+	 * @return Path cache of this panel
+	 */
+	public PathCache getPathCache(){
+		return pathCache;
+	}
+
+	/**
+	 * Returns the renderer drawing the board, which also holds the images of the pieces and weapons
+	 * @return Renderer of this panel
+	 */
+	public BoardRenderer getRenderer(){
+		return renderer;
+	}
+
 	/**
 	 * @return the board
 	 */
@@ -307,7 +575,9 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 	 * @param board the board to set
 	 */
 	public void setBoard(Board board) {
+		if( this.board != null ) this.board.removeListener(this);
 		this.board = board;
+		board.addListener(this);
 
 		// Assign the size of the background according to the panel
 		this.setBackground(Color.black);
@@ -0,0 +1,242 @@
+package ui;
+
+import static ui.Board.BOARD_HEIGHT;
+import static ui.Board.BOARD_WIDTH;
+import static ui.Board.TILE_HEIGHT;
+import static ui.Board.TILE_WIDTH;
+import static ui.Board.WALL_THICKNESS;
+import game.Card;
+import game.Door;
+import game.Item;
+import game.Room;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+import javax.swing.ImageIcon;
+
+/**
+ * Draws a Board and everything on it.
+ * Kept apart from the Board so a game can be played without a display, the images of the pieces and weapons are
+ * only loaded the first time they are drawn.
+ *
+ */
+public class BoardRenderer {
+
+	// Colours of the walls and the floor of the rooms
+	private static final Color WALL_COLOR = new Color(58,19,50);
+	private static final Color ROOM_COLOR = new Color(229,235,199);
+
+	// Items drawn over the background, weapons first so a piece on the same square is drawn on top
+	private static final int[] ITEMS_IN_ORDER = { Card.WEAPONS, Card.CHARACTERS };
+
+	// Images of the items, shared with every other renderer
+	private final SpriteAtlas sprites = SpriteAtlas.getInstance();
+
+	// Floor, walls and names of the rooms, which never change once the board is set up
+	private BufferedImage background = null;
+	private Board backgroundBoard = null;
+	private Font backgroundFont = null;
+
+	/**
+	 * Draws the board on the graphics pane provided.
+	 * The squares, walls and names of the rooms are drawn once into an image, every other time only that image is
+	 * copied and the pieces and weapons drawn over it.
+	 * @param g
+	 * @param board Board to draw
+	 */
+	public void draw(Graphics g, Board board){
+
+		// Nothing to draw until the board has been set up
+		if( !board.isSetUp() ){return;}
+
+		g.drawImage(getBackground(g, board), 0, 0, null);
+
+		for( int kind : ITEMS_IN_ORDER ){
+			for( int cards = kind; cards != 0; cards &= cards - 1 ){
+				Item item = board.getItem(Card.first(cards).getName());
+				if( item == null ) continue;
+				drawItem(g, item, item.getPosition().x*TILE_WIDTH, item.getPosition().y*TILE_HEIGHT, TILE_WIDTH, TILE_HEIGHT);
+			}
+		}
+	}
+
+	/**
+	 * Returns the image of the squares, walls and room names, drawing it the first time and again only for another
+	 * board or font
+	 * @param g Graphics the image is drawn onto, the image is made to match it
+	 * @param board Board to draw
+	 * @return Image the size of the squares of the board
+	 */
+	public BufferedImage getBackground(Graphics g, Board board){
+		if( background != null && backgroundBoard == board && g.getFont().equals(backgroundFont) ) return background;
+
+		// Same pixel layout as the destination, so copying it needs no conversion
+		int width = BOARD_WIDTH*TILE_WIDTH;
+		int height = BOARD_HEIGHT*TILE_HEIGHT;
+		if( g instanceof Graphics2D ){
+			background = ((Graphics2D)g).getDeviceConfiguration().createCompatibleImage(width, height, Transparency.OPAQUE);
+		}
+		else{
+			background = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		}
+
+		Graphics2D graphics = background.createGraphics();
+		graphics.setFont(g.getFont());
+		drawBackground(graphics, board);
+		graphics.dispose();
+
+		backgroundBoard = board;
+		backgroundFont = g.getFont();
+		return background;
+	}
+
+	/**
+	 * Draws the squares, walls and the names of the rooms, without the pieces and weapons
+	 * @param g
+	 * @param board Board to draw
+	 */
+	private void drawBackground(Graphics g, Board board){
+		for( int x = 0; x < BOARD_WIDTH; x++ ){
+			for( int y = 0; y < BOARD_HEIGHT; y++ ){
+				Square square = board.getSquareAt(x, y);
+
+				// Draw Square base colour
+				drawFloor(g, square, x*TILE_WIDTH, y*TILE_HEIGHT, TILE_WIDTH, TILE_HEIGHT);
+
+				// Draw walls of rooms
+				if( square.isRoom() ){
+
+					g.setColor(WALL_COLOR);
+
+					//		N
+					//	E		W
+					//		S
+
+					// East Wall
+					if( x-1 >= 0 && !board.getSquareAt(x-1, y).isRoom() &&  ( !(square instanceof Door) || ((Door)square).getDirection() == Door.VERTICAL ) ){
+						g.fillRect( x*TILE_WIDTH, y*TILE_HEIGHT, WALL_THICKNESS, TILE_HEIGHT+1);
+					}
+
+					// WEST Wall
+					if( x+1 < BOARD_WIDTH && !board.getSquareAt(x+1, y).isRoom() &&  ( !(square instanceof Door) || ((Door)square).getDirection() == Door.VERTICAL ) ){
+						g.fillRect( x*TILE_WIDTH+TILE_WIDTH-WALL_THICKNESS+1, y*TILE_HEIGHT, WALL_THICKNESS, TILE_HEIGHT+1);
+					}
+
+					// North Wall
+					if( y-1 >= 0 && !board.getSquareAt(x, y-1).isRoom() &&  ( !(square instanceof Door) || ((Door)square).getDirection() == Door.HORIZONTAL ) ){
+						g.fillRect( x*TILE_WIDTH, y*TILE_HEIGHT, TILE_WIDTH+1, WALL_THICKNESS);
+					}
+
+					// South Wall
+					if( y+1 < BOARD_HEIGHT && !board.getSquareAt(x, y+1).isRoom() &&  ( !(square instanceof Door) || ((Door)square).getDirection() == Door.HORIZONTAL ) ){
+						g.fillRect( x*TILE_WIDTH, y*TILE_HEIGHT+TILE_HEIGHT-WALL_THICKNESS/2-1, TILE_WIDTH+1, WALL_THICKNESS);
+					}
+				}
+			}
+		}
+
+		// Draw Name of room in the center of the room
+		g.setColor(Color.black);
+		FontMetrics metrics = g.getFontMetrics();
+		for(Room room : board.getRooms()){
+
+			// Do not draw name for corridors
+			if( room.getName().equals(Room.CORRIDOR) ) continue;
+
+			Rectangle bounds = room.getBounds();
+			int x = (TILE_WIDTH *bounds.x) +  (TILE_WIDTH * bounds.width/2) - metrics.stringWidth(room.getName())/2;
+			int y = (TILE_HEIGHT *bounds.y) + (TILE_HEIGHT * bounds.height/2);
+			g.drawString(room.getName(), x, y);
+		}
+	}
+
+	/**
+	 * Draws the square at the given position using the given dimensions, with the weapon and piece on it
+	 * Color of the square is determined whether it's a room, corridor or neither.
+	 * @param g
+	 * @param square Square to draw
+	 * @param x
+	 * @param y
+	 * @param w
+	 * @param h
+	 */
+	public void drawSquare(Graphics g, Square square, int x, int y, int w, int h){
+		drawFloor(g, square, x, y, w, h);
+
+		// Draw Weapon
+		if( square.getWeapon() != null ) drawItem(g, square.getWeapon(), x, y, w, h);
+
+		// Draw Piece
+		if( square.getPiece() != null ) drawItem(g, square.getPiece(), x, y, w, h);
+	}
+
+	/**
+	 * Draws the colour and grid of the square, without anything on it
+	 */
+	private void drawFloor(Graphics g, Square square, int x, int y, int w, int h){
+
+		// Rooms are differently coloured to non-rooms
+		if( square.isCorridoor() ){
+			g.setColor(Color.yellow);
+		}
+		else if( square.isPortal() ){
+			g.setColor( Color.blue );
+		}
+		else if( square.isRoom() ){
+			g.setColor(ROOM_COLOR);
+		}
+		else{
+			g.setColor( Color.black );
+		}
+
+		// Draw the base color
+		g.fillRect(x,y,w,h);
+
+
+		// Griding
+		if( square.isCorridoor() ){
+			g.setColor(g.getColor().darker());
+
+			// Vertical
+			g.drawLine(x, y, x, y+h-1);
+
+			// Horizontal
+			g.drawLine(x, y, x+w-1, y);
+		}
+	}
+
+	/**
+	 * Draws the image of the piece or weapon
+	 * @param g
+	 * @param item Item to draw
+	 * @param x
+	 * @param y
+	 * @param w
+	 * @param h
+	 */
+	public void drawItem(Graphics g, Item item, int x, int y, int w, int h){
+		BufferedImage sprite = sprites.getSprite(item.getImage(), w, h);
+		if( sprite != null ){
+
+			// Already the size of the square
+			g.drawImage(sprite, x, y, null);
+		}
+	}
+
+	/**
+	 * Returns the image of the item, loading it the first time it's needed
+	 * @param item Piece or Weapon
+	 * @return Image of the item, null if the item has no image
+	 */
+	public ImageIcon getIcon(Item item){
+		if( item == null ) return null;
+		return sprites.getIcon(item.getImage());
+	}
+}
@@ -0,0 +1,88 @@
+package ui;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+import control.AMove_Node;
+
+/**
+ * Small cache of the paths shown by the BoardPanel.
+ * Paths are keyed by the cell the piece is on, the cell being hovered and the occupancy version of the board.
+ * A piece moving changes the version, so old paths simply stop matching and nothing has to be cleared.
+ *
+ */
+public class PathCache {
+
+	// Stored for searches that did not find a path, so they are not repeated
+	public static final AMove_Node NO_PATH = new AMove_Node(new Point(-1,-1), 0, 0, null);
+
+	// Must be a power of 2
+	private static final int SIZE = 64;
+
+	private final long[] keys = new long[SIZE];
+	private final AMove_Node[] paths = new AMove_Node[SIZE];
+
+	private long hits = 0;
+	private long misses = 0;
+
+	public PathCache(){
+		clear();
+	}
+
+	/**
+	 * Returns the cached path
+	 * @param start Cell id the piece is on
+	 * @param target Cell id being hovered
+	 * @param version Occupancy version of the board
+	 * @return The path, NO_PATH if there was no path, or null if it has not been cached
+	 */
+	public AMove_Node get(int start, int target, int version){
+		int index = index(start, target);
+		if( keys[index] == key(start, target, version) ){
+			hits++;
+			return paths[index];
+		}
+
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Records the path found
+	 * @param start Cell id the piece is on
+	 * @param target Cell id being hovered
+	 * @param version Occupancy version of the board
+	 * @param path Path found, null if there was no path
+	 * @return The path that was stored, NO_PATH if there was no path
+	 */
+	public AMove_Node put(int start, int target, int version, AMove_Node path){
+		int index = index(start, target);
+		keys[index] = key(start, target, version);
+		paths[index] = path == null ? NO_PATH : path;
+		return paths[index];
+	}
+
+	/**
+	 * Removes all the paths
+	 */
+	public void clear(){
+		Arrays.fill(keys, -1);
+		Arrays.fill(paths, null);
+	}
+
+	public long getHits(){
+		return hits;
+	}
+
+	public long getMisses(){
+		return misses;
+	}
+
+	private static int index(int start, int target){
+		return (start*31 + target) & (SIZE-1);
+	}
+
+	private static long key(int start, int target, int version){
+		return ((long)version << 20) | (start << 10) | target;
+	}
+}
@@ -0,0 +1,151 @@
+package ui;
+
+import javax.swing.SwingUtilities;
+
+import metrics.Counter;
+import metrics.Metrics;
+import control.AMove_Node;
+
+/**
+ * Finds paths on a thread of its own so the Event Dispatch Thread never waits for A*.
+ * Only the latest request is kept, a request still waiting when another is submitted is dropped, as the mouse has
+ * already moved on to another square. Results are handed back on the Event Dispatch Thread.
+ *
+ * The game keeps changing the board while a path is searched, so a request checks afterwards that the board did not
+ * change under the search. A path found on a board that changed is dropped, the change brings a new request.
+ *
+ */
+public class PathWorker {
+
+	private static final Counter DROPPED = Metrics.counter("panel.path.dropped");
+
+	/**
+	 * Path to find, search runs on the worker and found runs on the Event Dispatch Thread with the result
+	 */
+	public static abstract class Request {
+
+		/**
+		 * Finds the path, called on the worker thread
+		 * @return The path, null if there is none
+		 */
+		protected abstract AMove_Node search();
+
+		/**
+		 * Checks the board is still the one the request was made for, called on the worker after the search
+		 * @return False if anything the search read may have changed
+		 */
+		protected abstract boolean isCurrent();
+
+		/**
+		 * Called on the Event Dispatch Thread once the path has been found
+		 * @param path Path returned by search
+		 */
+		protected abstract void found(AMove_Node path);
+	}
+
+	// Latest request, waiting for the worker
+	private Request pending = null;
+
+	private Thread thread = null;
+	private boolean stopped = false;
+	private long dropped = 0;
+
+	/**
+	 * Asks for the path to be found, replacing the request still waiting if there is one.
+	 * The worker is started the first time a path is asked for.
+	 * @param request Path to find
+	 */
+	public synchronized void submit(Request request){
+		if( stopped ) return;
+
+		if( pending != null ) drop();
+		pending = request;
+
+		if( thread == null || !thread.isAlive() ){
+			thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					work();
+				}
+			}, "path-worker");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Stops the worker, the request waiting is dropped and the one being searched is never handed back
+	 */
+	public synchronized void stop(){
+		stopped = true;
+		pending = null;
+		notifyAll();
+	}
+
+	/**
+	 * Returns how many requests were replaced before the worker got to them, or found on a board that changed
+	 * @return Requests dropped
+	 */
+	public synchronized long getDropped(){
+		return dropped;
+	}
+
+	/**
+	 * Waits for the next request
+	 * @return The latest request, null once stopped
+	 */
+	private synchronized Request take() throws InterruptedException{
+		while( pending == null && !stopped ){
+			wait();
+		}
+		Request request = pending;
+		pending = null;
+		return request;
+	}
+
+	private synchronized void drop(){
+		dropped++;
+		DROPPED.increment();
+	}
+
+	private synchronized boolean isStopped(){
+		return stopped;
+	}
+
+	private void work(){
+		try {
+			for( Request request = take(); request != null; request = take() ){
+				AMove_Node path;
+				try {
+					path = request.search();
+				} catch (RuntimeException e) {
+
+					// Only expected when the board changed under the search
+					if( request.isCurrent() ) throw e;
+					continue;
+				}
+				if( isStopped() ) return;
+
+				// Found on a board that changed while searching
+				if( !request.isCurrent() ){
+					drop();
+					continue;
+				}
+
+				final Request done = request;
+				final AMove_Node result = path;
+				SwingUtilities.invokeLater(new Runnable() {
+
+					@Override
+					public void run() {
+						done.found(result);
+					}
+				});
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package ui;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * Images of the pieces and weapons, shared by every board and renderer in the process.
+ * Each image is read once, from the classpath when it's there, and scaled once for every size it's drawn at, so
+ * drawing an item is a plain copy of the pixels.
+ *
+ */
+public class SpriteAtlas {
+
+	private static final SpriteAtlas INSTANCE = new SpriteAtlas();
+
+	// Stored for images that could not be read, so they are not looked for again
+	private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+	// Images as they were read, mapped from the path of the image
+	private final ConcurrentHashMap<String, BufferedImage> images = new ConcurrentHashMap<String, BufferedImage>();
+
+	// Images scaled to a size, mapped from the path and the size
+	private final ConcurrentHashMap<String, BufferedImage> sprites = new ConcurrentHashMap<String, BufferedImage>();
+
+	// Images of the item for labels and buttons, mapped from the path of the image
+	private final ConcurrentHashMap<String, ImageIcon> icons = new ConcurrentHashMap<String, ImageIcon>();
+
+	private SpriteAtlas(){}
+
+	/**
+	 * Returns the atlas shared by the whole process
+	 * @return The atlas
+	 */
+	public static SpriteAtlas getInstance(){
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the image scaled to the given size, scaling it the first time that size is asked for
+	 * @param path Path of the image, as given by Item.getImage()
+	 * @param width Width to draw the image at, usually Board.TILE_WIDTH
+	 * @param height Height to draw the image at, usually Board.TILE_HEIGHT
+	 * @return The scaled image, null if the image can not be read
+	 */
+	public BufferedImage getSprite(String path, int width, int height){
+		if( path == null ) return null;
+
+		String key = path + '@' + width + 'x' + height;
+		BufferedImage sprite = sprites.get(key);
+		if( sprite == null ){
+			BufferedImage image = getImage(path);
+			sprite = image == null ? MISSING : scale(image, width, height);
+
+			// Another thread may have scaled it first, use theirs
+			BufferedImage other = sprites.putIfAbsent(key, sprite);
+			if( other != null ) sprite = other;
+		}
+		return sprite == MISSING ? null : sprite;
+	}
+
+	/**
+	 * Returns the image at the size it was read
+	 * @param path Path of the image, as given by Item.getImage()
+	 * @return The image, null if it can not be read
+	 */
+	public BufferedImage getImage(String path){
+		if( path == null ) return null;
+
+		BufferedImage image = images.get(path);
+		if( image == null ){
+			image = read(path);
+			BufferedImage other = images.putIfAbsent(path, image);
+			if( other != null ) image = other;
+		}
+		return image == MISSING ? null : image;
+	}
+
+	/**
+	 * Returns the image as an icon, for labels and buttons
+	 * @param path Path of the image, as given by Item.getImage()
+	 * @return The icon, null if the image can not be read
+	 */
+	public ImageIcon getIcon(String path){
+		if( path == null ) return null;
+
+		ImageIcon icon = icons.get(path);
+		if( icon == null ){
+			BufferedImage image = getImage(path);
+			if( image == null ) return null;
+			icons.putIfAbsent(path, new ImageIcon(image));
+			icon = icons.get(path);
+		}
+		return icon;
+	}
+
+	/**
+	 * Reads the image from the classpath, or from the project folder when it is not on the classpath
+	 * @param path Path of the image relative to the project folder, such as src/resources/rope.png
+	 * @return The image, MISSING if it can not be read
+	 */
+	private BufferedImage read(String path){
+		String name = path.startsWith("src/") ? path.substring("src".length()) : "/" + path;
+		try {
+			URL url = SpriteAtlas.class.getResource(name);
+			BufferedImage image = url != null ? ImageIO.read(url) : ImageIO.read(new File(path));
+			return image != null ? image : MISSING;
+		} catch (IOException e) {
+			return MISSING;
+		}
+	}
+
+	/**
+	 * Draws the image into a new image of the given size, smoothing the pixels
+	 */
+	private BufferedImage scale(BufferedImage image, int width, int height){
+
+		// Same pixel layout as the screen so drawing it needs no conversion
+		BufferedImage sprite;
+		if( GraphicsEnvironment.isHeadless() ){
+			sprite = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		else{
+			sprite = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+					.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		}
+
+		Graphics2D g = sprite.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return sprite;
+	}
+}
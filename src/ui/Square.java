@@ -7,8 +7,6 @@ import game.Portal;
 import game.Room;
 import game.Weapon;
 
-import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Point;
 
 /**
@@ -73,56 +71,6 @@ public class Square implements Cloneable {
 
 	}
 
-	/**
-	 * Draws the square at the given position using the given dimensions
-	 * Color of the square is determined whether it's a room, corridor or neither.
-	 * @param g
-	 * @param x
-	 * @param y
-	 * @param w
-	 * @param h
-	 */
-	public void draw(Graphics g, int x, int y, int w, int h){
-
-		// Rooms are differently coloured to non-rooms
-		if( isCorridoor() ){
-			g.setColor(Color.yellow);
-		}
-		else if( isPortal() ){
-			g.setColor( Color.blue );
-		}
-		else if( isRoom() ){
-			g.setColor(new Color(229,235,199));
-		}
-		else{
-			g.setColor( Color.black );
-		}
-
-		// Draw the base color
-		g.fillRect(x,y,w,h);
-
-
-		// Griding
-		if( isCorridoor() ){
-			g.setColor(g.getColor().darker());
-
-			// Vertical
-			g.drawLine(x, y, x, y+h-1);
-
-			// Horizontal
-			g.drawLine(x, y, x+w-1, y);
-		}
-		else{
-
-		}
-
-		// Draw Weapon
-		if( weapon != null ) weapon.draw(g, x, y, w, h);
-
-		// Draw Piece
-		if( piece != null ) piece.draw(g, x, y, w, h);
-	}
-
 	/**
 	 * See if this square is a portal
 	 * @return True if the square contains a portal
@@ -0,0 +1,74 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Player;
+
+import java.awt.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ui.Board;
+import control.AMove_Node;
+import control.AStar;
+
+public class AStarTests {
+
+	private Player[] players;
+	private Board board;
+
+	@Before
+	public void initialize(){
+		players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+								new Player("Player 2", "Professor Plum"),
+								new Player("Player 3", "Mrs. White") };
+		board = new Board();
+		board.setUp(players);
+	}
+
+	@Test
+	public void corridorPath(){
+		Point start = new Point(0,17);
+		Point end = new Point(5,17);
+
+		AMove_Node path = AStar.getPath(start, end, players[0].getPiece(), board);
+		assertNotNull(path);
+
+		// Path does not include the start and finishes at the end
+		assertEquals(5, path.getSize());
+		assertEquals(end, path.getLast().getPoint());
+
+		// Every step is one square away from the last
+		Point last = start;
+		for( AMove_Node node = path; node != null; node = node.getNext() ){
+			assertEquals(1, Math.abs(node.getPoint().x - last.x) + Math.abs(node.getPoint().y - last.y));
+			last = node.getPoint();
+		}
+	}
+
+	@Test
+	public void repeatedPathsMatch(){
+		Point start = new Point(0,17);
+		Point end = new Point(16,7);
+
+		// Reused search arrays should not change the result
+		AMove_Node first = AStar.getPath(start, end, players[0].getPiece(), board);
+		AStar.getPath(new Point(9,0), new Point(7,23), players[2].getPiece(), board);
+		AMove_Node second = AStar.getPath(start, end, players[0].getPiece(), board);
+
+		assertEquals(first.getSize(), second.getSize());
+		for( ; first != null; first = first.getNext(), second = second.getNext() ){
+			assertEquals(first.getPoint(), second.getPoint());
+		}
+	}
+
+	@Test
+	public void unreachable(){
+
+		// Centre of the board is not part of any room
+		assertNull(AStar.getPath(new Point(0,17), new Point(12,12), players[0].getPiece(), board));
+
+		// Already standing on the end
+		assertNull(AStar.getPath(new Point(0,17), new Point(0,17), players[0].getPiece(), board));
+	}
+}
@@ -0,0 +1,105 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+
+import java.nio.ByteBuffer;
+
+import net.BinaryClient;
+import net.BinaryServer;
+import net.GameHost;
+import net.LoadGenerator;
+
+import org.junit.Test;
+
+import ui.Board;
+import control.Controller;
+
+public class BinaryServerTests {
+
+	@Test(timeout = 20000)
+	public void playsTurn() throws Exception {
+		GameHost host = new GameHost(10, 2, Long.MAX_VALUE);
+		BinaryServer server = new BinaryServer(host);
+		try {
+			BinaryClient client = new BinaryClient(server.start(0));
+			client.begin(BinaryServer.STATE);
+			assertEquals(BinaryServer.ERROR, client.call());
+			assertEquals("join a table first", client.getMessage());
+
+			client.begin(BinaryServer.OPEN).put((byte)3).put((byte)1);
+			assertEquals(BinaryServer.OK, client.call());
+			int table = client.getReply().getInt();
+			client.begin(BinaryServer.JOIN).putInt(table).put((byte)0);
+			assertEquals(BinaryServer.OK, client.call());
+
+			client.begin(BinaryServer.HAND);
+			assertEquals(BinaryServer.OK, client.call());
+			int hand = client.getReply().getInt();
+			assertEquals(6, Integer.bitCount(hand));
+			client.begin(BinaryServer.REVEAL).put((byte)Card.first(hand).ordinal());
+			assertEquals(BinaryServer.OK, client.call());
+
+			client.begin(BinaryServer.STATE);
+			assertEquals(BinaryServer.OK, client.call());
+			ByteBuffer reply = client.getReply();
+			assertEquals(Controller.Status.ROLLING_DICE.ordinal(), reply.get());
+			assertEquals(0, reply.get());
+			reply.getShort();
+			assertEquals(0, reply.getInt());
+			int x = reply.get(), y = reply.get();
+
+			client.begin(BinaryServer.ROLL);
+			assertEquals(BinaryServer.OK, client.call());
+			int roll = client.getReply().get();
+			assertTrue(roll >= 1 && roll <= 12);
+
+			// Jumping across the board is refused, a step to a free square is taken
+			client.begin(BinaryServer.MOVE).put((byte)1).put((byte)12).put((byte)12);
+			assertEquals(BinaryServer.ERROR, client.call());
+			Board board = host.getTable(table).getController().getBoard();
+			int[] step = { 0, 1, 0, -1, 1, 0, -1, 0 };
+			int to = 0;
+			while( !free(board, x + step[to], y + step[to + 1]) ){
+				to += 2;
+			}
+			client.begin(BinaryServer.MOVE).put((byte)1).put((byte)(x + step[to])).put((byte)(y + step[to + 1]));
+			assertEquals(BinaryServer.OK, client.call());
+			assertEquals(x + step[to], client.getReply().get());
+			assertEquals(y + step[to + 1], client.getReply().get());
+
+			client.begin(BinaryServer.FINISH);
+			assertEquals(BinaryServer.OK, client.call());
+			client.begin(BinaryServer.FINISH);
+			assertEquals(BinaryServer.ERROR, client.call());
+
+			client.begin(BinaryServer.CLOSE);
+			assertEquals(BinaryServer.OK, client.call());
+			assertEquals(0, host.getTableCount());
+			client.close();
+		} finally {
+			server.close();
+			host.close();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void loadGeneratorMeasures() throws Exception {
+		GameHost host = new GameHost(10, 1, Long.MAX_VALUE);
+		BinaryServer server = new BinaryServer(host);
+		try {
+			LoadGenerator.Result result = new LoadGenerator(server.start(0), 4).run(500);
+			assertTrue(result.getCommands() > 0);
+			assertTrue(result.getPercentile(0.99) >= result.getPercentile(0.5));
+			assertEquals(0, host.getTableCount());
+		} finally {
+			server.close();
+			host.close();
+		}
+	}
+
+	private boolean free(Board board, int x, int y){
+		return x >= 0 && y >= 0 && x < Board.BOARD_WIDTH && y < Board.BOARD_HEIGHT
+				&& board.getSquareAt(x, y).isCorridoor() && board.getSquareAt(x, y).canContainPiece();
+	}
+}
@@ -0,0 +1,78 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.GameRandom;
+import game.Item;
+import game.Player;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import ui.Board;
+import ui.BoardRenderer;
+import ui.SpriteAtlas;
+import control.AMove_Node;
+
+public class BoardRendererTests {
+
+	@Test
+	public void cachedBackgroundDrawsTheSame() throws Exception {
+		Board board = new Board(new GameRandom(3));
+		board.setUp(new Player[]{ new Player("Player 1", "Colonel Mustard"), new Player("Player 2", "Professor Plum"),
+										new Player("Player 3", "Mrs. White") });
+		BoardRenderer renderer = new BoardRenderer();
+		BufferedImage before = render(renderer, board);
+
+		// Colonel Mustard steps off his start square
+		Item piece = board.getItem("Colonel Mustard");
+		board.movePiece(new AMove_Node(new Point(1, 17), 0, 0, null), piece);
+		BufferedImage cached = render(renderer, board);
+		BufferedImage fresh = render(new BoardRenderer(), board);
+
+		assertSame(renderer.getBackground(cached.createGraphics(), board), renderer.getBackground(before.createGraphics(), board));
+		assertFalse(samePixels(before, cached));
+		assertTrue(samePixels(fresh, cached));
+	}
+
+	@Test
+	public void spritesAreScaledOnce(){
+		Board board = new Board(new GameRandom(3));
+		Item rope = board.getItem("Rope");
+		SpriteAtlas atlas = SpriteAtlas.getInstance();
+
+		// Read from the classpath and scaled to the square
+		BufferedImage sprite = atlas.getSprite(rope.getImage(), Board.TILE_WIDTH, Board.TILE_HEIGHT);
+		assertNotNull(sprite);
+		assertEquals(Board.TILE_WIDTH, sprite.getWidth());
+		assertEquals(Board.TILE_HEIGHT, sprite.getHeight());
+
+		// Every other board and size share the atlas
+		Item other = new Board(new GameRandom(4)).getItem("Rope");
+		assertSame(sprite, atlas.getSprite(other.getImage(), Board.TILE_WIDTH, Board.TILE_HEIGHT));
+		BufferedImage zoomed = atlas.getSprite(rope.getImage(), Board.TILE_WIDTH*2, Board.TILE_HEIGHT*2);
+		assertEquals(Board.TILE_WIDTH*2, zoomed.getWidth());
+		assertSame(zoomed, atlas.getSprite(rope.getImage(), Board.TILE_WIDTH*2, Board.TILE_HEIGHT*2));
+		assertNull(atlas.getSprite("src/resources/missing.png", Board.TILE_WIDTH, Board.TILE_HEIGHT));
+	}
+
+	private BufferedImage render(BoardRenderer renderer, Board board){
+		BufferedImage image = new BufferedImage(Board.BOARD_WIDTH*Board.TILE_WIDTH,
+				Board.BOARD_HEIGHT*Board.TILE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		renderer.draw(g, board);
+		g.dispose();
+		return image;
+	}
+
+	private boolean samePixels(BufferedImage a, BufferedImage b){
+		for( int x = 0; x < a.getWidth(); x++ ){
+			for( int y = 0; y < a.getHeight(); y++ ){
+				if( a.getRGB(x, y) != b.getRGB(x, y) ) return false;
+			}
+		}
+		return true;
+	}
+}
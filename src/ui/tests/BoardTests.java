@@ -8,11 +8,15 @@ import game.Player;
 import game.Room;
 
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import ui.Board;
+import ui.BoardListener;
 import ui.Square;
 import control.AMove_Node;
 
@@ -65,16 +69,58 @@ public class BoardTests {
 		// Check piece has moved
 		assertTrue(piece.getPosition().equals(new Point(0,17)));
 	}
-}
-
-
-
-
 
+	@Test
+	public void neighbourTable(){
+		Board board = new Board();
+		board.setUp(players);
 
+		// Table should agree with validMove for every square on the board
+		for( int x = 0; x < Board.BOARD_WIDTH; x++ ){
+			for( int y = 0; y < Board.BOARD_HEIGHT; y++ ){
+				Square from = board.getSquareAt(x, y);
+				int count = 0;
+				if( x-1 >= 0 && board.validMove(from, board.getSquareAt(x-1, y), null) ) count++;
+				if( x+1 < Board.BOARD_WIDTH && board.validMove(from, board.getSquareAt(x+1, y), null) ) count++;
+				if( y-1 >= 0 && board.validMove(from, board.getSquareAt(x, y-1), null) ) count++;
+				if( y+1 < Board.BOARD_HEIGHT && board.validMove(from, board.getSquareAt(x, y+1), null) ) count++;
+
+				assertEquals(count, board.getNeighbours(y*Board.BOARD_WIDTH + x).length);
+				assertEquals(count, board.getAdjacentSquares(x, y, null).size());
+			}
+		}
 
+		// Door (8,5) of the Ball Room can only be entered when heading to the Ball Room
+		Square ballRoom = board.getSquareAt(9, 4);
+		Square kitchen = board.getSquareAt(1, 2);
+		assertTrue(board.getAdjacentSquares(7, 5, ballRoom).contains(board.getSquareAt(8, 5)));
+		assertFalse(board.getAdjacentSquares(7, 5, kitchen).contains(board.getSquareAt(8, 5)));
+	}
 
+	@Test
+	public void listenersToldChangedSquares() throws InvalidMoveException{
+		Board board = new Board();
+		board.setUp(players);
 
+		final List<Rectangle> changed = new ArrayList<Rectangle>();
+		board.addListener(new BoardListener() {
 
+			@Override
+			public void squaresChanged(Board board, Rectangle squares) {
+				changed.add(squares);
+			}
+		});
 
+		// Colonel Mustard steps off his start square, only both squares are told about
+		board.movePiece(new AMove_Node(new Point(1, 17), 0, 0, null), pMustard.getPiece());
+		assertEquals(2, changed.size());
+		assertEquals(new Rectangle(0, 17, 1, 1), changed.get(0));
+		assertEquals(new Rectangle(1, 17, 1, 1), changed.get(1));
 
+		// Setting up again changes every square
+		changed.clear();
+		board.setUp(players);
+		assertEquals(1, changed.size());
+		assertEquals(new Rectangle(0, 0, Board.BOARD_WIDTH, Board.BOARD_HEIGHT), changed.get(0));
+	}
+}
@@ -0,0 +1,169 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+import game.GameRandom;
+import game.Player;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ui.Board;
+import control.AMove_Node;
+import control.Controller;
+import control.Deadline;
+import control.Strategy;
+import control.SuggestionResult;
+
+public class ControllerTests {
+
+	private Player[] players;
+	private Board board;
+	private Controller controller;
+
+	@Before
+	public void initialize(){
+		players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+								new Player("Player 2", "Professor Plum"),
+								new Player("Player 3", "Mrs. White"),
+								new Player("Player 4", "Mrs. Peacock") };
+		board = new Board(new GameRandom(1));
+		board.setUp(players);
+		controller = new Controller(board, null);
+		controller.setPlayers(players);
+	}
+
+	@Test
+	public void dealsEveryCardOnce(){
+		controller.dealCards();
+
+		// One murderer card of each type
+		int solution = controller.getSolution();
+		assertEquals(1, Integer.bitCount(solution & Card.CHARACTERS));
+		assertEquals(1, Integer.bitCount(solution & Card.WEAPONS));
+		assertEquals(1, Integer.bitCount(solution & Card.ROOMS));
+
+		// Hands do not overlap and hold every other card
+		int dealt = solution;
+		for( Player player : players ){
+			assertEquals(0, dealt & player.getHand());
+			dealt |= player.getHand();
+			assertTrue(Integer.bitCount(player.getHand()) >= 4);
+		}
+		assertEquals(Card.ALL, dealt);
+	}
+
+	@Test
+	public void disprovingCards() throws Exception{
+		controller.dealCards();
+
+		// Suggest the murderer with one card from the second players hand
+		Card held = Card.first(players[1].getHand() & Card.WEAPONS);
+		if( held == null ) held = Card.first(players[1].getHand());
+		String character = controller.getMurdererCharacter();
+		String weapon = held.getType() == Card.Type.WEAPON ? held.getName() : controller.getMurdererWeapon();
+		String room = held.getType() == Card.Type.ROOM ? held.getName() : controller.getMurdererRoom();
+		if( held.getType() == Card.Type.CHARACTER ) character = held.getName();
+		controller.suggestMurderer(character, weapon, room);
+
+		assertEquals(held.bit(), controller.getDisprovingCards(1));
+		assertEquals(0, controller.getDisprovingCards(0) & controller.getSolution());
+		assertTrue(players[1].hasCard(held.getName()));
+	}
+
+	@Test
+	public void resolveSuggestion() throws Exception{
+		controller.dealCards();
+		controller.setCardChoice(Controller.FIRST_CARD);
+		GameRandom random = new GameRandom(5);
+
+		for( int i = 0; i < 50; i++ ){
+			String character = Card.names(Card.CHARACTERS).get(random.nextInt(6));
+			String weapon = Card.names(Card.WEAPONS).get(random.nextInt(6));
+			String room = Card.names(Card.ROOMS).get(random.nextInt(9));
+			int suggester = controller.getCurrentPlayerIndex();
+			int disprover = controller.getDisprover(Card.bit(character) | Card.bit(weapon) | Card.bit(room));
+
+			SuggestionResult result = controller.resolveSuggestion(character, weapon, room);
+			assertEquals(disprover, result.getDisprover());
+
+			// Same player as going around the table one at a time
+			int expected = -1;
+			for( int seat = (suggester + 1) % players.length; seat != suggester; seat = (seat + 1) % players.length ){
+				if( controller.getDisprovingCards(seat) != 0 ){
+					expected = seat;
+					break;
+				}
+			}
+			assertEquals(expected, result.getDisprover());
+
+			if( result.isDisproved() ){
+				assertEquals(controller.getDisprovingCards(expected), result.getEligible());
+				assertEquals(Card.first(result.getEligible()), result.getShown());
+				assertEquals(Controller.Status.REVEALING, controller.getStatus());
+			}
+			else{
+				assertEquals(Controller.Status.WAITING, controller.getStatus());
+			}
+
+			controller.finishTurn();
+			controller.setStatus(Controller.Status.WAITING);
+		}
+	}
+
+	@Test
+	public void slowStrategyIsCutOff(){
+		controller.dealCards();
+
+		// Never answers in time
+		final AtomicBoolean returned = new AtomicBoolean();
+		Strategy slow = new Strategy() {
+			@Override
+			public int chooseAccusation(Controller controller, int seat, Deadline deadline){
+				while( !deadline.isCancelled() ){
+					Thread.yield();
+				}
+				returned.set(true);
+				return controller.getSolution();
+			}
+			@Override
+			public AMove_Node chooseMove(Controller controller, int seat, Deadline deadline){ return null; }
+			@Override
+			public int chooseSuggestion(Controller controller, int seat, Deadline deadline){ return 0; }
+			@Override
+			public Card chooseCard(Controller controller, int seat, int cards, Deadline deadline){ return Card.first(cards); }
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			controller.setStrategy(0, slow);
+			controller.setDecisionExecutor(executor);
+			controller.setDecisionBudget(50, TimeUnit.MILLISECONDS);
+
+			long start = System.nanoTime();
+			controller.tick();
+			long elapsed = System.nanoTime() - start;
+
+			// Gave up on the accusation and rolled the dice instead
+			assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1));
+			assertEquals(Controller.Status.SELECTING_MOVE, controller.getStatus());
+
+			// It saw the cancelled deadline and was done before the game went on
+			assertTrue(returned.get());
+			assertTrue(controller.getDiceRoll() > 0);
+
+			// Staying put ends the turn
+			controller.tick();
+			controller.tick();
+			assertEquals(1, controller.getCurrentPlayerIndex());
+			assertEquals(Controller.Status.ROLLING_DICE, controller.getStatus());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+import game.GameRandom;
+
+import org.junit.Test;
+
+import ai.EnvelopeProbability;
+import ai.KnowledgeBase;
+
+public class EnvelopeProbabilityTests {
+
+	private static final int[] HAND_SIZES = { 5, 5, 4, 4 };
+
+	@Test
+	public void dealtCardsOnly(){
+		KnowledgeBase knowledge = new KnowledgeBase(0, HAND_SIZES);
+		int hand = Card.COLONEL_MUSTARD.bit() | Card.MRS_WHITE.bit() | Card.ROPE.bit() | Card.HALL.bit() | Card.STUDY.bit();
+		knowledge.dealt(hand);
+
+		EnvelopeProbability odds = new EnvelopeProbability().compute(knowledge);
+
+		// Every card not in the hand is as likely as the others of its type
+		assertEquals(0, odds.getProbability(Card.COLONEL_MUSTARD), 0);
+		assertEquals(0.25, odds.getProbability(Card.MISS_SCARLETT), 1e-9);
+		assertEquals(0.2, odds.getProbability(Card.DAGGER), 1e-9);
+		assertEquals(1 / 7.0, odds.getProbability(Card.KITCHEN), 1e-9);
+
+		// Deals of the other 13 cards into hands of 5, 4 and 4, for each of the 4 x 5 x 7 solutions
+		assertEquals(4 * 5 * 7 * 90090L, odds.getTotal());
+	}
+
+	@Test
+	public void clausesAndPasses(){
+		KnowledgeBase knowledge = new KnowledgeBase(0, HAND_SIZES);
+		knowledge.disproved(1, Card.MRS_WHITE.bit() | Card.ROPE.bit() | Card.HALL.bit());
+		knowledge.disproved(2, Card.MRS_WHITE.bit() | Card.DAGGER.bit() | Card.HALL.bit());
+		knowledge.passed(3, Card.COLONEL_MUSTARD.bit() | Card.ROPE.bit() | Card.KITCHEN.bit());
+		knowledge.shown(2, Card.LOUNGE);
+
+		double[] probabilities = new EnvelopeProbability().compute(knowledge).getProbabilities();
+
+		// One murderer card of each type
+		double characters = 0, weapons = 0, rooms = 0;
+		for( int card = 0; card < Card.COUNT; card++ ){
+			if( (Card.CHARACTERS & (1 << card)) != 0 ) characters += probabilities[card];
+			if( (Card.WEAPONS & (1 << card)) != 0 ) weapons += probabilities[card];
+			if( (Card.ROOMS & (1 << card)) != 0 ) rooms += probabilities[card];
+		}
+		assertEquals(1, characters, 1e-9);
+		assertEquals(1, weapons, 1e-9);
+		assertEquals(1, rooms, 1e-9);
+
+		// Cards someone has to hold are less likely than the cards nobody asked about
+		assertEquals(0, probabilities[Card.LOUNGE.ordinal()], 0);
+		assertTrue(probabilities[Card.HALL.ordinal()] < probabilities[Card.STUDY.ordinal()]);
+		assertTrue(probabilities[Card.MRS_WHITE.ordinal()] < probabilities[Card.MISS_SCARLETT.ordinal()]);
+	}
+
+	@Test
+	public void samplesAgreeWithKnowledge(){
+		KnowledgeBase knowledge = new KnowledgeBase(0, HAND_SIZES);
+		int hand = Card.COLONEL_MUSTARD.bit() | Card.MRS_WHITE.bit() | Card.ROPE.bit() | Card.HALL.bit() | Card.STUDY.bit();
+		knowledge.dealt(hand);
+		knowledge.disproved(1, Card.PROFESSOR_PLUM.bit() | Card.DAGGER.bit() | Card.KITCHEN.bit());
+		knowledge.passed(2, Card.PROFESSOR_PLUM.bit() | Card.DAGGER.bit() | Card.KITCHEN.bit());
+		knowledge.shown(3, Card.LOUNGE);
+
+		EnvelopeProbability.Sampler sampler = new EnvelopeProbability().compute(knowledge).newSampler();
+		GameRandom random = new GameRandom(7);
+		int[] hands = new int[HAND_SIZES.length];
+		for( int i = 0; i < 1000; i++ ){
+			int solution = sampler.sample(random, hands);
+
+			// Every card dealt once, in the right hand sizes
+			int dealt = solution;
+			for( int seat = 0; seat < hands.length; seat++ ){
+				assertEquals(HAND_SIZES[seat], Integer.bitCount(hands[seat]));
+				assertEquals(0, dealt & hands[seat]);
+				dealt |= hands[seat];
+			}
+			assertEquals(Card.ALL, dealt);
+
+			// Everything that is known holds
+			assertEquals(hand, hands[0]);
+			assertTrue((hands[1] & (Card.PROFESSOR_PLUM.bit() | Card.DAGGER.bit() | Card.KITCHEN.bit())) != 0);
+			assertEquals(0, hands[2] & (Card.PROFESSOR_PLUM.bit() | Card.DAGGER.bit() | Card.KITCHEN.bit()));
+			assertTrue((hands[3] & Card.LOUNGE.bit()) != 0);
+		}
+	}
+
+	@Test
+	public void repeatedClausesStayExact(){
+		KnowledgeBase once = new KnowledgeBase(0, HAND_SIZES);
+		once.disproved(1, Card.MRS_WHITE.bit() | Card.ROPE.bit() | Card.HALL.bit());
+		KnowledgeBase repeated = new KnowledgeBase(0, HAND_SIZES);
+		for( int i = 0; i < 2 * EnvelopeProbability.MAX_CLAUSES; i++ ){
+			repeated.disproved(1, Card.MRS_WHITE.bit() | Card.ROPE.bit() | Card.HALL.bit());
+		}
+
+		EnvelopeProbability odds = new EnvelopeProbability().compute(repeated);
+		assertTrue(odds.isExact());
+		assertEquals(new EnvelopeProbability().compute(once).getTotal(), odds.getTotal());
+	}
+
+	@Test
+	public void tooManyClausesAreApproximate(){
+		KnowledgeBase knowledge = new KnowledgeBase(0, HAND_SIZES);
+
+		// Every one of them is different and none implies another
+		int clauses = 0;
+		for( int weapons = Card.WEAPONS; weapons != 0; weapons &= weapons - 1 ){
+			for( int rooms = Card.ROOMS; rooms != 0; rooms &= rooms - 1 ){
+				knowledge.disproved(1, Card.MRS_WHITE.bit() | Integer.lowestOneBit(weapons) | Integer.lowestOneBit(rooms));
+				clauses++;
+			}
+		}
+		assertTrue(clauses > EnvelopeProbability.MAX_CLAUSES);
+
+		EnvelopeProbability odds = new EnvelopeProbability().compute(knowledge);
+		assertFalse(odds.isExact());
+		assertTrue(odds.getTotal() > 0);
+	}
+}
@@ -0,0 +1,173 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.GameHost;
+import net.GameSession;
+import net.HostFullException;
+
+import org.junit.Test;
+
+public class GameHostTests {
+
+	@Test(timeout = 20000)
+	public void playsTurnOverSocket() throws Exception {
+		GameHost host = new GameHost(10, 2, Long.MAX_VALUE);
+		try {
+			int port = host.start(0);
+			Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+			out.println("NEW 3 1");
+			String reply = in.readLine();
+			assertTrue(reply, reply.startsWith("OK "));
+			out.println("JOIN " + reply.substring(3) + " 0");
+			assertEquals("OK", in.readLine());
+
+			// First seat is the person's, so the table waits for it
+			out.println("STATE");
+			assertEquals("OK ROLLING_DICE 0 0 0", in.readLine());
+			out.println("ROLL");
+			assertTrue(in.readLine().startsWith("OK "));
+			out.println("SUGGEST MISS_SCARLETT ROPE");
+			assertEquals("ERR not in a room", in.readLine());
+			out.println("MOVE KITCHEN");
+			assertTrue(in.readLine().startsWith("OK "));
+			out.println("END");
+			assertEquals("OK", in.readLine());
+
+			// The two bots have played when the person's turn comes back
+			out.println("STATE");
+			reply = in.readLine();
+			assertTrue(reply, reply.startsWith("OK ROLLING_DICE 0 ") || reply.startsWith("OK GAME_OVER"));
+			out.println("CLOSE");
+			assertEquals("OK", in.readLine());
+			assertEquals(0, host.getTableCount());
+			socket.close();
+		} finally {
+			host.close();
+		}
+	}
+
+	@Test
+	public void admitsWithinBudgets() throws Exception {
+		GameHost host = new GameHost(1000, 4, Long.MAX_VALUE);
+		try {
+
+			// Tables waiting for people only cost memory
+			for( int table = 0; table < 1000; table++ ){
+				host.openTable(4, 4);
+			}
+			assertEquals(1000, host.getTableCount());
+			assertEquals(1000 * host.getTableBytes(), host.getUsedBytes());
+			try {
+				host.openTable(4, 4);
+				fail("Table over the limit admitted");
+			} catch (HostFullException e) {
+			}
+		} finally {
+			host.close();
+		}
+		assertEquals(0, host.getUsedBytes());
+
+		// Memory runs out before the table limit
+		host = new GameHost(1000, 4, 0);
+		try {
+			host.openTable(3, 0);
+			fail("Table over the memory budget admitted");
+		} catch (HostFullException e) {
+		} finally {
+			host.close();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void botsFinishTheirGames() throws Exception {
+		GameHost host = new GameHost(100, 2, Long.MAX_VALUE);
+		try {
+			GameSession[] tables = new GameSession[50];
+			for( int table = 0; table < tables.length; table++ ){
+				tables[table] = host.openTable(4, 0);
+			}
+
+			// Never more tables working than permits
+			for( GameSession table : tables ){
+				while( !table.isFinished() ){
+					assertTrue(host.getActiveCount() <= 2);
+					Thread.sleep(1);
+				}
+			}
+		} finally {
+			host.close();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void concurrentOpensStayWithinLimit() throws Exception {
+		final GameHost host = new GameHost(10, 2, Long.MAX_VALUE);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			final AtomicInteger admitted = new AtomicInteger();
+			Thread[] threads = new Thread[8];
+			for( int i = 0; i < threads.length; i++ ){
+				threads[i] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							for( int table = 0; table < 10; table++ ){
+								try {
+									host.openTable(4, 4);
+									admitted.incrementAndGet();
+								} catch (HostFullException e) {
+								}
+							}
+						} catch (InterruptedException e) {
+						}
+					}
+				});
+				threads[i].start();
+			}
+			start.countDown();
+			for( Thread thread : threads ){
+				thread.join();
+			}
+			assertEquals(10, admitted.get());
+			assertEquals(10, host.getTableCount());
+			assertEquals(10 * host.getTableBytes(), host.getUsedBytes());
+		} finally {
+			host.close();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void hangingUpClosesTables() throws Exception {
+		GameHost host = new GameHost(10, 2, Long.MAX_VALUE);
+		try {
+			Socket socket = new Socket(InetAddress.getLoopbackAddress(), host.start(0));
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+			out.println("NEW 3 3");
+			assertTrue(in.readLine().startsWith("OK "));
+			assertEquals(1, host.getTableCount());
+
+			// Dropped without CLOSE, the table gives its memory back
+			socket.close();
+			while( host.getTableCount() > 0 ){
+				Thread.sleep(1);
+			}
+			assertEquals(0, host.getUsedBytes());
+		} finally {
+			host.close();
+		}
+	}
+}
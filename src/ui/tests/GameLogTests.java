@@ -0,0 +1,90 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+import game.GameRandom;
+import game.Item;
+import game.Player;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import store.GameLog;
+import store.GameReplay;
+import ui.Board;
+import ai.AutoPlayer;
+import control.Controller;
+
+public class GameLogTests {
+
+	@Test
+	public void replayRebuildsGame() throws Exception {
+		Player[] players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+										new Player("Player 2", "Professor Plum"),
+										new Player("Player 3", "Mrs. White"),
+										new Player("Player 4", "Mrs. Peacock") };
+		GameRandom random = new GameRandom(5);
+		Board board = new Board(random);
+		board.setUp(players);
+		Controller controller = new Controller(board);
+		controller.setPlayers(players);
+
+		Path file = Files.createTempFile("cluedo", ".log");
+		try {
+			GameLog log = new GameLog(file);
+			log.record(controller);
+			controller.dealCards();
+			AutoPlayer strategy = new AutoPlayer(random);
+			for( int seat = 0; seat < players.length; seat++ ){
+				controller.setStrategy(seat, strategy);
+			}
+			while( controller.getStatus() != Controller.Status.GAME_OVER && controller.getTurns() < 1000 ){
+				controller.tick();
+			}
+			log.close();
+
+			// Fixed size records
+			assertEquals(log.getRecords() * GameLog.RECORD_SIZE, Files.size(file));
+
+			GameReplay replay = new GameReplay(file);
+			Controller replayed = replay.replay();
+			assertEquals(log.getRecords(), replay.getEvents());
+
+			// Same game at the end
+			assertEquals(controller.getStatus(), replayed.getStatus());
+			assertEquals(controller.getCurrentPlayerIndex(), replayed.getCurrentPlayerIndex());
+			assertEquals(controller.getTurns(), replayed.getTurns());
+			assertEquals(controller.getSolution(), replayed.getSolution());
+			for( int seat = 0; seat < players.length; seat++ ){
+				assertEquals(players[seat].getHand(), replayed.getPlayers()[seat].getHand());
+				assertEquals(controller.getKnowledge(seat).getEnvelope(), replayed.getKnowledge(seat).getEnvelope());
+			}
+
+			// Everything on the same square
+			for( int cards = Card.CHARACTERS | Card.WEAPONS; cards != 0; cards &= cards - 1 ){
+				String name = Card.first(cards).getName();
+				Item item = board.getItem(name);
+				assertEquals(item.getPosition(), replay.getBoard().getItem(name).getPosition());
+			}
+
+			// Played back again into the same game, its board is not set up again
+			Board replayedBoard = replay.getBoard();
+			GameReplay again = new GameReplay(file, replayed);
+			assertSame(replayed, again.replay());
+			assertSame(replayedBoard, again.getBoard());
+			assertEquals(controller.getTurns(), replayed.getTurns());
+			assertEquals(controller.getStatus(), replayed.getStatus());
+			for( int seat = 0; seat < players.length; seat++ ){
+				assertEquals(controller.getKnowledge(seat).getEnvelope(), replayed.getKnowledge(seat).getEnvelope());
+			}
+			for( int cards = Card.CHARACTERS | Card.WEAPONS; cards != 0; cards &= cards - 1 ){
+				String name = Card.first(cards).getName();
+				assertEquals(board.getItem(name).getPosition(), replayedBoard.getItem(name).getPosition());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+import game.GameRandom;
+import game.Player;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ui.Board;
+import ai.KnowledgeBase;
+import control.Controller;
+
+public class KnowledgeBaseTests {
+
+	private Player[] players;
+	private Controller controller;
+
+	@Before
+	public void initialize(){
+		players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+								new Player("Player 2", "Professor Plum"),
+								new Player("Player 3", "Mrs. White") };
+		Board board = new Board(new GameRandom(3));
+		board.setUp(players);
+		controller = new Controller(board, null);
+		controller.setPlayers(players);
+		controller.dealCards();
+	}
+
+	@Test
+	public void dealtCards(){
+		KnowledgeBase knowledge = controller.getKnowledge(0);
+
+		// Own hand is known, so are the cards nobody else can have
+		assertEquals(players[0].getHand(), knowledge.getHas(0));
+		assertEquals(players[0].getHand(), knowledge.getHasNot(1) & players[0].getHand());
+		assertEquals(0, knowledge.getPossibleEnvelope() & players[0].getHand());
+		assertFalse(knowledge.isContradiction());
+	}
+
+	@Test
+	public void clauseResolves(){
+		KnowledgeBase knowledge = new KnowledgeBase(0, new int[]{ 6, 6, 6 });
+		int cards = Card.MRS_WHITE.bit() | Card.ROPE.bit() | Card.HALL.bit();
+
+		// Player 1 showed player 2 one of the cards, then turns out to hold neither White nor the Rope
+		knowledge.disproved(1, cards);
+		assertEquals(1, knowledge.getClauseCount());
+		knowledge.passed(1, Card.MRS_WHITE.bit() | Card.ROPE.bit());
+
+		assertEquals(1, knowledge.getHolder(Card.HALL));
+		assertEquals(0, knowledge.getClauseCount());
+		assertEquals(0, knowledge.getPossibleEnvelope() & Card.HALL.bit());
+	}
+
+	@Test
+	public void staysConsistentWithTheDeal() throws Exception{
+		GameRandom random = new GameRandom(9);
+
+		for( int i = 0; i < 60 && !controller.getKnowledge(controller.getCurrentPlayerIndex()).isSolved(); i++ ){
+			controller.resolveSuggestion(Card.names(Card.CHARACTERS).get(random.nextInt(6)),
+					Card.names(Card.WEAPONS).get(random.nextInt(6)), Card.names(Card.ROOMS).get(random.nextInt(9)));
+
+			// Nothing deduced may contradict where the cards really are
+			for( int seat = 0; seat < players.length; seat++ ){
+				KnowledgeBase knowledge = controller.getKnowledge(seat);
+				assertFalse(knowledge.isContradiction());
+				for( int holder = 0; holder < players.length; holder++ ){
+					assertEquals(knowledge.getHas(holder), knowledge.getHas(holder) & players[holder].getHand());
+					assertEquals(0, knowledge.getHasNot(holder) & players[holder].getHand());
+				}
+				assertEquals(knowledge.getEnvelope(), knowledge.getEnvelope() & controller.getSolution());
+				assertEquals(controller.getSolution(), knowledge.getPossibleEnvelope() & controller.getSolution());
+			}
+
+			controller.finishTurn();
+			controller.setStatus(Controller.Status.WAITING);
+		}
+
+		// Enough suggestions to work it out
+		KnowledgeBase knowledge = controller.getKnowledge(controller.getCurrentPlayerIndex());
+		assertTrue(knowledge.isSolved());
+		assertEquals(controller.getSolution(), knowledge.getEnvelope());
+	}
+}
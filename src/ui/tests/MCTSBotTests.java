@@ -0,0 +1,106 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.GameRandom;
+import game.Player;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ui.Board;
+import ai.AutoPlayer;
+import ai.MCTSBot;
+import control.Controller;
+import control.Strategy;
+
+public class MCTSBotTests {
+
+	// Deals played by each bot when comparing how often they win
+	private static final int GAMES = 150;
+
+	@Test
+	public void playsCompleteGame(){
+		Player[] players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+										new Player("Player 2", "Professor Plum"),
+										new Player("Player 3", "Mrs. White"),
+										new Player("Player 4", "Mrs. Peacock") };
+		GameRandom random = new GameRandom(3);
+		Board board = new Board(random);
+		board.setUp(players);
+		Controller controller = new Controller(board, null);
+		controller.setPlayers(players);
+		controller.dealCards();
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			controller.setStrategy(0, new MCTSBot(random.split(), 5, TimeUnit.MILLISECONDS, pool));
+			AutoPlayer auto = new AutoPlayer(random.split());
+			for( int seat = 1; seat < players.length; seat++ ){
+				controller.setStrategy(seat, auto);
+			}
+
+			// Searching bots have to answer within the budget of a live table
+			controller.setDecisionExecutor(executor);
+			controller.setDecisionBudget(200, TimeUnit.MILLISECONDS);
+
+			while( controller.getStatus() != Controller.Status.GAME_OVER && controller.getTurns() < 1000 ){
+				controller.tick();
+			}
+			assertEquals(Controller.Status.GAME_OVER, controller.getStatus());
+		} finally {
+			executor.shutdownNow();
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void winsMoreOftenThanAutoPlayer(){
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+
+			// Same deals and the same opponents, only the second seat is played by another bot
+			int searched = 0;
+			int simple = 0;
+			for( int game = 0; game < GAMES; game++ ){
+				GameRandom random = new GameRandom(1000 + game);
+				if( playGame(new MCTSBot(random.split(), 1, TimeUnit.MILLISECONDS, pool), game) ) searched++;
+				if( playGame(new AutoPlayer(random.split()), game) ) simple++;
+			}
+			assertTrue(searched + " wins against " + simple, searched > simple);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays one game with the bot in the second seat and AutoPlayers in the others
+	 * @return True if the bot won
+	 */
+	private boolean playGame(Strategy bot, long seed){
+		Player[] players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+										new Player("Player 2", "Professor Plum"),
+										new Player("Player 3", "Mrs. White"),
+										new Player("Player 4", "Mrs. Peacock") };
+		GameRandom random = new GameRandom(seed);
+		Board board = new Board(random);
+		board.setUp(players);
+		Controller controller = new Controller(board, null);
+		controller.setPlayers(players);
+		controller.dealCards();
+
+		AutoPlayer auto = new AutoPlayer(random.split());
+		for( int seat = 0; seat < players.length; seat++ ){
+			controller.setStrategy(seat, seat == 1 ? bot : auto);
+		}
+		while( controller.getStatus() != Controller.Status.GAME_OVER && controller.getTurns() < 1000 ){
+			controller.tick();
+		}
+		return controller.getStatus() == Controller.Status.GAME_OVER && controller.getCurrentPlayerIndex() == 1
+				&& !controller.isEliminated(1);
+	}
+}
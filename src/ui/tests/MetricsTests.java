@@ -0,0 +1,57 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import metrics.Histogram;
+import metrics.Metrics;
+
+import org.junit.Test;
+
+import sim.Simulator;
+
+public class MetricsTests {
+
+	@Test
+	public void percentilesWithinPrecision(){
+		Histogram histogram = new Histogram("test", "ns");
+		for( long value = 1; value <= 100000; value++ ){
+			histogram.record(value);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.5, histogram.getMean(), 0.001);
+
+		// Buckets are within 1/64 of the value
+		assertEquals(50000, histogram.get50thPercentile(), 50000 / 64);
+		assertEquals(99000, histogram.get99thPercentile(), 99000 / 64);
+		assertTrue(histogram.get99thPercentile() >= 99000);
+		assertEquals(100, histogram.getPercentile(0.001));
+	}
+
+	@Test
+	public void gamesAreMeasured() throws Exception {
+		Metrics.exportJmx();
+		long games = Metrics.counter("games.finished").getCount();
+		long ticks = Metrics.histogram("controller.tick", "ns").getCount();
+		new Simulator(4).run(5);
+		assertTrue(Metrics.counter("games.finished").getCount() >= games + 5);
+		assertTrue(Metrics.histogram("controller.tick", "ns").getCount() > ticks);
+		assertTrue(Metrics.histogram("astar.expanded", "squares").getMax() > 0);
+
+		// Seen through JMX and in the text dump
+		Object count = ManagementFactory.getPlatformMBeanServer().getAttribute(
+				new ObjectName("cluedo:type=Histogram,name=\"controller.tick\""), "Count");
+		assertTrue((Long)count > ticks);
+
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		Metrics.dump(new PrintStream(text));
+		assertTrue(text.toString().contains("controller.tick"));
+		assertTrue(text.toString().contains("games.finished"));
+	}
+}
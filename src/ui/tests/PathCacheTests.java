@@ -0,0 +1,59 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+import ui.PathCache;
+import control.AMove_Node;
+
+public class PathCacheTests {
+
+	private static final AMove_Node PATH = new AMove_Node(new Point(5, 17), 0, 0, null);
+
+	@Test
+	public void hitsUntilVersionChanges(){
+		PathCache cache = new PathCache();
+		assertNull(cache.get(425, 429, 1));
+		assertSame(PATH, cache.put(425, 429, 1, PATH));
+
+		assertSame(PATH, cache.get(425, 429, 1));
+		assertSame(PATH, cache.get(425, 429, 1));
+
+		// A piece moved, the path is out of date
+		assertNull(cache.get(425, 429, 2));
+
+		// Same cells the other way around are another path
+		assertNull(cache.get(429, 425, 1));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(3, cache.getMisses());
+	}
+
+	@Test
+	public void remembersNoPath(){
+		PathCache cache = new PathCache();
+		assertSame(PathCache.NO_PATH, cache.put(0, 575, 3, null));
+		assertSame(PathCache.NO_PATH, cache.get(0, 575, 3));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void collidingPathsReplaceEachOther(){
+		PathCache cache = new PathCache();
+		AMove_Node other = new AMove_Node(new Point(6, 17), 0, 0, null);
+
+		// Targets 64 cells apart share a slot
+		cache.put(425, 100, 1, PATH);
+		cache.put(425, 164, 1, other);
+		assertNull(cache.get(425, 100, 1));
+		assertSame(other, cache.get(425, 164, 1));
+
+		cache.clear();
+		assertNull(cache.get(425, 164, 1));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+}
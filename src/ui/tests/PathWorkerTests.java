@@ -0,0 +1,123 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import ui.PathWorker;
+import control.AMove_Node;
+
+public class PathWorkerTests {
+
+	@Test
+	public void onlyLatestRequestIsSearched() throws Exception {
+		PathWorker worker = new PathWorker();
+		final CountDownLatch searching = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(2);
+		final List<Integer> searched = new CopyOnWriteArrayList<Integer>();
+		final List<Integer> found = new CopyOnWriteArrayList<Integer>();
+
+		// Hovering over five squares while the first search is still running
+		for( int i = 0; i < 5; i++ ){
+			final int target = i;
+			worker.submit(new PathWorker.Request() {
+
+				@Override
+				protected AMove_Node search() {
+					searched.add(target);
+					if( target == 0 ){
+						searching.countDown();
+						try {
+							release.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+					return new AMove_Node(new Point(target, 0), 0, 0, null);
+				}
+
+				@Override
+				protected boolean isCurrent() {
+					return true;
+				}
+
+				@Override
+				protected void found(AMove_Node path) {
+					assertTrue(SwingUtilities.isEventDispatchThread());
+					found.add(path.getPoint().x);
+					done.countDown();
+				}
+			});
+			if( i == 0 ) assertTrue(searching.await(5, TimeUnit.SECONDS));
+		}
+		release.countDown();
+
+		// The first and the last are found, the ones in between were dropped
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {}
+		});
+		assertEquals(3, worker.getDropped());
+		assertEquals(2, searched.size());
+		assertEquals(Integer.valueOf(4), searched.get(1));
+		assertEquals(Integer.valueOf(4), found.get(1));
+		worker.stop();
+	}
+
+	@Test
+	public void pathsFromChangedBoardAreDropped() throws Exception {
+		PathWorker worker = new PathWorker();
+		final AtomicInteger version = new AtomicInteger(2);
+		final CountDownLatch done = new CountDownLatch(1);
+		final List<Integer> found = new CopyOnWriteArrayList<Integer>();
+
+		for( int i = 0; i < 2; i++ ){
+			final int target = i;
+			final int asked = version.get();
+			worker.submit(new PathWorker.Request() {
+
+				@Override
+				protected AMove_Node search() {
+
+					// A piece moves while the first path is searched
+					if( target == 0 ) version.incrementAndGet();
+					return new AMove_Node(new Point(target, 0), 0, 0, null);
+				}
+
+				@Override
+				protected boolean isCurrent() {
+					return version.get() == asked;
+				}
+
+				@Override
+				protected void found(AMove_Node path) {
+					found.add(path.getPoint().x);
+					done.countDown();
+				}
+			});
+			while( target == 0 && version.get() == asked ){
+				Thread.sleep(1);
+			}
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {}
+		});
+		assertEquals(1, found.size());
+		assertEquals(Integer.valueOf(1), found.get(0));
+		worker.stop();
+	}
+}
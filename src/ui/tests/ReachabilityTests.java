@@ -0,0 +1,109 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Player;
+import game.Room;
+
+import java.awt.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ui.Board;
+import control.AMove_Node;
+import control.AStar;
+import control.Controller;
+import control.Reachability;
+
+public class ReachabilityTests {
+
+	private Player[] players;
+	private Board board;
+	private Controller controller;
+
+	@Before
+	public void initialize(){
+		players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+								new Player("Player 2", "Professor Plum"),
+								new Player("Player 3", "Mrs. White") };
+		board = new Board();
+		board.setUp(players);
+		controller = new Controller(board, null);
+		controller.setPlayers(players);
+	}
+
+	@Test
+	public void corridorDistances(){
+		controller.setDiceRoll(6);
+
+		// Colonel Mustard starts at (0,17)
+		assertEquals(0, controller.getReachability().getDistance(0, 17));
+		assertEquals(5, controller.getReachability().getDistance(5, 17));
+		assertTrue(controller.canReach(5, 17));
+		assertFalse(controller.canReach(0, 17));
+		assertFalse(controller.canReach(12, 17));
+	}
+
+	@Test
+	public void matchesAStar(){
+		controller.setDiceRoll(12);
+		Reachability reachability = controller.getReachability();
+		Point start = players[0].getPiece().getPosition();
+
+		// Every corridor square within reach should have a path of the same length
+		for( int cell : reachability.getReachableCells() ){
+			Point end = new Point(cell % Board.BOARD_WIDTH, cell / Board.BOARD_WIDTH);
+			AMove_Node path = AStar.getPath(start, end, players[0].getPiece(), board);
+			assertNotNull(path);
+			assertEquals(reachability.getDistance(end.x, end.y), path.getSize());
+		}
+	}
+
+	@Test
+	public void rooms(){
+		controller.setDiceRoll(12);
+		Reachability reachability = controller.getReachability();
+
+		// Dining Room and Lounge are both 8 moves away from (0,17)
+		Room diningRoom = board.getSquareAt(2, 12).getRoom();
+		assertEquals(8, reachability.getRoomDistance(diningRoom));
+		assertTrue(reachability.getReachableRooms().contains(diningRoom));
+		assertTrue(controller.canReach(2, 12));
+
+		// Study is too far away
+		Room study = board.getSquareAt(20, 22).getRoom();
+		assertEquals(21, reachability.getRoomDistance(study));
+		assertFalse(reachability.getReachableRooms().contains(study));
+		assertFalse(controller.canReach(20, 22));
+	}
+
+	@Test
+	public void pathsFromDistanceField() throws Exception {
+		controller.setDiceRoll(12);
+		Reachability reachability = controller.getReachability();
+
+		// Shortest legal path to every corridor square within reach, without a search
+		for( int cell : reachability.getReachableCells() ){
+			int x = cell % Board.BOARD_WIDTH, y = cell / Board.BOARD_WIDTH;
+			AMove_Node path = reachability.getPath(x, y);
+			assertEquals(reachability.getDistance(x, y), path.getSize());
+			controller.checkValidMove(path, players[0].getPiece());
+
+			AMove_Node last = path;
+			while( last.getNext() != null ){
+				assertEquals(1, Math.abs(last.getPoint().x - last.getNext().getPoint().x)
+						+ Math.abs(last.getPoint().y - last.getNext().getPoint().y));
+				last = last.getNext();
+			}
+			assertEquals(new Point(x, y), last.getPoint());
+		}
+
+		// Rooms end on the door they are entered through
+		AMove_Node path = reachability.getPath(2, 12);
+		assertEquals(8, path.getSize());
+		AMove_Node door = path;
+		while( door.getNext() != null ) door = door.getNext();
+		assertEquals(board.getSquareAt(2, 12).getRoom(), board.getSquare(door.getPoint()).getRoom());
+		assertNull(reachability.getPath(20, 22));
+	}
+}
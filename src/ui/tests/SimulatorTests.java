@@ -0,0 +1,59 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import sim.SimulationResult;
+import sim.Simulator;
+
+public class SimulatorTests {
+
+	@Test
+	public void playsCompleteGames(){
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			SimulationResult result = new Simulator(4, pool).run(100);
+
+			// Every game should be counted once and the automated players should solve them
+			assertEquals(100, result.getGames());
+			assertTrue(result.getSolved() > 0);
+			assertTrue(result.getMeanTurnsToSolution() > 0);
+
+			double wins = 0;
+			for( int seat = 0; seat < 4; seat++ ){
+				wins += result.getSeatWinRate(seat);
+			}
+			assertEquals(result.getSolved() / 100.0, wins, 0.0001);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void sameSeedPlaysSameGames(){
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Simulator first = new Simulator(3, single);
+			first.setSeed(42);
+			Simulator second = new Simulator(3, pool);
+			second.setSeed(42);
+
+			SimulationResult a = first.run(100);
+			SimulationResult b = second.run(100);
+
+			// Splitting the games differently between threads must not change them
+			assertEquals(a.getSolved(), b.getSolved());
+			assertEquals(a.getMeanTurnsToSolution(), b.getMeanTurnsToSolution(), 0);
+			for( int seat = 0; seat < 3; seat++ ){
+				assertEquals(a.getSeatWinRate(seat), b.getSeatWinRate(seat), 0);
+			}
+		} finally {
+			single.shutdown();
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+import game.GameRandom;
+import game.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import store.Snapshot;
+import ui.Board;
+import ai.AutoPlayer;
+import control.Controller;
+
+public class SnapshotTests {
+
+	@Test
+	public void restoredGamePlaysOnTheSame() throws Exception {
+		Controller controller = newGame(9);
+		setStrategies(controller);
+
+		// Part way through the game, at the start of a turn
+		for( int tick = 0; tick < 100 || controller.getStatus() != Controller.Status.ROLLING_DICE; tick++ ){
+			if( controller.getStatus() == Controller.Status.GAME_OVER ) break;
+			controller.tick();
+		}
+		assertTrue(controller.getTurns() > 0);
+		assertNotEquals(Controller.Status.GAME_OVER, controller.getStatus());
+
+		ByteBuffer buffer = ByteBuffer.allocate(Snapshot.MAX_SIZE);
+		Snapshot.write(controller, buffer);
+		buffer.flip();
+		Controller restored = Snapshot.load(buffer);
+		assertFalse(buffer.hasRemaining());
+		play(restored);
+
+		// Both games finish the same way from the same state
+		play(controller);
+		assertEquals(controller.getStatus(), restored.getStatus());
+		assertEquals(controller.getCurrentPlayerIndex(), restored.getCurrentPlayerIndex());
+		assertEquals(controller.getTurns(), restored.getTurns());
+		for( int cards = Card.CHARACTERS | Card.WEAPONS; cards != 0; cards &= cards - 1 ){
+			String name = Card.first(cards).getName();
+			assertEquals(controller.getBoard().getItem(name).getPosition(),
+					restored.getBoard().getItem(name).getPosition());
+		}
+	}
+
+	@Test
+	public void readsIntoSameGame() throws Exception {
+		Controller controller = newGame(4);
+		ByteBuffer buffer = ByteBuffer.allocate(Snapshot.MAX_SIZE);
+		Snapshot.write(controller, buffer);
+		int solution = controller.getSolution();
+
+		// Play on, then go back to the checkpoint
+		play(controller);
+		buffer.flip();
+		Snapshot.read(buffer, controller);
+		assertEquals(0, controller.getTurns());
+		assertEquals(solution, controller.getSolution());
+		assertEquals(Controller.Status.ROLLING_DICE, controller.getStatus());
+		assertFalse(controller.getKnowledge(0).isSolved());
+	}
+
+	@Test
+	public void keepsRevealedCard() throws Exception {
+		Controller controller = newGame(5);
+		setStrategies(controller);
+
+		// Until a card has been shown to a suggester
+		for( int tick = 0; controller.getRevealedCard() == null && tick < 10000; tick++ ){
+			controller.tick();
+		}
+		assertNotNull(controller.getRevealedCard());
+
+		ByteBuffer buffer = ByteBuffer.allocate(Snapshot.MAX_SIZE);
+		Snapshot.write(controller, buffer);
+		buffer.flip();
+		assertEquals(controller.getRevealedCard(), Snapshot.load(buffer).getRevealedCard());
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherData() throws Exception {
+		Snapshot.load(ByteBuffer.wrap(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8 }));
+	}
+
+	private Controller newGame(long seed){
+		Player[] players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+										new Player("Player 2", "Professor Plum"),
+										new Player("Player 3", "Mrs. White"),
+										new Player("Player 4", "Mrs. Peacock") };
+		Board board = new Board(new GameRandom(seed));
+		board.setUp(players);
+		Controller controller = new Controller(board);
+		controller.setPlayers(players);
+		controller.dealCards();
+		return controller;
+	}
+
+	private void setStrategies(Controller controller){
+		AutoPlayer strategy = new AutoPlayer(controller.getRandom());
+		for( int seat = 0; seat < controller.getPlayers().length; seat++ ){
+			controller.setStrategy(seat, strategy);
+		}
+	}
+
+	private void play(Controller controller){
+		setStrategies(controller);
+		while( controller.getStatus() != Controller.Status.GAME_OVER && controller.getTurns() < 1000 ){
+			controller.tick();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package ui.tests;
+
+import static org.junit.Assert.*;
+import game.Card;
+import game.GameRandom;
+import game.Player;
+import net.SpectatorFeed;
+import net.SpectatorView;
+
+import org.junit.Test;
+
+import ui.Board;
+import ai.AutoPlayer;
+import control.Controller;
+
+public class SpectatorFeedTests {
+
+	@Test
+	public void viewFollowsGame() throws Exception {
+		Controller controller = newGame(3);
+		SpectatorFeed feed = new SpectatorFeed(controller);
+		SpectatorFeed.Subscription subscription = feed.subscribe(64);
+		SpectatorView view = new SpectatorView();
+
+		int deltas = 0, keyframes = 0, suggestions = 0;
+		while( controller.getStatus() != Controller.Status.GAME_OVER && controller.getTurns() < 1000 ){
+			controller.tick();
+			feed.update();
+			for( SpectatorFeed.Frame frame = subscription.poll(); frame != null; frame = subscription.poll() ){
+				assertTrue(view.apply(frame));
+				if( frame.isKeyframe() ) keyframes++;
+				else deltas++;
+				if( !frame.isKeyframe() && (frame.getBody().get(4) & SpectatorFeed.SUGGESTION) != 0 ) suggestions++;
+			}
+			assertSameState(controller, view);
+		}
+		assertTrue(keyframes > 1);
+		assertTrue(deltas > keyframes);
+		assertTrue(suggestions > 0);
+		assertFalse(subscription.isKeyframesOnly());
+		assertEquals(0, subscription.getDropped());
+	}
+
+	@Test
+	public void viewersOnlySeeTheirCards() throws Exception {
+		Controller controller = newGame(5);
+		SpectatorFeed feed = new SpectatorFeed(controller);
+		int seats = controller.getPlayers().length;
+
+		// Public, everything, then a viewer for every seat
+		SpectatorFeed.Subscription[] subscriptions = new SpectatorFeed.Subscription[seats + 2];
+		SpectatorView[] views = new SpectatorView[seats + 2];
+		for( int viewer = SpectatorFeed.PUBLIC; viewer < seats; viewer++ ){
+			subscriptions[viewer + 2] = feed.subscribe(1024, viewer);
+			views[viewer + 2] = new SpectatorView();
+		}
+
+		int shown = 0;
+		while( controller.getStatus() != Controller.Status.GAME_OVER && controller.getTurns() < 1000 ){
+			controller.tick();
+			feed.update();
+			for( int index = 0; index < views.length; index++ ){
+				for( SpectatorFeed.Frame frame = subscriptions[index].poll(); frame != null; frame = subscriptions[index]
+						.poll() ){
+					assertTrue(views[index].apply(frame));
+					if( index == 0 ) assertFalse(frame.getPrivate().hasRemaining());
+				}
+			}
+
+			// The card shown only reaches the suggester, the one showing it and those seeing everything
+			Card card = views[1].getShown();
+			for( int seat = 0; seat < seats; seat++ ){
+				boolean involved = card != null
+						&& (seat == views[1].getSuggester() || seat == views[1].getDisprover());
+				assertEquals(involved ? card : null, views[seat + 2].getShown());
+				if( involved ) shown++;
+			}
+		}
+		assertTrue(shown > 0);
+
+		assertEquals(controller.getSolution(), views[1].getEnvelope());
+		for( int seat = 0; seat < seats; seat++ ){
+			int hand = controller.getPlayers()[seat].getHand();
+			assertEquals(hand, views[1].getHand(seat));
+			assertEquals(0, views[0].getHand(seat));
+
+			// A seat never sees the envelope or the hands of the others
+			SpectatorView view = views[seat + 2];
+			assertEquals(0, view.getEnvelope());
+			assertEquals(0, view.getSeen() & (hand | controller.getSolution()));
+			for( int other = 0; other < seats; other++ ){
+				assertEquals(other == seat ? hand : 0, view.getHand(other));
+			}
+		}
+	}
+
+	@Test
+	public void slowSubscriberOnlyGetsKeyframes() throws Exception {
+		Controller controller = newGame(8);
+		SpectatorFeed feed = new SpectatorFeed(controller);
+		SpectatorFeed.Subscription subscription = feed.subscribe(4);
+
+		// Never taking a frame while the game goes on
+		for( int tick = 0; tick < 300 && controller.getStatus() != Controller.Status.GAME_OVER; tick++ ){
+			controller.tick();
+			feed.update();
+		}
+		assertTrue(subscription.isKeyframesOnly());
+		assertTrue(subscription.getDropped() > 0);
+
+		// Only the latest keyframe is kept
+		SpectatorView view = new SpectatorView();
+		SpectatorFeed.Frame frame = subscription.poll();
+		assertTrue(frame.isKeyframe());
+		assertNull(subscription.poll());
+		assertTrue(view.apply(frame));
+
+		// Caught up, the next update resyncs and changes follow again
+		controller.tick();
+		feed.update();
+		assertFalse(subscription.isKeyframesOnly());
+		frame = subscription.poll();
+		assertTrue(frame.isKeyframe());
+		assertTrue(view.apply(frame));
+		assertSameState(controller, view);
+	}
+
+	private void assertSameState(Controller controller, SpectatorView view){
+		assertEquals(controller.getStatus(), view.getStatus());
+		assertEquals(controller.getCurrentPlayerIndex(), view.getCurrentPlayerIndex());
+		assertEquals(controller.getDiceRoll(), view.getDiceRoll());
+		for( int cards = Card.CHARACTERS | Card.WEAPONS; cards != 0; cards &= cards - 1 ){
+			Card card = Card.first(cards);
+			java.awt.Point position = controller.getBoard().getItem(card.getName()).getPosition();
+			assertEquals(position.y * Board.BOARD_WIDTH + position.x, view.getCell(card));
+		}
+	}
+
+	private Controller newGame(long seed){
+		Player[] players = new Player[]{ new Player("Player 1", "Colonel Mustard"),
+										new Player("Player 2", "Professor Plum"),
+										new Player("Player 3", "Mrs. White"),
+										new Player("Player 4", "Mrs. Peacock") };
+		Board board = new Board(new GameRandom(seed));
+		board.setUp(players);
+		Controller controller = new Controller(board);
+		controller.setPlayers(players);
+		controller.dealCards();
+		AutoPlayer strategy = new AutoPlayer(controller.getRandom());
+		for( int seat = 0; seat < players.length; seat++ ){
+			controller.setStrategy(seat, strategy);
+		}
+		return controller;
+	}
+}